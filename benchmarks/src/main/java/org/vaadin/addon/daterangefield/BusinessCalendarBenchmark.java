@@ -0,0 +1,94 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Working days of a one year range and the day 20 working days after a date, with ten holidays a year over ten
+ * years: walking the days with DateTime.plusDays and a set of holiday dates, and with a BusinessCalendar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BusinessCalendarBenchmark {
+
+    Set<Date> holidays;
+    BusinessCalendar calendar;
+    Date from;
+    Date to;
+    int fromDay;
+    int toDay;
+
+    @Setup
+    public void setUp() {
+        holidays = new HashSet<Date>();
+        for (int year = 2010; year < 2020; year++) {
+            for (int month = 1; month <= 10; month++) {
+                holidays.add(DateUtil.toDate(DateUtil.epochDay(year, month, 10 + month)));
+            }
+        }
+        calendar = new BusinessCalendar(holidays);
+        fromDay = DateUtil.epochDay(2014, 4, 1);
+        toDay = DateUtil.epochDay(2015, 3, 31);
+        from = DateUtil.toDate(fromDay);
+        to = DateUtil.toDate(toDay);
+    }
+
+    private boolean isBusinessDay(DateTime d) {
+        int dow = d.getDayOfWeek();
+        return (DateTimeConstants.SATURDAY != dow) && (DateTimeConstants.SUNDAY != dow)
+                && !holidays.contains(d.toDate());
+    }
+
+    @Benchmark
+    public int countDayByDay() {
+        int days = 0;
+        DateTime end = new DateTime(to);
+        for (DateTime d = new DateTime(from).withTimeAtStartOfDay(); !d.isAfter(end); d = d.plusDays(1)) {
+            if (isBusinessDay(d)) {
+                days++;
+            }
+        }
+        return days;
+    }
+
+    @Benchmark
+    public int countCalendar() {
+        return calendar.businessDays(DateUtil.toEpochDay(from), DateUtil.toEpochDay(to));
+    }
+
+    @Benchmark
+    public Date addDayByDay() {
+        DateTime d = new DateTime(from).withTimeAtStartOfDay();
+        for (int n = 20; n > 0; ) {
+            d = d.plusDays(1);
+            if (isBusinessDay(d)) {
+                n--;
+            }
+        }
+        return d.toDate();
+    }
+
+    @Benchmark
+    public Date addCalendar() {
+        return calendar.addBusinessDays(from, 20);
+    }
+}
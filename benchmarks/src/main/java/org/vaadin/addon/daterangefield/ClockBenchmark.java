@@ -0,0 +1,48 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Today and the current year the way DateUtil used to get them, from DateTime.now(), and from the cached
+ * DateClock.SYSTEM it uses now.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClockBenchmark {
+
+    @Benchmark
+    public int currentYearDateTime() {
+        return DateTime.now().getYear();
+    }
+
+    @Benchmark
+    public int currentYearClock() {
+        return DateUtil.currentYear();
+    }
+
+    @Benchmark
+    public Date nowDateTime() {
+        return DateTime.now().withTimeAtStartOfDay().toDate();
+    }
+
+    @Benchmark
+    public Date nowClock() {
+        return DateUtil.now();
+    }
+}
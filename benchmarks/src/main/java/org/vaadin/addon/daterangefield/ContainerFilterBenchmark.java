@@ -0,0 +1,175 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.util.BeanItemContainer;
+import com.vaadin.data.util.IndexedContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One range change on a container of 100k items with a date property, an IndexedContainer and a BeanItemContainer:
+ * swapping a filter that reads the property and calls DateUtil.isBetweenInclusive per item, swapping a
+ * DateRangeFilter, and taking the slice from the SortedDateIndex without filtering at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ContainerFilterBenchmark {
+
+    static final int ITEMS = 100000;
+
+    static final class NaiveFilter implements Container.Filter {
+        final Date from;
+        final Date to;
+
+        NaiveFilter(Date from, Date to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean passesFilter(Object itemId, Item item) {
+            Date d = (Date) item.getItemProperty("date").getValue();
+            return (null != d) && DateUtil.isBetweenInclusive(d, from, to);
+        }
+
+        @Override
+        public boolean appliesToProperty(Object propertyId) {
+            return "date".equals(propertyId);
+        }
+    }
+
+    public static class Booking {
+        private Date date;
+
+        public Date getDate() {
+            return date;
+        }
+
+        public void setDate(Date date) {
+            this.date = date;
+        }
+    }
+
+    IndexedContainer naive;
+    IndexedContainer indexed;
+    SortedDateIndex index;
+    Container.Filter naiveFilter;
+    Container.Filter indexedFilter;
+    BeanItemContainer<Booking> naiveBeans;
+    BeanItemContainer<Booking> indexedBeans;
+    SortedDateIndex beanIndex;
+    Container.Filter naiveBeanFilter;
+    Container.Filter indexedBeanFilter;
+    DateRange[] ranges;
+    int next;
+
+    @Setup
+    public void setUp() {
+        naive = container();
+        indexed = container();
+        index = new SortedDateIndex(indexed, "date");
+        naiveBeans = beans();
+        indexedBeans = beans();
+        beanIndex = new SortedDateIndex(indexedBeans, "date");
+        ranges = new DateRange[64];
+        Random r = new Random(1);
+        for (int i = 0; i < ranges.length; i++) {
+            int from = 15000 + r.nextInt(3000);
+            ranges[i] = new DateRange(DateUtil.toDate(from), DateUtil.toDate(from + 30 + r.nextInt(60)));
+        }
+    }
+
+    private static IndexedContainer container() {
+        IndexedContainer c = new IndexedContainer();
+        c.addContainerProperty("date", Date.class, null);
+        Random r = new Random(2);
+        for (int i = 0; i < ITEMS; i++) {
+            Object id = c.addItem();
+            c.getContainerProperty(id, "date").setValue(DateUtil.toDate(15000 + r.nextInt(3000)));
+        }
+        return c;
+    }
+
+    private static BeanItemContainer<Booking> beans() {
+        BeanItemContainer<Booking> c = new BeanItemContainer<Booking>(Booking.class);
+        Random r = new Random(2);
+        for (int i = 0; i < ITEMS; i++) {
+            Booking b = new Booking();
+            b.setDate(DateUtil.toDate(15000 + r.nextInt(3000)));
+            c.addBean(b);
+        }
+        return c;
+    }
+
+    private DateRange nextRange() {
+        next = (next + 1) & (ranges.length - 1);
+        return ranges[next];
+    }
+
+    @Benchmark
+    public int naiveFilter() {
+        DateRange range = nextRange();
+        if (null != naiveFilter) {
+            naive.removeContainerFilter(naiveFilter);
+        }
+        naiveFilter = new NaiveFilter(range.getFrom(), range.getTo());
+        naive.addContainerFilter(naiveFilter);
+        return naive.size();
+    }
+
+    @Benchmark
+    public int indexedFilter() {
+        DateRange range = nextRange();
+        if (null != indexedFilter) {
+            indexed.removeContainerFilter(indexedFilter);
+        }
+        indexedFilter = index.filter(range);
+        indexed.addContainerFilter(indexedFilter);
+        return indexed.size();
+    }
+
+    @Benchmark
+    public int naiveBeanFilter() {
+        DateRange range = nextRange();
+        if (null != naiveBeanFilter) {
+            naiveBeans.removeContainerFilter(naiveBeanFilter);
+        }
+        naiveBeanFilter = new NaiveFilter(range.getFrom(), range.getTo());
+        naiveBeans.addContainerFilter(naiveBeanFilter);
+        return naiveBeans.size();
+    }
+
+    @Benchmark
+    public int indexedBeanFilter() {
+        DateRange range = nextRange();
+        if (null != indexedBeanFilter) {
+            indexedBeans.removeContainerFilter(indexedBeanFilter);
+        }
+        indexedBeanFilter = beanIndex.filter(range);
+        indexedBeans.addContainerFilter(indexedBeanFilter);
+        return indexedBeans.size();
+    }
+
+    @Benchmark
+    public List<Object> indexSlice() {
+        return index.getItemIds(nextRange());
+    }
+}
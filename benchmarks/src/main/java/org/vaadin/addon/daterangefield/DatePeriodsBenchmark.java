@@ -0,0 +1,80 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expanding a ten year DateRange into its days and its months: building a List of Dates with DateTime.plusDays
+ * and plusMonths, and enumerating DatePeriods.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DatePeriodsBenchmark {
+
+    DateRange range;
+
+    @Setup
+    public void setUp() {
+        range = new DateRange(DateUtil.toDate(DateUtil.epochDay(2010, 1, 1)),
+                DateUtil.toDate(DateUtil.epochDay(2019, 12, 31)));
+    }
+
+    @Benchmark
+    public List<Date> daysAsDates() {
+        List<Date> days = new ArrayList<Date>();
+        DateTime end = new DateTime(range.getTo());
+        for (DateTime d = new DateTime(range.getFrom()); !d.isAfter(end); d = d.plusDays(1)) {
+            days.add(d.toDate());
+        }
+        return days;
+    }
+
+    @Benchmark
+    public void daysAsPeriods(final Blackhole bh) {
+        DatePeriods.of(range, DatePeriods.Period.DAY).forEachRemaining(new DatePeriods.DayConsumer() {
+            @Override
+            public void accept(int day) {
+                bh.consume(day);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Date> monthsAsDates() {
+        List<Date> months = new ArrayList<Date>();
+        DateTime end = new DateTime(range.getTo());
+        for (DateTime d = new DateTime(range.getFrom()).withDayOfMonth(1); !d.isAfter(end); d = d.plusMonths(1)) {
+            months.add(d.toDate());
+        }
+        return months;
+    }
+
+    @Benchmark
+    public void monthsAsPeriods(final Blackhole bh) {
+        DatePeriods.of(range, DatePeriods.Period.MONTH).forEachRemaining(new DatePeriods.DayConsumer() {
+            @Override
+            public void accept(int day) {
+                bh.consume(day);
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+import com.vaadin.data.util.ObjectProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A headless DateRangeField configured like the one in DateRangeFieldUI, with min and max years set.  Nothing is
+ * attached to a session; initContent() is called directly so the year listener is registered.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateRangeFieldBenchmark {
+
+    DateRangeField drf;
+    int year;
+
+    @Setup
+    public void setUp() {
+        drf = new DateRangeField(new ObjectProperty<Date>(DateUtil.firstDayOfYear(2014)),
+                new ObjectProperty<Date>(DateUtil.lastDayOfYear(2014)), true, 2014, true);
+        drf.setErrorStyleName("errorstyle");
+        drf.initContent();
+        drf.setMinYear(2000);
+        drf.setMaxYear(2030);
+        year = 2014;
+    }
+
+    @Benchmark
+    public Validator.InvalidValueException highlightInvalidFields() {
+        return drf.highlightInvalidFields();
+    }
+
+    /**
+     * One step of the year stepper: yearChange moves both dates and every listener revalidates.
+     */
+    @Benchmark
+    public DateRange yearChange() {
+        year = (year == 2014) ? 2015 : 2014;
+        drf.getYearField().setValue(year);
+        return drf.getValue();
+    }
+}
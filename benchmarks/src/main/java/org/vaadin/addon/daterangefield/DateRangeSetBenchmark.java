@@ -0,0 +1,115 @@
+package org.vaadin.addon.daterangefield;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An availability screen over ten years: a two year window minus 2000 bookings minus 100 holidays.  Done pairwise
+ * on lists of DateRanges, splitting the free ranges with DateUtil comparisons, and with DateRangeSets, built in
+ * advance or from the lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateRangeSetBenchmark {
+
+    List<DateRange> window;
+    List<DateRange> bookings;
+    List<DateRange> holidays;
+    DateRangeSet windowSet;
+    DateRangeSet bookingSet;
+    DateRangeSet holidaySet;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int first = DateUtil.epochDay(2010, 1, 1);
+        bookings = new ArrayList<DateRange>();
+        for (int i = 0; i < 2000; i++) {
+            int from = first + random.nextInt(3650);
+            bookings.add(range(from, from + random.nextInt(7)));
+        }
+        holidays = new ArrayList<DateRange>();
+        for (int i = 0; i < 100; i++) {
+            int day = first + random.nextInt(3650);
+            holidays.add(range(day, day));
+        }
+        window = new ArrayList<DateRange>();
+        window.add(range(DateUtil.epochDay(2014, 4, 1), DateUtil.epochDay(2016, 3, 31)));
+        windowSet = new DateRangeSet(window);
+        bookingSet = new DateRangeSet(bookings);
+        holidaySet = new DateRangeSet(holidays);
+    }
+
+    private static DateRange range(int fromDay, int toDay) {
+        return new DateRange(DateUtil.toDate(fromDay), DateUtil.toDate(toDay));
+    }
+
+    @Benchmark
+    public int pairwise() {
+        List<DateRange> free = subtract(subtract(window, bookings), holidays);
+        int days = 0;
+        for (DateRange dr : free) {
+            days += DateUtil.toEpochDay(dr.getTo()) - DateUtil.toEpochDay(dr.getFrom()) + 1;
+        }
+        return days;
+    }
+
+    private static List<DateRange> subtract(List<DateRange> free, List<DateRange> taken) {
+        for (DateRange t : taken) {
+            List<DateRange> left = new ArrayList<DateRange>();
+            for (DateRange f : free) {
+                if (DateUtil.isBefore(t.getTo(), f.getFrom()) || DateUtil.isAfter(t.getFrom(), f.getTo())) {
+                    left.add(f);
+                    continue;
+                }
+                if (DateUtil.isBefore(f.getFrom(), t.getFrom())) {
+                    left.add(new DateRange(f.getFrom(), DateUtil.toDate(DateUtil.toEpochDay(t.getFrom()) - 1)));
+                }
+                if (DateUtil.isAfter(f.getTo(), t.getTo())) {
+                    left.add(new DateRange(DateUtil.toDate(DateUtil.toEpochDay(t.getTo()) + 1), f.getTo()));
+                }
+            }
+            free = left;
+        }
+        return free;
+    }
+
+    @Benchmark
+    public long sets() {
+        return windowSet.minus(bookingSet).minus(holidaySet).cardinality();
+    }
+
+    @Benchmark
+    public long setsFromLists() {
+        return new DateRangeSet(window).minus(new DateRangeSet(bookings)).minus(new DateRangeSet(holidays))
+                .cardinality();
+    }
+
+    @Benchmark
+    public long[] setsToRanges() {
+        return windowSet.minus(bookingSet).minus(holidaySet).toPackedRanges();
+    }
+
+    @Benchmark
+    public DateRangeSet union() {
+        return bookingSet.union(holidaySet);
+    }
+}
@@ -0,0 +1,126 @@
+package org.vaadin.addon.daterangefield;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.DateFormatSymbols;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The static date math everything else is built on.  Inputs cycle through a small array so the JIT can't fold them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DateUtilBenchmark {
+
+    static final int SIZE = 1024;
+    static final int MASK = SIZE - 1;
+
+    Date[] dates = new Date[SIZE];
+    String[] strings = new String[SIZE];
+    int[] years = new int[SIZE];
+    int[] days = new int[SIZE];
+    int i;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] months = new DateFormatSymbols(Locale.US).getShortMonths();
+        long base = DateUtil.firstDayOfYear(1990).getTime();
+        int firstDay = DateUtil.firstEpochDayOfYear(1990);
+        for (int n = 0; n < SIZE; n++) {
+            int offset = random.nextInt(40 * 365);
+            if ((DateUtil.monthOfEpochDay(firstDay + offset) == 2)
+                    && (DateUtil.dayOfMonthOfEpochDay(firstDay + offset) == 29)) {
+                // sameDayDifferentYear rejects Feb 29 in a non leap year
+                offset++;
+            }
+            // somewhere between 6am and 6pm so DST shifts can't move it to another day
+            dates[n] = new Date(base + offset * DateUtil.MILLIS_PER_DAY + (6 + random.nextInt(12)) * 3600000L);
+            years[n] = 1990 + random.nextInt(40);
+            days[n] = firstDay + offset;
+            strings[n] = (1 + random.nextInt(28)) + "-" + months[random.nextInt(12)] + "-" + years[n];
+        }
+    }
+
+    private int next() {
+        return i = (i + 1) & MASK;
+    }
+
+    @Benchmark
+    public boolean isOnOrBefore() {
+        int n = next();
+        return DateUtil.isOnOrBefore(dates[n], dates[(n + 1) & MASK]);
+    }
+
+    @Benchmark
+    public boolean isOnOrAfter() {
+        int n = next();
+        return DateUtil.isOnOrAfter(dates[n], dates[(n + 1) & MASK]);
+    }
+
+    @Benchmark
+    public boolean isBefore() {
+        int n = next();
+        return DateUtil.isBefore(dates[n], dates[(n + 1) & MASK]);
+    }
+
+    @Benchmark
+    public boolean isAfter() {
+        int n = next();
+        return DateUtil.isAfter(dates[n], dates[(n + 1) & MASK]);
+    }
+
+    @Benchmark
+    public boolean isBetweenInclusive() {
+        int n = next();
+        return DateUtil.isBetweenInclusive(dates[n], dates[(n + 1) & MASK], dates[(n + 2) & MASK]);
+    }
+
+    @Benchmark
+    public boolean isInYear() {
+        int n = next();
+        return DateUtil.isInYear(dates[n], years[n]);
+    }
+
+    @Benchmark
+    public Date stringToDate() {
+        return DateUtil.stringToDate(strings[next()], null, Locale.US);
+    }
+
+    @Benchmark
+    public Date firstDayOfYear() {
+        return DateUtil.firstDayOfYear(years[next()]);
+    }
+
+    @Benchmark
+    public Date sameDayDifferentYear() {
+        int n = next();
+        return DateUtil.sameDayDifferentYear(dates[n], years[(n + 1) & MASK]);
+    }
+
+    @Benchmark
+    public Date toDate() {
+        return DateUtil.toDate(days[next()]);
+    }
+
+    @Benchmark
+    public int toEpochDay() {
+        return DateUtil.toEpochDay(dates[next()]);
+    }
+}
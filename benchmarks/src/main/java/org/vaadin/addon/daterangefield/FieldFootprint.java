@@ -0,0 +1,92 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.util.ObjectProperty;
+
+import java.util.Date;
+
+/**
+ * Retained heap per DateRangeField, the way a table holds them: one per row, each with its own properties.  Not a
+ * JMH benchmark; run it with a fixed heap, e.g.
+ * <pre>java -Xms512m -Xmx512m -cp target/benchmarks.jar org.vaadin.addon.daterangefield.FieldFootprint</pre>
+ */
+public class FieldFootprint {
+
+    private static final int FIELDS = 2000;
+
+    public static void main(String[] args) {
+        report("properties only", 0);
+        report("DateRangeField", 1);
+        report("DateRangeField, no validators", 4);
+        report("lightweight, unrendered", 2);
+        report("lightweight, rendered", 3);
+    }
+
+    private static void report(String label, int kind) {
+        // warm up once so class loading isn't counted
+        build(kind, 10);
+        long before = usedHeap();
+        Object[] fields = build(kind, FIELDS);
+        long after = usedHeap();
+        System.out.printf("%-30s %8d bytes per instance%n", label, (after - before) / FIELDS);
+        if (fields.length != FIELDS) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static Object[] build(int kind, int count) {
+        DateRangeRules shared = new DateRangeRules(2000, 2030, true);
+        Object[] fields = new Object[count];
+        for (int i = 0; i < count; i++) {
+            ObjectProperty<Date> from = new ObjectProperty<Date>(DateUtil.toDate(16071 + i % 300), Date.class);
+            ObjectProperty<Date> to = new ObjectProperty<Date>(DateUtil.toDate(16400), Date.class);
+            ObjectProperty<Integer> year = new ObjectProperty<Integer>(2014, Integer.class);
+            switch (kind) {
+                case 0:
+                    fields[i] = new Object[]{from, to, year};
+                    break;
+                case 1:
+                    DateRangeField drf = new DateRangeField(from, to, true, year, true);
+                    drf.setMinYear(2000);
+                    drf.setMaxYear(2030);
+                    drf.initContent();
+                    fields[i] = drf;
+                    break;
+                case 2:
+                    fields[i] = new DateRangeField(from, to, shared, year, true);
+                    break;
+                case 4:
+                    // what the sub fields' own validators cost, next to the DateRangeField line
+                    DateRangeField bare = new DateRangeField(from, to, true, year, true);
+                    bare.setMinYear(2000);
+                    bare.setMaxYear(2030);
+                    bare.initContent();
+                    bare.getFromField().removeAllValidators();
+                    bare.getToField().removeAllValidators();
+                    bare.getYearField().removeAllValidators();
+                    fields[i] = bare;
+                    break;
+                default:
+                    DateRangeField light = new DateRangeField(from, to, shared, year, true);
+                    light.initContent();
+                    fields[i] = light;
+            }
+        }
+        return fields;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // settle on the lowest reading
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
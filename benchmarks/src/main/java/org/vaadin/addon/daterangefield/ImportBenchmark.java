@@ -0,0 +1,133 @@
+package org.vaadin.addon.daterangefield;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Time and peak heap of importing a CSV of date ranges: line by line into DateRanges the usual way, then with
+ * DateRangeImporter collecting, streaming to a Sink and in parallel parts.  Not a JMH benchmark; run it with
+ * <pre>java -Xmx2g -cp target/benchmarks.jar org.vaadin.addon.daterangefield.ImportBenchmark [lines]</pre>
+ */
+public class ImportBenchmark {
+
+    private static final String PATTERN = "yyyy-MM-dd";
+
+    public static void main(String[] args) throws Exception {
+        int lines = (args.length > 0) ? Integer.parseInt(args[0]) : 4000000;
+        File file = File.createTempFile("ranges", ".csv");
+        file.deleteOnExit();
+        write(file, lines);
+        System.out.printf("%d lines, %d MB%n", lines, file.length() >> 20);
+
+        final DateRangeRules rules = new DateRangeRules(2000, 2030, true);
+        final DateRangeImporter importer = new DateRangeImporter();
+        importer.setHeaderLines(1);
+        importer.setRules(rules, DateRangeRules.SAME_YEAR);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 3; round++) {
+                boolean print = (2 == round);
+                long t = start();
+                int n = readerBaseline(file, rules);
+                report(print, "BufferedReader + DateRange", t, n);
+
+                t = start();
+                n = importer.read(file).getRanges().length;
+                report(print, "importer, collected", t, n);
+
+                t = start();
+                final int[] count = new int[1];
+                importer.read(file, new DateRangeImporter.Sink() {
+                    @Override
+                    public void range(int fromDay, int toDay) {
+                        count[0]++;
+                    }
+                });
+                report(print, "importer, sink", t, count[0]);
+
+                t = start();
+                n = importer.read(file, executor, threads).getRanges().length;
+                report(print, "importer, " + threads + " parts", t, n);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void write(File file, int lines) throws IOException {
+        Random random = new Random(42);
+        BufferedWriter out = new BufferedWriter(new FileWriter(file));
+        try {
+            out.write("from,to,guest\n");
+            for (int i = 0; i < lines; i++) {
+                int from = DateUtil.epochDay(2014, 1, 1) + random.nextInt(3000);
+                int to = from + random.nextInt(14);
+                out.write(iso(from) + "," + iso(to) + ",guest " + i + "\n");
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String iso(int day) {
+        return String.format("%04d-%02d-%02d", DateUtil.yearOfEpochDay(day), DateUtil.monthOfEpochDay(day),
+                DateUtil.dayOfMonthOfEpochDay(day));
+    }
+
+    private static int readerBaseline(File file, DateRangeRules rules) throws IOException {
+        List<DateRange> ranges = new ArrayList<DateRange>();
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try {
+            in.readLine();
+            String line;
+            while (null != (line = in.readLine())) {
+                String[] fields = line.split(",");
+                DateRange dr = new DateRange(DateUtil.stringToDate(fields[0], PATTERN, Locale.ENGLISH),
+                        DateUtil.stringToDate(fields[1], PATTERN, Locale.ENGLISH));
+                if (DateRangeRules.VALID == rules.check(dr, DateRangeRules.SAME_YEAR)) {
+                    ranges.add(dr);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return ranges.size();
+    }
+
+    private static long start() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (MemoryType.HEAP == pool.getType()) {
+                pool.resetPeakUsage();
+            }
+        }
+        return System.nanoTime();
+    }
+
+    private static void report(boolean print, String label, long start, int ranges) {
+        long millis = (System.nanoTime() - start) / 1000000;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (MemoryType.HEAP == pool.getType()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        if (print) {
+            System.out.printf("%-28s %6d ms %6d MB peak heap %8d ranges%n", label, millis, peak >> 20, ranges);
+        }
+    }
+}
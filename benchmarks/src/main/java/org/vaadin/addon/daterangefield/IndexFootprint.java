@@ -0,0 +1,82 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+import com.vaadin.data.util.BeanItemContainer;
+import com.vaadin.data.util.IndexedContainer;
+
+import java.util.Date;
+
+/**
+ * Retained heap of a SortedDateIndex over 100k items, as a snapshot and with its values tracked, for an
+ * IndexedContainer and a BeanItemContainer.  Not a JMH benchmark; run it with a fixed heap, e.g.
+ * <pre>java -Xms1g -Xmx1g -cp target/benchmarks.jar org.vaadin.addon.daterangefield.IndexFootprint</pre>
+ */
+public class IndexFootprint {
+
+    private static final int ITEMS = 100000;
+
+    public static void main(String[] args) {
+        for (boolean beans : new boolean[]{false, true}) {
+            String name = beans ? "BeanItemContainer" : "IndexedContainer";
+            report(name + ", snapshot", beans, false);
+            report(name + ", tracking values", beans, true);
+        }
+    }
+
+    private static void report(String label, boolean beans, boolean tracking) {
+        // warm up once so class loading isn't counted
+        index(container(beans, 10), tracking);
+        Container container = container(beans, ITEMS);
+        long before = usedHeap();
+        SortedDateIndex index = index(container, tracking);
+        long after = usedHeap();
+        System.out.printf("%-38s %6d bytes per item%n", label, (after - before) / ITEMS);
+        if (index.size() != ITEMS) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static SortedDateIndex index(Container container, boolean tracking) {
+        SortedDateIndex index = new SortedDateIndex(container, "date");
+        index.setTrackingValues(tracking);
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Container container(boolean beans, int items) {
+        if (beans) {
+            BeanItemContainer<ContainerFilterBenchmark.Booking> c =
+                    new BeanItemContainer<ContainerFilterBenchmark.Booking>(ContainerFilterBenchmark.Booking.class);
+            for (int i = 0; i < items; i++) {
+                ContainerFilterBenchmark.Booking b = new ContainerFilterBenchmark.Booking();
+                b.setDate(DateUtil.toDate(16071 + i % 3650));
+                c.addBean(b);
+            }
+            return c;
+        }
+        IndexedContainer c = new IndexedContainer();
+        c.addContainerProperty("date", Date.class, null);
+        for (int i = 0; i < items; i++) {
+            Item item = c.addItem(i);
+            item.getItemProperty("date").setValue(DateUtil.toDate(16071 + i % 3650));
+        }
+        return c;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // settle on the lowest reading
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
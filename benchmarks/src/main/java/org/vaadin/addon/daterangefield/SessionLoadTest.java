@@ -0,0 +1,298 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+import com.vaadin.server.Constants;
+import com.vaadin.server.DefaultDeploymentConfiguration;
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.UI;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Many users at once in one JVM, without a servlet container or a browser: each has its own VaadinSession and a
+ * DateRangeFieldUI, and goes through a script of what a user does with it (step the year, change the min and max
+ * year, edit the from and to dates, commit), one interaction at a time under the session lock, the way a request
+ * is handled.  Each user runs on a virtual thread where the JVM has them (Java 21 and later), otherwise on a pool
+ * of platform threads.  Reports throughput, latency percentiles, allocation per interaction and retained heap per
+ * session.  Only the server side of an interaction is measured, not writing the response.  Not a JMH benchmark;
+ * run it with a fixed heap, e.g.
+ * <pre>java -Xms1g -Xmx1g -cp target/benchmarks.jar org.vaadin.addon.daterangefield.SessionLoadTest
+ *     [sessions] [interactions per session] [platform threads]</pre>
+ */
+public class SessionLoadTest {
+
+    private static final int STEPS = 6;
+
+    /**
+     * A session with a lock of its own, which VaadinService would otherwise keep in the HTTP session.
+     */
+    static class HeadlessSession extends VaadinSession {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        HeadlessSession(VaadinService service) {
+            super(service);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+
+    /**
+     * One user: a session, its UI and how far through the script it is.
+     */
+    static class User {
+        final VaadinSession session;
+        final DateRangeFieldUI ui = new DateRangeFieldUI();
+        final Random random;
+        long[] latencies = new long[0];
+        int step;
+        int year = 2014;
+        int commits;
+        int rejected;
+
+        private final Runnable next = new Runnable() {
+            @Override
+            public void run() {
+                interact();
+            }
+        };
+
+        User(VaadinService service, long seed) {
+            this.session = new HeadlessSession(service);
+            this.random = new Random(seed);
+            session.accessSynchronously(new Runnable() {
+                @Override
+                public void run() {
+                    ui.setSession(session);
+                    UI.setCurrent(ui);
+                    ui.init(null);
+                }
+            });
+        }
+
+        void run(int count, boolean record) {
+            if (record) {
+                latencies = new long[count];
+                commits = 0;
+                rejected = 0;
+            }
+            for (int i = 0; i < count; i++) {
+                long start = System.nanoTime();
+                ui.accessSynchronously(next);
+                if (record) {
+                    latencies[i] = System.nanoTime() - start;
+                }
+            }
+        }
+
+        private void interact() {
+            try {
+                script();
+            } catch (Validator.InvalidValueException ive) {
+                // what the client would be told
+                rejected++;
+            }
+        }
+
+        private void script() {
+            DateRangeField drf = ui.drf;
+            boolean even = (step / STEPS) % 2 == 0;
+            switch (step++ % STEPS) {
+                case 0: {
+                    // a click on the year stepper, which keeps its year if the new one is invalid
+                    int stepped = (2014 == year) ? 2015 : 2014;
+                    drf.getYearField().setValue(stepped);
+                    year = stepped;
+                    break;
+                }
+                case 1:
+                    ui.minYear.setValue(even ? "2000" : "2010");
+                    break;
+                case 2:
+                    ui.maxYear.setValue(even ? "2030" : "2025");
+                    break;
+                case 3:
+                    drf.getFromField().setValue(DateUtil.toDate(DateUtil.firstEpochDayOfYear(year)
+                            + random.nextInt(180)));
+                    break;
+                case 4:
+                    drf.getToField().setValue(DateUtil.toDate(DateUtil.firstEpochDayOfYear(year) + 180
+                            + random.nextInt(185)));
+                    break;
+                default:
+                    drf.commit();
+                    commits++;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        int interactions = (args.length > 1) ? Integer.parseInt(args[1]) : 600;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2])
+                : 2 * Runtime.getRuntime().availableProcessors();
+
+        // the same years on every run
+        DateUtil.setClock(DateClock.fixed(DateUtil.toDate(DateUtil.epochDay(2014, 6, 1))));
+        VaadinService service = service();
+
+        long before = usedHeap();
+        List<User> users = new ArrayList<User>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            users.add(new User(service, i));
+        }
+        // once through unrecorded, so the JIT has compiled the script
+        runAll(users, interactions, false, threads);
+        // before the latencies are recorded, which aren't part of a session
+        long retained = usedHeap() - before;
+        long start = System.nanoTime();
+        long allocated = runAll(users, interactions, true, threads);
+        long nanos = System.nanoTime() - start;
+
+        long total = (long) sessions * interactions;
+        long[] all = new long[(int) total];
+        int commits = 0;
+        int rejected = 0;
+        int n = 0;
+        for (User u : users) {
+            System.arraycopy(u.latencies, 0, all, n, u.latencies.length);
+            n += u.latencies.length;
+            commits += u.commits;
+            rejected += u.rejected;
+        }
+        Arrays.sort(all);
+
+        System.out.printf("%d sessions, %d interactions each, %s%n", sessions, interactions, executorName(threads));
+        System.out.printf("throughput  %10.0f interactions/s%n", total / (nanos / 1e9));
+        System.out.printf("latency     p50 %.1f us, p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+                percentile(all, 0.5), percentile(all, 0.9), percentile(all, 0.99), percentile(all, 0.999),
+                all[all.length - 1] / 1e3);
+        if (allocated < 0) {
+            System.out.println("allocated   not available on this JVM");
+        } else {
+            System.out.printf("allocated   %10d bytes per interaction%n", allocated / total);
+        }
+        System.out.printf("retained    %10d bytes per session%n", retained / sessions);
+        System.out.printf("commits     %10d, %d interactions rejected by a validator%n", commits, rejected);
+    }
+
+    private static VaadinService service() throws ServiceException {
+        Properties properties = new Properties();
+        properties.setProperty(Constants.SERVLET_PARAMETER_PRODUCTION_MODE, "true");
+        return new VaadinServletService(new VaadinServlet(),
+                new DefaultDeploymentConfiguration(DateRangeFieldUI.class, properties));
+    }
+
+    // runs every user's interactions on its own thread and returns the bytes allocated meanwhile, -1 if unknown
+    private static long runAll(List<User> users, final int count, final boolean record, int threads)
+            throws Exception {
+        ExecutorService executor = newExecutor(threads);
+        try {
+            long allocatedBefore = allocatedBytes();
+            List<Future<?>> futures = new ArrayList<Future<?>>(users.size());
+            for (final User u : users) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        u.run(count, record);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                // throws what the user's thread threw
+                f.get();
+            }
+            long allocatedAfter = allocatedBytes();
+            return ((allocatedBefore < 0) || (allocatedAfter < 0)) ? -1 : allocatedAfter - allocatedBefore;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // a thread per user if virtual threads are there, looked up reflectively as this compiles for Java 7
+    private static ExecutorService newExecutor(int threads) {
+        Method m = virtualThreadExecutor();
+        if (null != m) {
+            try {
+                return (ExecutorService) m.invoke(null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    private static Method virtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static String executorName(int threads) {
+        return (null != virtualThreadExecutor()) ? "a virtual thread per session"
+                : threads + " platform threads (no virtual threads on this JVM)";
+    }
+
+    // all bytes allocated so far by all threads, from HotSpot's ThreadMXBean; -1 on other JVMs
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            Class<?> hotSpot = Class.forName("com.sun.management.ThreadMXBean");
+            try {
+                // Java 21 and later, which also counts threads that have ended, e.g. virtual threads
+                return (Long) hotSpot.getMethod("getTotalThreadAllocatedBytes").invoke(bean);
+            } catch (NoSuchMethodException e) {
+                long[] bytes = (long[]) hotSpot.getMethod("getThreadAllocatedBytes", long[].class).invoke(bean,
+                        bean.getAllThreadIds());
+                long sum = 0;
+                for (long b : bytes) {
+                    sum += Math.max(0, b);
+                }
+                return sum;
+            }
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, i)] / 1e3;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // settle on the lowest reading
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,65 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.util.ObjectProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Serialized size of what session replication writes for a DateRangeField: the field configured like the one in
+ * DateRangeFieldUI plus a NoOverlapValidator over 200 booked ranges, after a validation pass.  Not a JMH
+ * benchmark; run it with
+ * <pre>java -cp target/benchmarks.jar org.vaadin.addon.daterangefield.SessionSize</pre>
+ */
+public class SessionSize {
+
+    public static void main(String[] args) throws Exception {
+        DateRangeField drf = new DateRangeField(new ObjectProperty<Date>(DateUtil.toDate(16071), Date.class),
+                new ObjectProperty<Date>(DateUtil.toDate(16435), Date.class), true, 2014, true);
+        drf.setErrorStyleName("errorstyle");
+        drf.setMinYear(2000);
+        drf.setMaxYear(2030);
+        drf.initContent();
+        drf.addValidator(drf.getFromField(), AfterValidator.of("Too early", DateUtil.toDate(14000), true));
+        DateRangeIndex booked = new DateRangeIndex();
+        for (int i = 0; i < 200; i++) {
+            booked.add(PackedDateRange.pack(17000 + 10 * i, 17003 + 10 * i));
+        }
+        drf.addValidator(new NoOverlapValidator("Already booked", booked));
+        drf.highlightInvalidFields();
+
+        report("DateRange", drf.getValue());
+        report("DateRangeIndex, 200 ranges", booked);
+        report("DateRangeField", drf);
+        report("lightweight, unrendered", new DateRangeField(
+                new ObjectProperty<Date>(DateUtil.toDate(16071), Date.class),
+                new ObjectProperty<Date>(DateUtil.toDate(16435), Date.class), new DateRangeRules(2000, 2030, true),
+                new ObjectProperty<Integer>(2014, Integer.class), true));
+
+        DateRangeField copy = (DateRangeField) read(write(drf));
+        if (!drf.getValue().equals(copy.getValue()) || (null != copy.highlightInvalidFields())) {
+            throw new IllegalStateException("The copy differs");
+        }
+    }
+
+    private static void report(String label, Serializable o) throws IOException {
+        System.out.printf("%-28s %8d bytes%n", label, write(o).length);
+    }
+
+    private static byte[] write(Serializable o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object read(byte[] bytes) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+}
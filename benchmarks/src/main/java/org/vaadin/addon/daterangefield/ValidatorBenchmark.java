@@ -0,0 +1,119 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.util.ObjectProperty;
+import com.vaadin.ui.DateField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * isValidValue of each validator, against both a constant bound and another field, and what creating a
+ * constant-bound one costs, new or shared.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidatorBenchmark {
+
+    static final int SIZE = 1024;
+    static final int MASK = SIZE - 1;
+
+    Date[] dates = new Date[SIZE];
+    int i;
+
+    BeforeValidator beforeConstant;
+    BeforeValidator beforeField;
+    AfterValidator afterConstant;
+    AfterValidator afterField;
+    InYearValidator inYear;
+    DateWindowValidator window;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Date first = DateUtil.firstDayOfYear(2010);
+        for (int n = 0; n < SIZE; n++) {
+            dates[n] = new Date(first.getTime() + random.nextInt(3 * 365) * DateUtil.MILLIS_PER_DAY);
+        }
+        DateField other = new DateField(null, DateUtil.firstDayOfYear(2011));
+        beforeConstant = new BeforeValidator("before", DateUtil.firstDayOfYear(2011), true);
+        beforeField = new BeforeValidator("before", other, true);
+        afterConstant = new AfterValidator("after", DateUtil.firstDayOfYear(2011), true);
+        afterField = new AfterValidator("after", other, true);
+        DateRangeField drf = new DateRangeField(new ObjectProperty<Date>(DateUtil.firstDayOfYear(2011)),
+                new ObjectProperty<Date>(DateUtil.lastDayOfYear(2011)), true, 2011, true);
+        inYear = new InYearValidator("in year", drf.getYearField(), drf);
+        DateRangeConstraints constraints = new DateRangeConstraints();
+        constraints.setMinYear(2000);
+        constraints.setMaxYear(2030);
+        constraints.setWithinYear(true);
+        window = new DateWindowValidator(new DateRangeRules(constraints), true, other, drf.getYearField());
+        bound = DateUtil.firstDayOfYear(2011);
+    }
+
+    Date bound;
+
+    private Date next() {
+        return dates[i = (i + 1) & MASK];
+    }
+
+    @Benchmark
+    public boolean beforeConstant() {
+        return beforeConstant.isValidValue(next());
+    }
+
+    @Benchmark
+    public boolean beforeField() {
+        return beforeField.isValidValue(next());
+    }
+
+    @Benchmark
+    public boolean afterConstant() {
+        return afterConstant.isValidValue(next());
+    }
+
+    @Benchmark
+    public boolean afterField() {
+        return afterField.isValidValue(next());
+    }
+
+    @Benchmark
+    public boolean inYear() {
+        return inYear.isValidValue(next());
+    }
+
+    /**
+     * All the rules DateRangeField applies to one date, min/max year, in year and from before to.
+     */
+    @Benchmark
+    public boolean window() {
+        return window.isValidValue(next());
+    }
+
+    /**
+     * What setting up the bounds of a field cost with a validator per field.
+     */
+    @Benchmark
+    public BeforeValidator newConstant() {
+        return new BeforeValidator("Must be in or before 2010", bound, true);
+    }
+
+    @Benchmark
+    public BeforeValidator sharedConstant() {
+        return BeforeValidator.of("Must be in or before 2010", bound, true);
+    }
+}
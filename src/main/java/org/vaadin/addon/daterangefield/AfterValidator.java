@@ -1,49 +1,46 @@
 package org.vaadin.addon.daterangefield;
 
-import com.vaadin.data.validator.AbstractValidator;
 import com.vaadin.ui.Field;
 
 import java.util.Date;
 
-public class AfterValidator extends AbstractValidator<Date> {
-    boolean compareToField;
-    boolean allowOnTheDate;
-    Field otherField;
-    Date constantField;
+/**
+ * A date on or after another date, either a constant or a value from a ValueSupplier, e.g. another field.  Get a
+ * constant-bound validator with of(...) to share it with every field using the same bound and message; a shared one
+ * is immutable and thread safe.
+ */
+public class AfterValidator extends DayBoundValidator {
 
     public AfterValidator(String message, Field<?> otherDateFieldWeMustBeAfter, boolean allowOnTheDate) {
-        super(message);
-        this.otherField = otherDateFieldWeMustBeAfter;
-        compareToField = true;
-        this.allowOnTheDate = allowOnTheDate;
+        this(message, new ValueSupplier.OfField<Date>(otherDateFieldWeMustBeAfter), allowOnTheDate);
     }
 
-    public AfterValidator(String message, Date otherDateFieldWeMustBeAfter, boolean allowOnTheDate) {
-        super(message);
-        this.constantField = otherDateFieldWeMustBeAfter;
-        compareToField = false;
-        this.allowOnTheDate = allowOnTheDate;
+    public AfterValidator(String message, ValueSupplier<Date> otherDateWeMustBeAfter, boolean allowOnTheDate) {
+        super(message, otherDateWeMustBeAfter, allowOnTheDate);
     }
 
-    @Override
-    protected boolean isValidValue(Date value) {
-        if (compareToField) {
-            if (allowOnTheDate) {
-                return DateUtil.isOnOrAfter(value, (Date) otherField.getValue());
-            } else {
-                return DateUtil.isAfter(value, (Date) otherField.getValue());
-            }
-        } else {
-            if (allowOnTheDate) {
-                return DateUtil.isOnOrAfter(value, constantField);
-            } else {
-                return DateUtil.isAfter(value, constantField);
-            }
+    public AfterValidator(String message, Date constantDateWeMustBeAfter, boolean allowOnTheDate) {
+        super(message, day(constantDateWeMustBeAfter), null == constantDateWeMustBeAfter, allowOnTheDate);
+    }
+
+    /**
+     * The shared validator for a constant bound, null meaning today.
+     */
+    public static AfterValidator of(String message, Date constantDateWeMustBeAfter, boolean allowOnTheDate) {
+        ValidatorCache.Key key = key(AfterValidator.class, message, constantDateWeMustBeAfter, allowOnTheDate);
+        AfterValidator v = (AfterValidator) ValidatorCache.get(key);
+        if (null != v) {
+            return v;
         }
+        return share(key, new AfterValidator(message, constantDateWeMustBeAfter, allowOnTheDate));
     }
 
     @Override
-    public Class<Date> getType() {
-        return Date.class;
+    boolean isValidDay(int day, int bound) {
+        if (allowOnTheDate) {
+            return DateUtil.isDayOnOrAfter(day, bound);
+        } else {
+            return DateUtil.isDayAfter(day, bound);
+        }
     }
 }
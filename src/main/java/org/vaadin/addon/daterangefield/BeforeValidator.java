@@ -1,50 +1,47 @@
 package org.vaadin.addon.daterangefield;
 
-import com.vaadin.data.validator.AbstractValidator;
 import com.vaadin.ui.Field;
 
 import java.util.Date;
 
-public class BeforeValidator extends AbstractValidator<Date> {
-    boolean compareToField;
-    boolean allowOnTheDate;
-    Field otherField;
-    Date constantField;
+/**
+ * A date on or before another date, either a constant or a value from a ValueSupplier, e.g. another field.  Get a
+ * constant-bound validator with of(...) to share it with every field using the same bound and message; a shared one
+ * is immutable and thread safe.
+ */
+public class BeforeValidator extends DayBoundValidator {
 
     public BeforeValidator(String message, Field<?> otherDateFieldWeMustBeBefore, boolean allowOnTheDate) {
-        super(message);
-        this.otherField = otherDateFieldWeMustBeBefore;
-        compareToField = true;
-        this.allowOnTheDate = allowOnTheDate;
+        this(message, new ValueSupplier.OfField<Date>(otherDateFieldWeMustBeBefore), allowOnTheDate);
+    }
+
+    public BeforeValidator(String message, ValueSupplier<Date> otherDateWeMustBeBefore, boolean allowOnTheDate) {
+        super(message, otherDateWeMustBeBefore, allowOnTheDate);
     }
 
     @SuppressWarnings("UnusedDeclaration")
     public BeforeValidator(String message, Date constantDateWeMustBeBefore, boolean allowOnTheDate) {
-        super(message);
-        this.constantField = constantDateWeMustBeBefore;
-        compareToField = false;
-        this.allowOnTheDate = allowOnTheDate;
+        super(message, day(constantDateWeMustBeBefore), null == constantDateWeMustBeBefore, allowOnTheDate);
     }
 
-    @Override
-    protected boolean isValidValue(Date value) {
-        if (compareToField) {
-            if (allowOnTheDate) {
-                return DateUtil.isOnOrBefore(value, (Date) otherField.getValue());
-            }   else {
-                return DateUtil.isBefore(value, (Date) otherField.getValue());
-            }
-        } else {
-            if (allowOnTheDate) {
-                return DateUtil.isOnOrBefore(value, constantField);
-            }   else {
-                return DateUtil.isBefore(value, constantField);
-            }
+    /**
+     * The shared validator for a constant bound, null meaning today.
+     */
+    public static BeforeValidator of(String message, Date constantDateWeMustBeBefore, boolean allowOnTheDate) {
+        ValidatorCache.Key key = key(BeforeValidator.class, message, constantDateWeMustBeBefore, allowOnTheDate);
+        BeforeValidator v = (BeforeValidator) ValidatorCache.get(key);
+        if (null != v) {
+            return v;
         }
+        return share(key, new BeforeValidator(message, constantDateWeMustBeBefore, allowOnTheDate));
     }
 
     @Override
-    public Class<Date> getType() {
-        return Date.class;
+    boolean isValidDay(int day, int bound) {
+        if (allowOnTheDate) {
+            return DateUtil.isDayOnOrBefore(day, bound);
+        } else {
+            return DateUtil.isDayBefore(day, bound);
+        }
     }
 }
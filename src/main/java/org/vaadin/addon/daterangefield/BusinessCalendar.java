@@ -0,0 +1,232 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTimeConstants;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Working days: every day but the weekend days and the holidays.  Counting the working days of a range and moving
+ * a day by a number of working days are O(1), or O(log years) for moving into the years with holidays, instead of
+ * walking the range a day at a time.
+ * <p/>
+ * The years from the first to the last holiday are precomputed as one bitmap of working days per year (6 longs, as
+ * in DateRangeSet) with the running count of working days before each word.  Outside those years only the weekend
+ * matters, which repeats every week and is worked out in closed form.  Immutable, so one calendar can be shared by
+ * all fields and threads.
+ */
+public class BusinessCalendar implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int WORDS = 6;
+    // epoch day 0, 1970-01-01, was a Thursday
+    private static final int EPOCH_DAY_OF_WEEK = DateTimeConstants.THURSDAY;
+
+    // working days among the first i days of a week that starts on a day d with d % 7 == 0
+    private final int[] weekPrefix = new int[8];
+    private final int perWeek;
+    // first and last year with a table, no table if firstYear > lastYear
+    private final int firstYear;
+    private final int lastYear;
+    // working days, one bit per day of the year, WORDS longs per year
+    private final long[] bits;
+    // working days before each word, counted from epoch day 0
+    private final int[] ranks;
+    // holidays on what would have been working days
+    private final int holidayCount;
+
+    /**
+     * Saturday and Sunday off, no holidays.
+     */
+    public BusinessCalendar() {
+        this(new DateRangeSet());
+    }
+
+    /**
+     * Saturday and Sunday off.
+     */
+    public BusinessCalendar(DateRangeSet holidays) {
+        this(holidays, DateTimeConstants.SATURDAY, DateTimeConstants.SUNDAY);
+    }
+
+    public BusinessCalendar(Collection<Date> holidays) {
+        this(toSet(holidays), DateTimeConstants.SATURDAY, DateTimeConstants.SUNDAY);
+    }
+
+    /**
+     * @param weekendDays days of the week off, as in Joda-Time's DateTimeConstants (MONDAY is 1, SUNDAY 7)
+     */
+    public BusinessCalendar(DateRangeSet holidays, int... weekendDays) {
+        boolean[] off = new boolean[8];
+        for (int d : weekendDays) {
+            if ((d < DateTimeConstants.MONDAY) || (d > DateTimeConstants.SUNDAY)) {
+                throw new IllegalArgumentException("Not a day of the week: " + d);
+            }
+            off[d] = true;
+        }
+        for (int i = 0; i < 7; i++) {
+            weekPrefix[i + 1] = weekPrefix[i] + (off[(EPOCH_DAY_OF_WEEK - 1 + i) % 7 + 1] ? 0 : 1);
+        }
+        this.perWeek = weekPrefix[7];
+        if (0 == perWeek) {
+            throw new IllegalArgumentException("Every day of the week is off");
+        }
+
+        long[] ranges = holidays.toPackedRanges();
+        if (0 == ranges.length) {
+            this.firstYear = 0;
+            this.lastYear = -1;
+            this.bits = new long[0];
+            this.ranks = new int[0];
+            this.holidayCount = 0;
+            return;
+        }
+        this.firstYear = DateUtil.yearOfEpochDay(PackedDateRange.fromDay(ranges[0]));
+        this.lastYear = DateUtil.yearOfEpochDay(PackedDateRange.toDay(ranges[ranges.length - 1]));
+        int years = lastYear - firstYear + 1;
+        this.bits = new long[years * WORDS];
+        this.ranks = new int[years * WORDS];
+        for (int y = 0; y < years; y++) {
+            int first = DateUtil.firstEpochDayOfYear(firstYear + y);
+            int length = DateUtil.lastEpochDayOfYear(firstYear + y) - first + 1;
+            for (int i = 0; i < length; i++) {
+                if (isWeekday(first + i) && !holidays.contains(first + i)) {
+                    bits[y * WORDS + (i >>> 6)] |= 1L << i;
+                }
+            }
+        }
+        int rank = weekdaysBefore(DateUtil.firstEpochDayOfYear(firstYear));
+        for (int i = 0; i < bits.length; i++) {
+            ranks[i] = rank;
+            rank += Long.bitCount(bits[i]);
+        }
+        this.holidayCount = weekdaysBefore(DateUtil.lastEpochDayOfYear(lastYear) + 1) - rank;
+    }
+
+    private static DateRangeSet toSet(Collection<Date> days) {
+        DateRangeSet set = new DateRangeSet();
+        for (Date d : days) {
+            int day = DateUtil.toEpochDay(d);
+            set.add(day, day);
+        }
+        return set;
+    }
+
+    public boolean isBusinessDay(int day) {
+        if (!isWeekday(day)) {
+            return false;
+        }
+        int year = DateUtil.yearOfEpochDay(day);
+        if ((year < firstYear) || (year > lastYear)) {
+            return true;
+        }
+        int bit = day - DateUtil.firstEpochDayOfYear(year);
+        return (bits[(year - firstYear) * WORDS + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    public boolean isBusinessDay(Date d) {
+        return isBusinessDay(DateUtil.toEpochDay(d));
+    }
+
+    /**
+     * The working days in [fromDay, toDay], 0 if fromDay is after toDay.
+     */
+    public int businessDays(int fromDay, int toDay) {
+        return (fromDay > toDay) ? 0 : rank(toDay + 1) - rank(fromDay);
+    }
+
+    /**
+     * The working days in the range, 0 if it has a missing end.
+     */
+    public int businessDays(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        return (null == p) ? 0 : businessDays(p.getFromDay(), p.getToDay());
+    }
+
+    /**
+     * The working day n working days after the day, or before it for a negative n.  The day itself for 0.
+     */
+    public int addBusinessDays(int day, int n) {
+        if (0 == n) {
+            return day;
+        }
+        return (n > 0) ? select(rank(day + 1) + n - 1) : select(rank(day) + n);
+    }
+
+    public Date addBusinessDays(Date d, int n) {
+        return DateUtil.toDate(addBusinessDays(DateUtil.toEpochDay(d), n));
+    }
+
+    /**
+     * The last day of the range that starts on fromDay and has the given number of working days (at least 1), so
+     * that businessDays(fromDay, rangeEnd(fromDay, n)) == n.
+     */
+    public int rangeEnd(int fromDay, int businessDays) {
+        if (businessDays < 1) {
+            throw new IllegalArgumentException("A range needs at least one working day: " + businessDays);
+        }
+        return select(rank(fromDay) + businessDays - 1);
+    }
+
+    // working days before the day, counted from epoch day 0 (negative before it)
+    private int rank(int day) {
+        int year = DateUtil.yearOfEpochDay(day);
+        if (year < firstYear) {
+            return weekdaysBefore(day);
+        }
+        if (year > lastYear) {
+            return weekdaysBefore(day) - holidayCount;
+        }
+        int bit = day - DateUtil.firstEpochDayOfYear(year);
+        int i = (year - firstYear) * WORDS + (bit >>> 6);
+        return ranks[i] + Long.bitCount(bits[i] & ((1L << bit) - 1));
+    }
+
+    // the working day with the given rank
+    private int select(int rank) {
+        if ((0 == ranks.length) || (rank < ranks[0])) {
+            return selectWeekday(rank);
+        }
+        int lastRank = ranks[ranks.length - 1] + Long.bitCount(bits[bits.length - 1]);
+        if (rank >= lastRank) {
+            return selectWeekday(rank + holidayCount);
+        }
+        // the last word whose rank is not above the one wanted holds it
+        int i = Arrays.binarySearch(ranks, rank);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        while ((i + 1 < ranks.length) && (ranks[i + 1] <= rank)) {
+            i++;
+        }
+        long word = bits[i];
+        for (int skip = rank - ranks[i]; skip > 0; skip--) {
+            word &= word - 1;
+        }
+        int year = firstYear + i / WORDS;
+        return DateUtil.firstEpochDayOfYear(year) + (i % WORDS) * 64 + Long.numberOfTrailingZeros(word);
+    }
+
+    private boolean isWeekday(int day) {
+        int r = (int) (day - DateUtil.floorDiv(day, 7) * 7);
+        return weekPrefix[r + 1] != weekPrefix[r];
+    }
+
+    private int weekdaysBefore(int day) {
+        long weeks = DateUtil.floorDiv(day, 7);
+        return (int) (weeks * perWeek + weekPrefix[(int) (day - weeks * 7)]);
+    }
+
+    private int selectWeekday(int rank) {
+        long weeks = DateUtil.floorDiv(rank, perWeek);
+        int left = (int) (rank - weeks * perWeek);
+        int r = 0;
+        while (weekPrefix[r + 1] <= left) {
+            r++;
+        }
+        return (int) (weeks * 7 + r);
+    }
+}
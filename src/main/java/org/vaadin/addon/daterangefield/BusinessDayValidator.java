@@ -0,0 +1,59 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.validator.AbstractValidator;
+
+/**
+ * Rejects a range that doesn't start and end on working days, or that has more working days than allowed, per a
+ * BusinessCalendar.  Add it to the DateRangeField itself.  A range with a missing end is not checked.
+ */
+public class BusinessDayValidator extends AbstractValidator<DateRange> {
+
+    public static final int NO_MAX = Integer.MAX_VALUE;
+
+    BusinessCalendar calendar;
+    boolean businessDayEnds;
+    int maxBusinessDays;
+
+    /**
+     * @param businessDayEnds true if both dates have to be working days
+     * @param maxBusinessDays the most working days the range may have, NO_MAX for no limit
+     */
+    public BusinessDayValidator(String message, BusinessCalendar calendar, boolean businessDayEnds,
+                                int maxBusinessDays) {
+        super(message);
+        this.calendar = calendar;
+        this.businessDayEnds = businessDayEnds;
+        this.maxBusinessDays = maxBusinessDays;
+    }
+
+    /**
+     * Only requires both dates to be working days.
+     */
+    public static BusinessDayValidator businessDayEnds(String message, BusinessCalendar calendar) {
+        return new BusinessDayValidator(message, calendar, true, NO_MAX);
+    }
+
+    /**
+     * Only limits the number of working days.
+     */
+    public static BusinessDayValidator maxBusinessDays(String message, BusinessCalendar calendar, int max) {
+        return new BusinessDayValidator(message, calendar, false, max);
+    }
+
+    @Override
+    protected boolean isValidValue(DateRange value) {
+        PackedDateRange p = PackedDateRange.of(value);
+        if (null == p) {
+            return true;
+        }
+        if (businessDayEnds && !(calendar.isBusinessDay(p.getFromDay()) && calendar.isBusinessDay(p.getToDay()))) {
+            return false;
+        }
+        return (NO_MAX == maxBusinessDays) || (calendar.businessDays(p.getFromDay(), p.getToDay()) <= maxBusinessDays);
+    }
+
+    @Override
+    public Class<DateRange> getType() {
+        return DateRange.class;
+    }
+}
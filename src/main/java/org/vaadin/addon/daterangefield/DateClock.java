@@ -0,0 +1,179 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTimeZone;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where DateUtil (and so DateRangeField) gets today and the current year from.  The default, SYSTEM, is the
+ * system clock with today and the year cached per time zone until the next local midnight, so asking costs a clock
+ * read and a comparison instead of a zone lookup and a DateTime.  Set another one with DateUtil.setClock, e.g.
+ * fixed(...) to make tests and benchmarks repeatable, or a subclass to move time along by hand.
+ * <p/>
+ * A subclass only has to say what time it is; the other methods work the day out from that in the given zone.
+ */
+public abstract class DateClock {
+
+    public static final CachingClock SYSTEM = new CachingClock();
+
+    /**
+     * Milliseconds since the epoch, like System.currentTimeMillis.
+     */
+    public abstract long currentTimeMillis();
+
+    public int todayEpochDay(DateTimeZone zone) {
+        long millis = currentTimeMillis();
+        return (int) DateUtil.floorDiv(millis + zone.getOffset(millis), DateUtil.MILLIS_PER_DAY);
+    }
+
+    /**
+     * In the default time zone, as all of DateUtil.
+     */
+    public int todayEpochDay() {
+        return todayEpochDay(DateTimeZone.getDefault());
+    }
+
+    public int currentYear(DateTimeZone zone) {
+        return DateUtil.yearOfEpochDay(todayEpochDay(zone));
+    }
+
+    public int currentYear() {
+        return currentYear(DateTimeZone.getDefault());
+    }
+
+    /**
+     * The start of today in the default time zone, a new Date each time.
+     */
+    public Date today() {
+        return DateUtil.toDate(todayEpochDay());
+    }
+
+    /**
+     * A clock that is always at the given instant.
+     */
+    public static DateClock fixed(final long millis) {
+        return new DateClock() {
+            @Override
+            public long currentTimeMillis() {
+                return millis;
+            }
+        };
+    }
+
+    public static DateClock fixed(Date instant) {
+        return fixed(instant.getTime());
+    }
+
+    /**
+     * The system clock with the current day cached per time zone.  A cached day is replaced on the first call after
+     * it ends; scheduleRollover can do that at midnight instead, so no request has to.  Thread safe.
+     */
+    public static final class CachingClock extends DateClock {
+
+        // how long after a midnight the rollover runs, so a timer firing a little early still finds the new day
+        static final long ROLLOVER_MARGIN_MILLIS = 50;
+
+        /**
+         * A local day in a zone and the instants it starts and ends at.
+         */
+        static final class Day {
+            final DateTimeZone zone;
+            final int epochDay;
+            final int year;
+            final long start;
+            final long end;
+
+            Day(DateTimeZone zone, int epochDay) {
+                DayBoundaries boundaries = DayBoundaries.forZone(zone);
+                this.zone = zone;
+                this.epochDay = epochDay;
+                this.year = DateUtil.yearOfEpochDay(epochDay);
+                this.start = boundaries.startOf(epochDay);
+                this.end = boundaries.startOf(epochDay + 1);
+            }
+
+            boolean contains(long millis) {
+                return (millis >= start) && (millis < end);
+            }
+        }
+
+        private final ConcurrentMap<DateTimeZone, Day> days = new ConcurrentHashMap<DateTimeZone, Day>();
+        // the zone asked for last, nearly always the default one, so it doesn't need the map
+        private volatile Day last;
+        // where the time comes from, null for the system clock
+        private final DateClock time;
+
+        private CachingClock() {
+            this(null);
+        }
+
+        // for tests, caching another clock's days
+        CachingClock(DateClock time) {
+            this.time = time;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return (null == time) ? System.currentTimeMillis() : time.currentTimeMillis();
+        }
+
+        Day day(DateTimeZone zone) {
+            long now = currentTimeMillis();
+            Day d = last;
+            if ((null != d) && (d.zone == zone) && d.contains(now)) {
+                return d;
+            }
+            d = days.get(zone);
+            if ((null == d) || !d.contains(now)) {
+                d = new Day(zone, super.todayEpochDay(zone));
+                days.put(zone, d);
+            }
+            last = d;
+            return d;
+        }
+
+        @Override
+        public int todayEpochDay(DateTimeZone zone) {
+            return day(zone).epochDay;
+        }
+
+        @Override
+        public int currentYear(DateTimeZone zone) {
+            return day(zone).year;
+        }
+
+        @Override
+        public Date today() {
+            return new Date(day(DateTimeZone.getDefault()).start);
+        }
+
+        /**
+         * Refreshes the zone's cached day just after each of its midnights, on the executor, until the executor is
+         * shut down.  The executor is the caller's, so no thread is left behind when a web application stops.
+         */
+        public void scheduleRollover(final ScheduledExecutorService executor, final DateTimeZone zone) {
+            // if the task still runs early it waits another margin, rather than rescheduling itself at once
+            long delay = day(zone).end - currentTimeMillis() + ROLLOVER_MARGIN_MILLIS;
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (!executor.isShutdown()) {
+                        scheduleRollover(executor, zone);
+                    }
+                }
+            }, Math.max(ROLLOVER_MARGIN_MILLIS, delay), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Forgets all cached days, e.g. after the default time zone or the system clock was changed.
+         */
+        public void clear() {
+            days.clear();
+            last = null;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTimeField;
+import org.joda.time.DateTimeFieldType;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.DateTimeParserBucket;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Parses dates against one or more candidate patterns.  Each (pattern, locale) pair is compiled once into an
+ * immutable, thread-safe Joda formatter that is kept in a bounded cache, so parsing doesn't build a
+ * SimpleDateFormat per call.  A failed parse returns null (or FAILED / NO_DAY for the primitive methods) rather than
+ * throwing.
+ * <p/>
+ * Patterns are Joda-Time DateTimeFormat patterns, which use the same letters as SimpleDateFormat for dates.  Unlike
+ * a lenient SimpleDateFormat the whole text must match and out of range values such as 31-Feb are rejected.
+ * <p/>
+ * With several patterns the one that has matched most often is tried first, so a mixed import settles on its
+ * dominant layout.  An instance can be shared between threads.
+ */
+public class DateParser implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final long FAILED = Long.MIN_VALUE;
+    public static final int NO_DAY = Integer.MIN_VALUE;
+    public static final String DEFAULT_PATTERN = "dd-MMM-yyyy";
+
+    private static final int MAX_CACHED_FORMATTERS = 256;
+    // once a hit count gets this high all counts are halved so they can't overflow
+    private static final int MAX_HITS = 1 << 30;
+
+    private static final class Key {
+        final String pattern;
+        final Locale locale;
+        final int hash;
+
+        Key(String pattern, Locale locale) {
+            this.pattern = pattern;
+            this.locale = locale;
+            this.hash = 31 * pattern.hashCode() + locale.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return pattern.equals(k.pattern) && locale.equals(k.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final Map<Key, DateTimeFormatter> FORMATTERS = Collections.synchronizedMap(
+            new LinkedHashMap<Key, DateTimeFormatter>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, DateTimeFormatter> eldest) {
+                    return size() > MAX_CACHED_FORMATTERS;
+                }
+            });
+
+    private final String[] patterns;
+    private final Locale locale;
+    private final AtomicIntegerArray hits;
+    private volatile int[] order;
+    private transient DateTimeFormatter[] formatters;
+
+    public DateParser(Locale locale, String... patterns) {
+        if (patterns.length == 0) {
+            throw new IllegalArgumentException("At least one pattern is needed");
+        }
+        this.locale = (null == locale) ? Locale.getDefault() : locale;
+        this.patterns = patterns.clone();
+        this.hits = new AtomicIntegerArray(patterns.length);
+        int[] o = new int[patterns.length];
+        for (int i = 0; i < o.length; i++) {
+            o[i] = i;
+        }
+        this.order = o;
+        this.formatters = compile();
+    }
+
+    /**
+     * The compiled, cached formatter for the pattern.  Throws IllegalArgumentException for an invalid pattern.
+     */
+    public static DateTimeFormatter formatter(String pattern, Locale locale) {
+        Key key = new Key(pattern, locale);
+        DateTimeFormatter f = FORMATTERS.get(key);
+        if (null == f) {
+            f = DateTimeFormat.forPattern(pattern).withLocale(locale);
+            FORMATTERS.put(key, f);
+        }
+        return f;
+    }
+
+    /**
+     * One-off parse against a single pattern, null if the text doesn't match.
+     */
+    public static Date parse(String text, String pattern, Locale locale) {
+        long local = parseLocalMillis(formatter(pattern, (null == locale) ? Locale.getDefault() : locale), text);
+        return (FAILED == local) ? null : localMillisToDate(local);
+    }
+
+    public String[] getPatterns() {
+        return patterns.clone();
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * How often each pattern (in the order given to the constructor) has matched.
+     */
+    public int getHits(int patternIndex) {
+        return hits.get(patternIndex);
+    }
+
+    public Date parse(String text) {
+        long local = parseLocalMillis(text);
+        return (FAILED == local) ? null : localMillisToDate(local);
+    }
+
+    /**
+     * The day as days since 1970-01-01, or NO_DAY.  Any time of day in the text is dropped.
+     */
+    public int parseEpochDay(String text) {
+        long local = parseLocalMillis(text);
+        return (FAILED == local) ? NO_DAY : (int) DateUtil.floorDiv(local, DateUtil.MILLIS_PER_DAY);
+    }
+
+    /**
+     * Milliseconds since 1970-01-01T00:00 local time (i.e. with no time zone applied), or FAILED.
+     */
+    public long parseLocalMillis(String text) {
+        if (null == text) {
+            return FAILED;
+        }
+        DateTimeFormatter[] f = formatters();
+        int[] o = order;
+        for (int i = 0; i < o.length; i++) {
+            long local = parseLocalMillis(f[o[i]], text);
+            if (FAILED != local) {
+                hit(o, i);
+                return local;
+            }
+        }
+        return FAILED;
+    }
+
+    static long parseLocalMillis(DateTimeFormatter f, String text) {
+        if (null == text) {
+            return FAILED;
+        }
+        DayBucket bucket = new DayBucket(f);
+        int end = f.getParser().parseInto(bucket, text, 0);
+        if (end != text.length()) {
+            // negative when nothing matched, shorter when there is trailing text
+            return FAILED;
+        }
+        if (!bucket.isValidDay()) {
+            // e.g. 30-Feb, without computeMillis building and throwing an exception
+            return FAILED;
+        }
+        try {
+            long millis = bucket.computeMillis(true, text);
+            if (bucket.isZoned()) {
+                // the text named its own zone so this is a real instant, move it to local time
+                millis += DateTimeZone.getDefault().getOffset(millis);
+            }
+            return millis;
+        } catch (IllegalArgumentException e) {
+            // a field out of range that isValidDay doesn't check, e.g. an hour of 25
+            return FAILED;
+        }
+    }
+
+    /**
+     * A bucket that also keeps the year, month and day as the parser saves them, so an impossible day can be
+     * rejected before computeMillis.  Any other date field, or a restored state, leaves the check to computeMillis.
+     * It also notes whether the text set a zone or offset, as getZone() is already UTC before anything is parsed.
+     */
+    private static final class DayBucket extends DateTimeParserBucket {
+        private int year;
+        private int month = 1;
+        private int day = 1;
+        private boolean checkable = true;
+        private boolean zoned;
+
+        DayBucket(DateTimeFormatter f) {
+            super(0L, ISOChronology.getInstanceUTC(), f.getLocale(), f.getPivotYear(), f.getDefaultYear());
+            this.year = f.getDefaultYear();
+        }
+
+        @Override
+        public void saveField(DateTimeFieldType fieldType, int value) {
+            super.saveField(fieldType, value);
+            save(fieldType, value);
+        }
+
+        @Override
+        public void saveField(DateTimeFieldType fieldType, String text, Locale locale) {
+            super.saveField(fieldType, text, locale);
+            if (DateTimeFieldType.monthOfYear() == fieldType) {
+                // a month name, which the parser only matched against the locale's names
+                DateTimeField month = fieldType.getField(getChronology());
+                save(fieldType, month.get(month.set(0L, text, locale)));
+            } else {
+                save(fieldType, 0);
+            }
+        }
+
+        @Override
+        public void saveField(DateTimeField field, int value) {
+            super.saveField(field, value);
+            save(field.getType(), value);
+        }
+
+        @Override
+        public void setZone(DateTimeZone zone) {
+            super.setZone(zone);
+            zoned = true;
+        }
+
+        @Override
+        public void setOffset(int offset) {
+            super.setOffset(offset);
+            zoned = true;
+        }
+
+        @Override
+        public void setOffset(Integer offset) {
+            super.setOffset(offset);
+            zoned = true;
+        }
+
+        @Override
+        public boolean restoreState(Object savedState) {
+            checkable = false;
+            return super.restoreState(savedState);
+        }
+
+        private void save(DateTimeFieldType fieldType, int value) {
+            if (DateTimeFieldType.year() == fieldType) {
+                year = value;
+            } else if (DateTimeFieldType.monthOfYear() == fieldType) {
+                month = value;
+            } else if (DateTimeFieldType.dayOfMonth() == fieldType) {
+                day = value;
+            } else if ((DateTimeFieldType.dayOfWeek() != fieldType)
+                    && (fieldType.getField(getChronology()).getDurationField().getUnitMillis()
+                    >= DateUtil.MILLIS_PER_DAY)) {
+                // e.g. a day of the year or a week, which computeMillis combines with the others
+                checkable = false;
+            }
+        }
+
+        boolean isZoned() {
+            return zoned;
+        }
+
+        boolean isValidDay() {
+            if (!checkable) {
+                return true;
+            }
+            return (month >= 1) && (month <= 12) && (day >= 1) && (day <= DateUtil.daysInMonth(year, month));
+        }
+    }
+
+    static Date localMillisToDate(long local) {
+        int day = (int) DateUtil.floorDiv(local, DateUtil.MILLIS_PER_DAY);
+        if (local == day * DateUtil.MILLIS_PER_DAY) {
+            // the usual case, and toDate copes with a DST gap at midnight
+            return DateUtil.toDate(day);
+        }
+        return new Date(DateTimeZone.getDefault().convertLocalToUTC(local, false));
+    }
+
+    private void hit(int[] o, int position) {
+        int pattern = o[position];
+        int count = hits.incrementAndGet(pattern);
+        if (count >= MAX_HITS) {
+            for (int i = 0; i < hits.length(); i++) {
+                hits.set(i, hits.get(i) >> 1);
+            }
+        }
+        if ((position > 0) && (count > hits.get(o[position - 1]))) {
+            // move it one ahead; racing threads may lose a swap, which only delays the adaptation
+            int[] reordered = o.clone();
+            reordered[position] = o[position - 1];
+            reordered[position - 1] = pattern;
+            order = reordered;
+        }
+    }
+
+    private DateTimeFormatter[] formatters() {
+        DateTimeFormatter[] f = formatters;
+        if (null == f) {
+            // after deserialization
+            f = compile();
+            formatters = f;
+        }
+        return f;
+    }
+
+    private DateTimeFormatter[] compile() {
+        DateTimeFormatter[] f = new DateTimeFormatter[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            f[i] = formatter(patterns[i], locale);
+        }
+        return f;
+    }
+}
@@ -0,0 +1,147 @@
+package org.vaadin.addon.daterangefield;
+
+/**
+ * The days, ISO weeks, months or quarters of a date range, e.g. to run a report query per period, enumerated
+ * lazily as the epoch day each period starts on: the day itself, the Monday, the first of the month or of the
+ * quarter.  The first period is the one the range starts in, so its start may be before the range.  Any period is
+ * worked out from its index with a little arithmetic, so a range of decades takes no more memory than a day and the
+ * size is always exact.
+ * <p/>
+ * The methods follow Spliterator.OfInt: trySplit hands off the first half of what is left, evenly, so the periods
+ * can be worked on in parallel, e.g. with a ForkJoinPool.  On Java 8 an instance wraps one to one into a SIZED,
+ * SUBSIZED, ORDERED, SORTED, DISTINCT, NONNULL and IMMUTABLE Spliterator.OfInt for StreamSupport.intStream; the
+ * add-on itself still runs on Java 6.  Not thread safe, but a split off part can go to another thread.
+ */
+public final class DatePeriods {
+
+    public enum Period {
+        DAY, WEEK, MONTH, QUARTER
+    }
+
+    /**
+     * Receives the start days, like an IntConsumer.
+     */
+    public interface DayConsumer {
+        void accept(int day);
+    }
+
+    private final Period period;
+    // the index of a period is days, weeks, months or quarters since base
+    private final int base;
+    private int index;
+    private final int fence;
+
+    private DatePeriods(Period period, int base, int index, int fence) {
+        this.period = period;
+        this.base = base;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * Nothing for a range with a missing end or whose from day is after its to day.
+     */
+    public static DatePeriods of(DateRange dr, Period period) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        return (null == p) ? new DatePeriods(period, 0, 0, 0) : of(p.getFromDay(), p.getToDay(), period);
+    }
+
+    public static DatePeriods of(int fromDay, int toDay, Period period) {
+        int first = ordinal(period, fromDay);
+        int count = (fromDay > toDay) ? 0 : ordinal(period, toDay) - first + 1;
+        return new DatePeriods(period, first, 0, count);
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    /**
+     * Passes the next start day on, false if there are none left.
+     */
+    public boolean tryAdvance(DayConsumer action) {
+        if (index >= fence) {
+            return false;
+        }
+        action.accept(startOf(period, base + index++));
+        return true;
+    }
+
+    public void forEachRemaining(DayConsumer action) {
+        int i = index;
+        index = fence;
+        for (; i < fence; i++) {
+            action.accept(startOf(period, base + i));
+        }
+    }
+
+    /**
+     * Hands the first half of the remaining periods to a new instance and keeps the second half, or returns null
+     * if fewer than two are left.
+     */
+    public DatePeriods trySplit() {
+        int mid = (index + fence) >>> 1;
+        if (mid <= index) {
+            return null;
+        }
+        DatePeriods prefix = new DatePeriods(period, base, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+    /**
+     * The exact number of periods left.
+     */
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    /**
+     * The start day of the i-th remaining period, without moving on.
+     */
+    public int get(int i) {
+        if ((i < 0) || (i >= fence - index)) {
+            throw new IndexOutOfBoundsException("Index " + i + ", size " + (fence - index));
+        }
+        return startOf(period, base + index + i);
+    }
+
+    /**
+     * The last day of the period that starts on the day.
+     */
+    public static int endOf(Period period, int startDay) {
+        return startOf(period, ordinal(period, startDay) + 1) - 1;
+    }
+
+    // days, weeks, months or quarters since the epoch (weeks since the Monday before it)
+    private static int ordinal(Period period, int day) {
+        switch (period) {
+            case DAY:
+                return day;
+            case WEEK:
+                // epoch day 0 was a Thursday, so Monday 1969-12-29 is day -3
+                return (int) DateUtil.floorDiv(day + 3, 7);
+            case MONTH:
+                return DateUtil.yearOfEpochDay(day) * 12 + DateUtil.monthOfEpochDay(day) - 1;
+            default:
+                return DateUtil.yearOfEpochDay(day) * 4 + (DateUtil.monthOfEpochDay(day) - 1) / 3;
+        }
+    }
+
+    private static int startOf(Period period, int ordinal) {
+        switch (period) {
+            case DAY:
+                return ordinal;
+            case WEEK:
+                return ordinal * 7 - 3;
+            case MONTH: {
+                int year = (int) DateUtil.floorDiv(ordinal, 12);
+                return DateUtil.epochDay(year, ordinal - year * 12 + 1, 1);
+            }
+            default: {
+                int year = (int) DateUtil.floorDiv(ordinal, 4);
+                return DateUtil.epochDay(year, (ordinal - year * 4) * 3 + 1, 1);
+            }
+        }
+    }
+}
@@ -3,16 +3,31 @@ package org.vaadin.addon.daterangefield;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Date;
 
 /**
  * This represents an inclusive date range.  The from date is in the range.  The to date is in the range.  For
  * non-inclusive, you have to increment the from date by one and decrement the end date by one.
+ * <p/>
+ * Serialized as epoch days in the default time zone, usually 9 bytes of data; a date that isn't at the start of its
+ * day also gets its time of day.
  */
 @Data
 // two ranges are equal if the from and to are equal
 @EqualsAndHashCode()
-public class DateRange {
+public class DateRange implements Externalizable {
+    private static final long serialVersionUID = 1L;
+
+    // which parts follow in the serialized form
+    private static final int HAS_FROM = 1;
+    private static final int HAS_TO = 2;
+    private static final int FROM_TIME = 4;
+    private static final int TO_TIME = 8;
+
     private Date from;
     private Date to;
 
@@ -20,4 +35,44 @@ public class DateRange {
         this.from = from;
         this.to = to;
     }
+
+    /**
+     * For deserialization.
+     */
+    public DateRange() {
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        int fromDay = (null == from) ? 0 : DateUtil.toEpochDay(from);
+        int toDay = (null == to) ? 0 : DateUtil.toEpochDay(to);
+        long fromTime = (null == from) ? 0 : from.getTime() - DateUtil.toDate(fromDay).getTime();
+        long toTime = (null == to) ? 0 : to.getTime() - DateUtil.toDate(toDay).getTime();
+        int flags = ((null == from) ? 0 : HAS_FROM) | ((null == to) ? 0 : HAS_TO)
+                | ((0 == fromTime) ? 0 : FROM_TIME) | ((0 == toTime) ? 0 : TO_TIME);
+        out.writeByte(flags);
+        if (null != from) {
+            out.writeInt(fromDay);
+        }
+        if (null != to) {
+            out.writeInt(toDay);
+        }
+        if (0 != fromTime) {
+            out.writeInt((int) fromTime);
+        }
+        if (0 != toTime) {
+            out.writeInt((int) toTime);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int flags = in.readByte();
+        int fromDay = ((flags & HAS_FROM) != 0) ? in.readInt() : 0;
+        int toDay = ((flags & HAS_TO) != 0) ? in.readInt() : 0;
+        int fromTime = ((flags & FROM_TIME) != 0) ? in.readInt() : 0;
+        int toTime = ((flags & TO_TIME) != 0) ? in.readInt() : 0;
+        this.from = ((flags & HAS_FROM) != 0) ? new Date(DateUtil.toDate(fromDay).getTime() + fromTime) : null;
+        this.to = ((flags & HAS_TO) != 0) ? new Date(DateUtil.toDate(toDay).getTime() + toTime) : null;
+    }
 }
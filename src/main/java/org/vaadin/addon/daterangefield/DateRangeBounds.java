@@ -0,0 +1,123 @@
+package org.vaadin.addon.daterangefield;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * An inclusive DateRange turned into the half-open interval [start of from day, start of the day after to) that a
+ * query should use: it includes every time of the to day, and "column >= ? AND column < ?" can use an index on
+ * the column where a function of the column or BETWEEN on timestamps can't.  DateRangeSql and DateRangeCriteria
+ * turn the bounds into a query.
+ * <p/>
+ * Either end may be open.  The bounds can also take in a DateRangeField's min and max year and, with the range
+ * within a year, the selected year, so the database skips what the field would reject anyway.  Days are in the
+ * default time zone, like everywhere else in the add-on.
+ */
+public final class DateRangeBounds implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int OPEN_START = Integer.MIN_VALUE;
+    static final int OPEN_END = Integer.MAX_VALUE;
+
+    private final int startDay;
+    private final int endDay;
+
+    private DateRangeBounds(int startDay, int endDay) {
+        this.startDay = startDay;
+        this.endDay = endDay;
+    }
+
+    /**
+     * A missing end of the range is open.
+     */
+    public static DateRangeBounds of(DateRange range) {
+        int start = ((null == range) || (null == range.getFrom())) ? OPEN_START : DateUtil.toEpochDay(range.getFrom());
+        int end = ((null == range) || (null == range.getTo())) ? OPEN_END : DateUtil.toEpochDay(range.getTo()) + 1;
+        return new DateRangeBounds(start, end);
+    }
+
+    /**
+     * The range narrowed by the min and max year and, if the range must be within a calendar year and a year is
+     * given, by that year.
+     */
+    public static DateRangeBounds of(DateRange range, DateRangeConstraints constraints, Integer year) {
+        DateRangeBounds b = of(range);
+        int start = Math.max(b.startDay, constraints.earliestDay);
+        int end = b.endDay;
+        if (Integer.MAX_VALUE != constraints.latestDay) {
+            end = Math.min(end, constraints.latestDay + 1);
+        }
+        if (constraints.isWithinYear() && (null != year)) {
+            start = Math.max(start, DateUtil.firstEpochDayOfYear(year));
+            end = Math.min(end, DateUtil.lastEpochDayOfYear(year) + 1);
+        }
+        return new DateRangeBounds(start, end);
+    }
+
+    /**
+     * The field's value narrowed by its constraints and selected year.
+     */
+    public static DateRangeBounds of(DateRangeField field) {
+        return of(field.getValue(), field.getRules().getConstraints(), field.yearValue());
+    }
+
+    public boolean hasStart() {
+        return OPEN_START != startDay;
+    }
+
+    public boolean hasEnd() {
+        return OPEN_END != endDay;
+    }
+
+    /**
+     * True if no date can be within the bounds.
+     */
+    public boolean isEmpty() {
+        return startDay >= endDay;
+    }
+
+    /**
+     * The first included day as an epoch day.  Only meaningful if hasStart().
+     */
+    public int getStartDay() {
+        return startDay;
+    }
+
+    /**
+     * The first excluded day as an epoch day.  Only meaningful if hasEnd().
+     */
+    public int getEndDay() {
+        return endDay;
+    }
+
+    /**
+     * The start of the first included day, null if open.
+     */
+    public Date getStart() {
+        return hasStart() ? DateUtil.toDate(startDay) : null;
+    }
+
+    /**
+     * The start of the first excluded day, null if open.
+     */
+    public Date getEnd() {
+        return hasEnd() ? DateUtil.toDate(endDay) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof DateRangeBounds) && (((DateRangeBounds) o).startDay == startDay)
+                && (((DateRangeBounds) o).endDay == endDay);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * startDay + endDay;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (hasStart() ? getStart() : "") + ", " + (hasEnd() ? getEnd() : "") + ")";
+    }
+}
@@ -0,0 +1,138 @@
+package org.vaadin.addon.daterangefield;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The year bounds of a DateRangeField compiled into one epoch-day window, so that DateWindowValidator and
+ * YearWindowValidator can check all of them with a couple of comparisons.  The messages are built here once rather
+ * than on every failure.  Only the three settings and the listeners are serialized; the rest is compiled again when
+ * read.
+ * <p/>
+ * Every setter tells the change listeners, which is how all DateRangeFields sharing one DateRangeRules follow a
+ * change.  The listeners run in the thread making the change, so only share the constraints between fields of one
+ * session.
+ */
+public class DateRangeConstraints implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int NO_YEAR = -1;
+
+    /**
+     * Told after any of the settings has been set, even to the value it had.
+     */
+    public interface ChangeListener extends Serializable {
+        void constraintsChanged(DateRangeConstraints constraints);
+    }
+
+    private int minYear = NO_YEAR;
+    private int maxYear = NO_YEAR;
+    private boolean withinYear;
+    // null until there is one, which keeps the serialized form small
+    private List<ChangeListener> listeners;
+
+    // compiled from the above
+    transient int earliestDay = Integer.MIN_VALUE;
+    transient int latestDay = Integer.MAX_VALUE;
+    transient String fromMinYearMessage, toMinYearMessage, yearMinYearMessage;
+    transient String fromMaxYearMessage, toMaxYearMessage, yearMaxYearMessage;
+
+    public int getMinYear() {
+        return minYear;
+    }
+
+    /**
+     * A year below 1 removes the bound.
+     */
+    public void setMinYear(int year) {
+        this.minYear = (year < 1) ? NO_YEAR : year;
+        compileMinYear();
+        fireChanged();
+    }
+
+    private void compileMinYear() {
+        if (NO_YEAR == minYear) {
+            earliestDay = Integer.MIN_VALUE;
+            fromMinYearMessage = toMinYearMessage = yearMinYearMessage = null;
+        } else {
+            earliestDay = DateUtil.firstEpochDayOfYear(minYear);
+            fromMinYearMessage = "From date must be in or after " + minYear;
+            toMinYearMessage = "To date must be in or after " + minYear;
+            yearMinYearMessage = "Year must be later or equal to " + minYear;
+        }
+    }
+
+    public int getMaxYear() {
+        return maxYear;
+    }
+
+    /**
+     * A year below 1 removes the bound.
+     */
+    public void setMaxYear(int year) {
+        this.maxYear = (year < 1) ? NO_YEAR : year;
+        compileMaxYear();
+        fireChanged();
+    }
+
+    private void compileMaxYear() {
+        if (NO_YEAR == maxYear) {
+            latestDay = Integer.MAX_VALUE;
+            fromMaxYearMessage = toMaxYearMessage = yearMaxYearMessage = null;
+        } else {
+            latestDay = DateUtil.lastEpochDayOfYear(maxYear);
+            fromMaxYearMessage = "From date must be in or before " + maxYear;
+            toMaxYearMessage = "To date must be in or before " + maxYear;
+            yearMaxYearMessage = "Year must be earlier or equal to " + maxYear;
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // the listeners may not be completely read yet, so they are not told
+        compileMinYear();
+        compileMaxYear();
+    }
+
+    public boolean isWithinYear() {
+        return withinYear;
+    }
+
+    /**
+     * Whether both dates must be in the year of the year field.
+     */
+    public void setWithinYear(boolean withinYear) {
+        this.withinYear = withinYear;
+        fireChanged();
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        if (null == listeners) {
+            listeners = new ArrayList<ChangeListener>(2);
+        }
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        if (null != listeners) {
+            listeners.remove(listener);
+            if (listeners.isEmpty()) {
+                listeners = null;
+            }
+        }
+    }
+
+    private void fireChanged() {
+        if (null == listeners) {
+            return;
+        }
+        // a listener may add or remove listeners
+        for (ChangeListener l : listeners.toArray(new ChangeListener[listeners.size()])) {
+            l.constraintsChanged(this);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.vaadin.addon.daterangefield;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.util.Date;
+
+/**
+ * Pushes a date range down to a JPA Criteria query as half-open bounds (see DateRangeBounds), e.g.
+ * <pre>
+ * query.where(DateRangeCriteria.predicate(cb, booking.get(Booking_.date), DateRangeBounds.of(field)));
+ * </pre>
+ * Kept apart from DateRangeSql so the JPA API is only needed by those who call it.
+ */
+public final class DateRangeCriteria {
+
+    private DateRangeCriteria() {
+    }
+
+    /**
+     * date >= start AND date < end; an open end is left out, both open is always true.
+     */
+    public static Predicate predicate(CriteriaBuilder cb, Expression<? extends Date> date, DateRangeBounds bounds) {
+        if (bounds.hasStart() && bounds.hasEnd()) {
+            return cb.and(cb.greaterThanOrEqualTo(date, bounds.getStart()), cb.lessThan(date, bounds.getEnd()));
+        }
+        if (bounds.hasStart()) {
+            return cb.greaterThanOrEqualTo(date, bounds.getStart());
+        }
+        if (bounds.hasEnd()) {
+            return cb.lessThan(date, bounds.getEnd());
+        }
+        return cb.conjunction();
+    }
+
+    public static Predicate predicate(CriteriaBuilder cb, Expression<? extends Date> date, DateRange range) {
+        return predicate(cb, date, DateRangeBounds.of(range));
+    }
+}
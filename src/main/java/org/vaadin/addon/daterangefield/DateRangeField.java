@@ -6,17 +6,27 @@ import com.vaadin.data.fieldgroup.DefaultFieldGroupFieldFactory;
 import com.vaadin.data.fieldgroup.FieldGroup;
 import com.vaadin.data.util.BeanItem;
 import com.vaadin.data.util.ObjectProperty;
-import com.vaadin.data.validator.IntegerRangeValidator;
+import com.vaadin.data.validator.RangeValidator;
+import com.vaadin.ui.AbstractField;
 import com.vaadin.ui.Alignment;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.CustomField;
 import com.vaadin.ui.Field;
 import com.vaadin.ui.HorizontalLayout;
+import org.vaadin.addon.daterangefield.shared.DateRangeFieldState;
+import org.vaadin.addon.daterangefield.shared.SyncMode;
 import org.vaadin.risto.stepper.DateStepper;
 import org.vaadin.risto.stepper.IntStepper;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @SuppressWarnings("unused")
 public class DateRangeField extends CustomField<DateRange> {
@@ -30,7 +40,7 @@ public class DateRangeField extends CustomField<DateRange> {
         @SuppressWarnings("unchecked")
         public <T extends Field> T createField(Class<?> dataType, Class<T> fieldType) {
             if (Date.class.isAssignableFrom(dataType)) {
-                DateStepper field = new DateStepper();
+                DateStepper field = new ParsingDateStepper();
                 field.setMouseWheelEnabled(true);
                 field.setImmediate(true);
                 // locale must be set or it craps out
@@ -48,20 +58,95 @@ public class DateRangeField extends CustomField<DateRange> {
     private final Property<Date> toProperty;
     private final Property<Integer> yearProperty;
 
-    private final DateStepper fromField;
-    private final DateStepper toField;
-    private final IntStepper yearField;
+    // built in the constructor, or for a lightweight field on first use
+    private DateStepper fromField;
+    private DateStepper toField;
+    private IntStepper yearField;
 
     private boolean withinYear;
     private boolean allowUserToChangeYear;
-    private IntegerRangeValidator minYearValidator, maxYearValidator;
-    private BeforeValidator maxYearFromDateValidator, maxYearToDateValidator;
-    private AfterValidator minYearFromDateValidator, minYearToDateValidator;
-    private InYearValidator fromDateInYearValidator, toDateInYearValidator;
+    // min/max year and the within-a-year rule, checked by one validator per sub field
+    private final DateRangeConstraints constraints;
+    private final DateRangeRules rules;
+    // checks the rules itself instead of adding window validators to the sub fields
+    private final boolean lightweight;
+    // follows the constraints however they are changed; a lightweight field only while attached
+    private final DateRangeConstraints.ChangeListener constraintsListener = new DateRangeConstraints.ChangeListener() {
+        @Override
+        public void constraintsChanged(DateRangeConstraints changed) {
+            applyConstraints();
+        }
+    };
+    private boolean listening;
+
+    // kept for sub fields that aren't built yet
+    private String fromCaption = "From";
+    private String toCaption = "To";
+    private String yearCaption = "Year";
+    private Locale subFieldLocale;
+    private DateParser dateParser;
 
-    private HorizontalLayout dateLayout = new HorizontalLayout();
+    private HorizontalLayout dateLayout;
     private String errorStyleName = "";
 
+    private boolean clientSideValidation;
+    // null for the default, see getSyncMode
+    private SyncMode syncMode;
+    private int syncDelay = 500;
+
+    // with deferred validation the sub fields needing a highlight pass are collected here until the response
+    private static final int FROM_FIELD = 1;
+    private static final int TO_FIELD = 2;
+    private static final int YEAR_FIELD = 4;
+    private static final int ALL_FIELDS = FROM_FIELD | TO_FIELD | YEAR_FIELD;
+    private boolean deferredValidation;
+    private int pendingValidation;
+    // above 0 while both dates are being set, see setRange
+    private int rangeUpdates;
+
+    // last result of each sub field validator, reused while the fields it depends on keep the same version
+    private static final class CachedResult {
+        // bit mask of the sub fields it depends on, -1 if it can't be cached
+        final int inputs;
+        final int[] versions = new int[3];
+        boolean evaluated;
+        Validator.InvalidValueException error;
+
+        CachedResult(int inputs) {
+            this.inputs = inputs;
+        }
+
+        boolean isCurrent(int[] fieldVersions) {
+            if (!evaluated || (inputs < 0)) {
+                return false;
+            }
+            for (int i = 0; i < 3; i++) {
+                if (((inputs & (1 << i)) != 0) && (versions[i] != fieldVersions[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void record(Validator.InvalidValueException error, int[] fieldVersions) {
+            this.error = error;
+            this.evaluated = true;
+            System.arraycopy(fieldVersions, 0, versions, 0, 3);
+        }
+    }
+
+    private final int[] fieldVersions = new int[3];
+    // created with the sub fields; not serialized, the errors would take their stack traces along
+    private transient Map<Validator, CachedResult> fromValidatorResults;
+    private transient Map<Validator, CachedResult> toValidatorResults;
+    private transient Map<Validator, CachedResult> yearValidatorResults;
+    private long validationCacheHits;
+    private long validationCacheMisses;
+
+    private static volatile DateRangeFieldMetrics defaultMetrics = DateRangeFieldMetrics.NONE;
+    // not serialized, it is shared by the application; null means the default
+    private transient DateRangeFieldMetrics metrics;
+
     public DateRangeField(Property<Date> fromProperty, Property<Date> toProperty) {
         this(fromProperty, toProperty, true, (Integer) null, true);
     }
@@ -74,95 +159,295 @@ public class DateRangeField extends CustomField<DateRange> {
         this.yearProperty = yearProperty;
         this.withinYear = forceRangeToBeWithinACalendarYear;
         this.allowUserToChangeYear = allowUserToChangeYear;
+        this.constraints = new DateRangeConstraints();
+        this.rules = new DateRangeRules(constraints);
+        this.lightweight = false;
+        constraints.addChangeListener(constraintsListener);
+        this.listening = true;
+
+        setValue(new DateRange(fromProperty.getValue(), toProperty.getValue()));
+        buildComponents();
+        setAllowUserToChangeYear(allowUserToChangeYear);
+        setForceRangeToBeWithinACalendarYear(forceRangeToBeWithinACalendarYear);
+        // show validation errors on the individual fields, not on the entire field
+        setValidationVisible(false);
+    }
+
+    /**
+     * A lightweight field for tables and forms with many of them.  The sub fields and layout are only built when
+     * the field is first rendered or one of them is asked for, without a FieldGroup or BeanItem, and nothing is
+     * validated before that.  Instead of window validators on the sub fields the field checks the shared rules
+     * itself, so one DateRangeRules can serve a whole column: min year, max year and within-a-year come from it,
+     * and setMinYear, setMaxYear and setForceRangeToBeWithinACalendarYear change it for every field sharing it.
+     * Attached fields follow such a change at once, others when they are attached.
+     * <p/>
+     * Retained heap per field, not counting its properties (see FieldFootprint in benchmarks): about 530 bytes
+     * until rendered and 5.2 KB once rendered, against 6.7 KB for the other constructors (7.3 KB before this mode
+     * was added, mostly the FieldGroup, BeanItem and eager validators).
+     */
+    public DateRangeField(Property<Date> fromProperty, Property<Date> toProperty, DateRangeRules sharedRules,
+                          Property<Integer> yearProperty, boolean allowUserToChangeYear) {
+        this.fromProperty = fromProperty;
+        this.toProperty = toProperty;
+        this.yearProperty = yearProperty;
+        this.rules = sharedRules;
+        this.constraints = sharedRules.getConstraints();
+        this.withinYear = constraints.isWithinYear();
+        this.minYear = constraints.getMinYear();
+        this.maxYear = constraints.getMaxYear();
+        this.allowUserToChangeYear = allowUserToChangeYear;
+        this.lightweight = true;
+
+        setValue(new DateRange(fromProperty.getValue(), toProperty.getValue()));
+        if (null == yearProperty.getValue()) {
+            yearProperty.setValue(DateUtil.currentYear());
+        }
+        // highlighted once the sub fields are built
+        pendingValidation = ALL_FIELDS;
+        setValidationVisible(false);
+    }
 
-        DateRange dr = new DateRange(fromProperty.getValue(), toProperty.getValue());
-        setValue(dr);
-        BeanItem<DateRange> dateRangeBean = new BeanItem<DateRange>(dr);
-
-        FieldGroup fieldGroup = new FieldGroup(dateRangeBean);
-        fieldGroup.setFieldFactory(new DateRangeFieldFactory());
-        this.fromField = (DateStepper) fieldGroup.buildAndBind("From", "from");
-        this.toField = (DateStepper) fieldGroup.buildAndBind("To", "to");
-        addValidator(fromField, new BeforeValidator("Start date cannot be after the end date", toField, true));
-        addValidator(toField, new AfterValidator("End date cannot be before the start date", fromField, true));
-        this.yearField = new IntStepper("Year");
+    public DateRangeField(Property<Date> fromProperty, Property<Date> toProperty,
+                          boolean forceRangeToBeWithinACalendarYear, Integer whichYear, boolean allowUserToChangeYear) {
+        this(fromProperty, toProperty, forceRangeToBeWithinACalendarYear, new ObjectProperty<Integer>(whichYear,
+                Integer.class), allowUserToChangeYear);
+    }
+
+    private void buildComponents() {
+        if (null != fromField) {
+            return;
+        }
+        DateRange dr = getValue();
+        if (lightweight) {
+            // the bean binding only ever supplied the initial values, so set them directly
+            DateRangeFieldFactory factory = new DateRangeFieldFactory();
+            this.fromField = factory.createField(Date.class, DateStepper.class);
+            this.toField = factory.createField(Date.class, DateStepper.class);
+            fromField.setCaption(fromCaption);
+            toField.setCaption(toCaption);
+            fromField.setValue((null == dr) ? null : dr.getFrom());
+            toField.setValue((null == dr) ? null : dr.getTo());
+        } else {
+            BeanItem<DateRange> dateRangeBean = new BeanItem<DateRange>(dr);
+            FieldGroup fieldGroup = new FieldGroup(dateRangeBean);
+            fieldGroup.setFieldFactory(new DateRangeFieldFactory());
+            this.fromField = (DateStepper) fieldGroup.buildAndBind(fromCaption, "from");
+            this.toField = (DateStepper) fieldGroup.buildAndBind(toCaption, "to");
+        }
+        createValidationCache();
+        ValueChangeListener versionListener = new ValueChangeListener() {
+            @Override
+            public void valueChange(Property.ValueChangeEvent event) {
+                int bit = subFieldBit((Field<?>) event.getProperty());
+                if (0 != bit) {
+                    fieldVersions[Integer.numberOfTrailingZeros(bit)]++;
+                }
+            }
+        };
+        fromField.addValueChangeListener(versionListener);
+        toField.addValueChangeListener(versionListener);
+        this.yearField = new YearStepper(yearCaption);
+        yearField.addValueChangeListener(versionListener);
+        if (!lightweight) {
+            addValidator(fromField, new DateWindowValidator(rules, true, toField, yearField));
+            addValidator(toField, new DateWindowValidator(rules, false, fromField, yearField));
+            addValidator(yearField, new YearWindowValidator(rules));
+        }
         this.yearField.setPropertyDataSource(yearProperty);
         if (null == yearProperty.getValue()) {
             this.yearField.setValue(DateUtil.currentYear());
         }
-        setAllowUserToChangeYear(allowUserToChangeYear);
-        setForceRangeToBeWithinACalendarYear(forceRangeToBeWithinACalendarYear);
         ValueChangeListener listener = new ValueChangeListener() {
             @Override
             public void valueChange(Property.ValueChangeEvent event) {
+                if (rangeUpdates > 0) {
+                    // setRange sets the value once both dates are in
+                    return;
+                }
                 DateRange newValue = new DateRange(fromField.getValue(), toField.getValue());
                 setValue(newValue);
             }
         };
         fromField.addValueChangeListener(listener);
         toField.addValueChangeListener(listener);
-        // show validation errors on the individual fields, not on the entire field
-        setValidationVisible(false);
+        if (lightweight) {
+            // apply what was set while there were no sub fields
+            yearField.setEnabled(allowUserToChangeYear);
+            // the shared constraints may have changed since the constructor
+            this.minYear = constraints.getMinYear();
+            this.maxYear = constraints.getMaxYear();
+            this.withinYear = constraints.isWithinYear();
+            yearField.setVisible(withinYear);
+            if (minYear > 0) {
+                yearField.setMinValue(minYear);
+            }
+            if (maxYear > 0) {
+                yearField.setMaxValue(maxYear);
+            }
+            if (null != subFieldLocale) {
+                fromField.setLocale(subFieldLocale);
+                toField.setLocale(subFieldLocale);
+                yearField.setLocale(subFieldLocale);
+            }
+            setDateParser(dateParser);
+            pendingValidation = 0;
+            requestHighlight(ALL_FIELDS);
+        }
     }
 
-    public DateRangeField(Property<Date> fromProperty, Property<Date> toProperty,
-                          boolean forceRangeToBeWithinACalendarYear, Integer whichYear, boolean allowUserToChangeYear) {
-        this(fromProperty, toProperty, forceRangeToBeWithinACalendarYear, new ObjectProperty<Integer>(whichYear,
-                Integer.class), allowUserToChangeYear);
+    public boolean isLightweight() {
+        return lightweight;
     }
 
     public void setAllowUserToChangeYear(final boolean b) {
         this.allowUserToChangeYear = b;
-        this.yearField.setEnabled(b);
+        if (null != yearField) {
+            this.yearField.setEnabled(b);
+        }
     }
 
     public boolean getForceRangeToBeWithinACalendarYear() {
-        return this.withinYear;
+        return constraints.isWithinYear();
     }
 
     public void setForceRangeToBeWithinACalendarYear(final boolean b) {
-        this.withinYear = b;
-        this.yearField.setVisible(b);
-        if (b) {
-            fromDateInYearValidator = new InYearValidator("From date not in the specified year", yearField, this);
-            addValidator(fromField, fromDateInYearValidator);
-            toDateInYearValidator = new InYearValidator("To date not in the specified year", yearField, this);
-            addValidator(toField, toDateInYearValidator);
-        } else {
-            removeAllValidators(yearField);
-            removeValidator(fromField, fromDateInYearValidator);
-            fromDateInYearValidator = null;
-            removeValidator(toField, toDateInYearValidator);
-            toDateInYearValidator = null;
+        constraints.setWithinYear(b);
+        if (!listening) {
+            applyConstraints();
+        }
+    }
+
+    // takes the settings from the constraints, which other fields may have changed
+    private void applyConstraints() {
+        this.minYear = constraints.getMinYear();
+        this.maxYear = constraints.getMaxYear();
+        this.withinYear = constraints.isWithinYear();
+        if (null != yearField) {
+            yearField.setMinValue((minYear > 0) ? Integer.valueOf(minYear) : null);
+            yearField.setMaxValue((maxYear > 0) ? Integer.valueOf(maxYear) : null);
+            yearField.setVisible(withinYear);
         }
+        constraintsChanged();
+        // the client checks with them too, see updateClientState
+        markAsDirty();
+    }
+
+    @Override
+    public void attach() {
+        super.attach();
+        if (lightweight && !listening) {
+            constraints.addChangeListener(constraintsListener);
+            listening = true;
+            if ((minYear != constraints.getMinYear()) || (maxYear != constraints.getMaxYear())
+                    || (withinYear != constraints.isWithinYear())) {
+                // changed while detached
+                applyConstraints();
+            }
+        }
+    }
+
+    @Override
+    public void detach() {
+        if (lightweight && listening) {
+            // the shared rules would otherwise keep the field
+            constraints.removeChangeListener(constraintsListener);
+            listening = false;
+        }
+        super.detach();
+    }
+
+    // the window validators read the constraints, which are not field values, so their cached results are stale
+    private void constraintsChanged() {
+        clearValidationCache();
+        requestHighlight(ALL_FIELDS);
     }
 
     public void setRequiredCalendarYear(int year) {
         if (year < 1) {
             return;
         }
-        this.yearField.setValue(year);
-        setForceRangeToBeWithinACalendarYear(this.withinYear);
+        if (null != yearField) {
+            this.yearField.setValue(year);
+        } else {
+            this.yearProperty.setValue(year);
+        }
+        setForceRangeToBeWithinACalendarYear(constraints.isWithinYear());
     }
 
     @Override
     public void commit() throws SourceException, Validator.InvalidValueException {
-        super.commit();
-        this.yearProperty.setValue(yearField.getValue());
-        this.fromProperty.setValue(fromField.getValue());
-        this.toProperty.setValue(toField.getValue());
+        DateRangeFieldMetrics m = getMetrics();
+        long start = startTiming(m);
+        try {
+            // the field has no data source, so super.commit() would not validate
+            if (!isInvalidCommitted()) {
+                validate();
+            }
+            super.commit();
+            this.yearProperty.setValue(yearValue());
+            this.fromProperty.setValue(fromValue());
+            this.toProperty.setValue(toValue());
+        } finally {
+            endTiming(m, DateRangeFieldMetrics.Operation.COMMIT, start);
+        }
     }
 
     @Override
     protected void validate(DateRange fieldValue) throws Validator.InvalidValueException {
-        Validator.InvalidValueException first = highlightInvalidFields();
-        if (null != first) {
-            throw first;
+        DateRangeFieldMetrics m = getMetrics();
+        long start = startTiming(m);
+        try {
+            Validator.InvalidValueException first = highlightInvalidFields();
+            if (null != first) {
+                throw first;
+            }
+            // validators added to the range as a whole, e.g. NoOverlapValidator
+            super.validate(fieldValue);
+        } finally {
+            endTiming(m, DateRangeFieldMetrics.Operation.VALIDATE, start);
         }
     }
 
+    @Override
+    protected void fireValueChange(boolean repaintIsNotNeeded) {
+        getMetrics().valueChanged();
+        super.fireValueChange(repaintIsNotNeeded);
+    }
+
+    /**
+     * Where all fields without metrics of their own report to, NONE unless set.  Set it once at startup.
+     */
+    public static void setDefaultMetrics(DateRangeFieldMetrics metrics) {
+        defaultMetrics = (null == metrics) ? DateRangeFieldMetrics.NONE : metrics;
+    }
+
+    public static DateRangeFieldMetrics getDefaultMetrics() {
+        return defaultMetrics;
+    }
+
+    /**
+     * Metrics for this field only, null for the default.  Not serialized: after the session is deserialized the
+     * field reports to the default again.
+     */
+    public void setMetrics(DateRangeFieldMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public DateRangeFieldMetrics getMetrics() {
+        return (null != metrics) ? metrics : defaultMetrics;
+    }
+
+    private static long startTiming(DateRangeFieldMetrics m) {
+        return m.isTiming() ? System.nanoTime() : 0;
+    }
+
+    private static void endTiming(DateRangeFieldMetrics m, DateRangeFieldMetrics.Operation operation, long start) {
+        m.operation(operation, m.isTiming() ? System.nanoTime() - start : 0);
+    }
+
     @Override
     protected Component initContent() {
+        buildComponents();
         fromField.setInvalidAllowed(true);
         fromField.setManualInputAllowed(true);
         fromField.setImmediate(true);
@@ -175,17 +460,18 @@ public class DateRangeField extends CustomField<DateRange> {
         yearField.setImmediate(true);
         yearField.setInvalidAllowed(false);
         yearField.setManualInputAllowed(false);
+        // also does the validation pass the year field's error listener would
         yearField.addValueChangeListener(new Property.ValueChangeListener() {
             @Override
             public void valueChange(Property.ValueChangeEvent event) {
                 yearChange(true);
             }
         });
+        dateLayout = new HorizontalLayout();
         dateLayout.setSpacing(true);
         dateLayout.addComponent(yearField);
         dateLayout.addComponent(fromField);
         dateLayout.addComponent(toField);
-        addErrorChangeListener(yearField);
         addErrorChangeListener(fromField);
         addErrorChangeListener(toField);
         dateLayout.setComponentAlignment(yearField, Alignment.BOTTOM_CENTER);
@@ -204,38 +490,53 @@ public class DateRangeField extends CustomField<DateRange> {
         return this.errorStyleName;
     }
 
+    /**
+     * Sets both dates as one change.  The from and to fields are updated without their listeners reacting, then
+     * the value changes once, firing one value change event, and the sub fields are validated once.
+     */
+    public void setRange(Date from, Date to) {
+        if (null == fromField) {
+            setValue(new DateRange(from, to));
+        } else {
+            rangeUpdates++;
+            try {
+                fromField.setValue(from);
+                toField.setValue(to);
+            } finally {
+                rangeUpdates--;
+            }
+            setValue(new DateRange(fromField.getValue(), toField.getValue()));
+        }
+        requestHighlight(ALL_FIELDS);
+    }
+
     private void yearChange(boolean keepDates) {
-        int y = yearField.getValue();
+        DateRangeFieldMetrics m = getMetrics();
+        long startTime = startTiming(m);
+        try {
+            yearChange(keepDates, yearField.getValue());
+        } finally {
+            endTiming(m, DateRangeFieldMetrics.Operation.YEAR_CHANGE, startTime);
+        }
+    }
+
+    private void yearChange(boolean keepDates, int y) {
         Date firstDayOfNewYear = DateUtil.firstDayOfYear(y);
         Date lastDayOfNewYear = DateUtil.lastDayOfYear(y);
         Date start = fromField.getValue();
         Date end = toField.getValue();
         if (null == start) {
             start = firstDayOfNewYear;
-            fromField.setValue(start);
-        } else {
-            if (!DateUtil.isInYear(start, y)) {
-                if (keepDates) {
-                    start = DateUtil.sameDayDifferentYear(start, y);
-                } else {
-                    start = firstDayOfNewYear;
-                }
-                fromField.setValue(start);
-            }
+        } else if (!DateUtil.isInYear(start, y)) {
+            start = keepDates ? DateUtil.sameDayDifferentYear(start, y) : firstDayOfNewYear;
         }
         if (null == end) {
             end = lastDayOfNewYear;
-            toField.setValue(end);
-        } else {
-            if (!DateUtil.isInYear(end, y)) {
-                if (keepDates) {
-                    end = DateUtil.sameDayDifferentYear(end, y);
-                } else {
-                    end = lastDayOfNewYear;
-                }
-                toField.setValue(end);
-            }
+        } else if (!DateUtil.isInYear(end, y)) {
+            end = keepDates ? DateUtil.sameDayDifferentYear(end, y) : lastDayOfNewYear;
         }
+        // one event and one validation pass rather than one per date and listener
+        setRange(start, end);
         fromField.setMinValue(firstDayOfNewYear);
         fromField.setMaxValue(lastDayOfNewYear);
         toField.setMinValue(firstDayOfNewYear);
@@ -250,108 +551,132 @@ public class DateRangeField extends CustomField<DateRange> {
     @Override
     public void setLocale(Locale locale) {
         super.setLocale(locale);
-        this.fromField.setLocale(locale);
-        this.toField.setLocale(locale);
-        this.yearField.setLocale(locale);
+        this.subFieldLocale = locale;
+        if (null != fromField) {
+            this.fromField.setLocale(locale);
+            this.toField.setLocale(locale);
+            this.yearField.setLocale(locale);
+        }
+    }
+
+    /**
+     * Lets users type dates in any of the parser's patterns into the from and to fields.  Null goes back to just
+     * the displayed format.
+     */
+    public void setDateParser(DateParser parser) {
+        this.dateParser = parser;
+        if (null != fromField) {
+            ((ParsingDateStepper) this.fromField).setDateParser(parser);
+            ((ParsingDateStepper) this.toField).setDateParser(parser);
+        }
+    }
+
+    public DateParser getDateParser() {
+        return dateParser;
     }
 
     public void setFromDateCaption(String caption) {
-        this.fromField.setCaption(caption);
+        this.fromCaption = caption;
+        if (null != fromField) {
+            this.fromField.setCaption(caption);
+        }
     }
 
     public void setToDateCaption(String caption) {
-        this.toField.setCaption(caption);
+        this.toCaption = caption;
+        if (null != toField) {
+            this.toField.setCaption(caption);
+        }
     }
 
     public void setYearFieldCaption(String caption) {
-        this.yearField.setCaption(caption);
+        this.yearCaption = caption;
+        if (null != yearField) {
+            this.yearField.setCaption(caption);
+        }
+    }
+
+    /**
+     * The rules this field enforces, live: they follow setMinYear, setMaxYear and
+     * setForceRangeToBeWithinACalendarYear, and the field follows changes made to their constraints directly.  Use
+     * them to check records the same way outside the UI.
+     */
+    public DateRangeRules getRules() {
+        return rules;
     }
 
     public int getMinYear() {
-        return minYear;
+        return constraints.getMinYear();
     }
 
     public void setMinYear(int year) {
-        removeValidator(yearField, minYearValidator);
-        minYearValidator = null;
-
-        removeValidator(fromField, minYearFromDateValidator);
-        minYearFromDateValidator = null;
-
-        removeValidator(toField, minYearToDateValidator);
-        minYearToDateValidator = null;
-
-        if (year < 1) {
-            this.minYear = -1;
-            return;
-        }
-        this.minYear = year;
-        if (this.maxYear > 0) {
-            if (this.minYear > this.maxYear) {
-                setMaxYear(this.minYear);
+        if (year > 0) {
+            int max = constraints.getMaxYear();
+            if ((max > 0) && (year > max)) {
+                setMaxYear(year);
             }
         }
-        yearField.setMinValue(minYear);
-        minYearValidator = new IntegerRangeValidator("Year must be later or equal to " + minYear, minYear, null);
-        minYearFromDateValidator = new AfterValidator("From date must be in or after " + minYear,
-                DateUtil.firstDayOfYear(minYear), true);
-        minYearToDateValidator = new AfterValidator("To date must be in or after " + minYear,
-                DateUtil.firstDayOfYear(minYear), true);
-        addValidator(yearField, minYearValidator);
-        addValidator(fromField, minYearFromDateValidator);
-        addValidator(toField, minYearToDateValidator);
+        constraints.setMinYear(year);
+        if (!listening) {
+            applyConstraints();
+        }
     }
 
     public int getMaxYear() {
-        return maxYear;
+        return constraints.getMaxYear();
     }
 
     public void setMaxYear(int year) {
-        removeValidator(yearField, maxYearValidator);
-        maxYearValidator = null;
-
-        removeValidator(fromField, maxYearFromDateValidator);
-        maxYearFromDateValidator = null;
-
-        removeValidator(toField, maxYearToDateValidator);
-        maxYearToDateValidator = null;
-
-        if (year < 1) {
-            this.maxYear = -1;
-            return;
-        }
-        this.maxYear = year;
-        if (this.minYear > 0) {
-            if (this.maxYear < this.minYear) {
-                setMinYear(this.maxYear);
+        if (year > 0) {
+            int min = constraints.getMinYear();
+            if ((min > 0) && (year < min)) {
+                setMinYear(year);
             }
         }
-        yearField.setMaxValue(maxYear);
-        maxYearValidator = new IntegerRangeValidator("Year must be earlier or equal to " + maxYear, null, maxYear);
-        maxYearFromDateValidator = new BeforeValidator("From date must be in or before " + maxYear,
-                DateUtil.firstDayOfYear(maxYear), true);
-        maxYearToDateValidator = new BeforeValidator("To date must be in or before " + maxYear,
-                DateUtil.firstDayOfYear(maxYear), true);
-        addValidator(yearField, maxYearValidator);
-        addValidator(fromField, maxYearFromDateValidator);
-        addValidator(toField, maxYearToDateValidator);
+        constraints.setMaxYear(year);
+        if (!listening) {
+            applyConstraints();
+        }
     }
 
     public DateStepper getFromField() {
+        buildComponents();
         return fromField;
     }
 
     public DateStepper getToField() {
+        buildComponents();
         return toField;
     }
 
     public IntStepper getYearField() {
+        buildComponents();
         return yearField;
     }
 
+    private Date fromValue() {
+        if (null != fromField) {
+            return fromField.getValue();
+        }
+        DateRange dr = getValue();
+        return (null == dr) ? null : dr.getFrom();
+    }
+
+    private Date toValue() {
+        if (null != toField) {
+            return toField.getValue();
+        }
+        DateRange dr = getValue();
+        return (null == dr) ? null : dr.getTo();
+    }
+
+    Integer yearValue() {
+        return (null != yearField) ? yearField.getValue() : yearProperty.getValue();
+    }
+
     @Override
     protected boolean isEmpty() {
-        return ((null == fromField.getValue()) || (null == toField.getValue()));
+        return ((null == fromValue()) || (null == toValue()));
     }
 
     @Override
@@ -371,36 +696,411 @@ public class DateRangeField extends CustomField<DateRange> {
 
     public void removeAllValidators(Field<?> f) {
         f.removeAllValidators();
-        highlightInvalidField(f);
+        Map<Validator, CachedResult> results = validatorResults(subFieldBit(f));
+        if (null != results) {
+            results.clear();
+        }
+        requestHighlight(f);
     }
 
     public void removeValidator(Field<?> f, Validator toRemove) {
         f.removeValidator(toRemove);
-        highlightInvalidField(f);
+        Map<Validator, CachedResult> results = validatorResults(subFieldBit(f));
+        if (null != results) {
+            results.remove(toRemove);
+        }
+        requestHighlight(f);
     }
 
     public void addValidator(Field<?> f, Validator toAdd) {
         f.addValidator(toAdd);
-        highlightInvalidField(f);
+        requestHighlight(f);
+    }
+
+    public boolean isDeferredValidation() {
+        return deferredValidation;
+    }
+
+    /**
+     * When deferred, validator and value changes only mark the affected sub fields and they are highlighted once,
+     * just before the response is written, instead of after every change.  validate() and commit() still validate
+     * right away.  Turning it off highlights anything still pending.
+     */
+    public void setDeferredValidation(boolean deferred) {
+        this.deferredValidation = deferred;
+        if (!deferred) {
+            flushPendingValidation();
+        }
+    }
+
+    /**
+     * Highlights the sub fields marked while validation was deferred.  Called before each response; call it
+     * yourself when the field is used without a UI.
+     */
+    public void flushPendingValidation() {
+        if (null == fromField) {
+            // kept until the sub fields are built
+            return;
+        }
+        int pending = pendingValidation;
+        pendingValidation = 0;
+        if (0 != pending) {
+            highlight(pending);
+        }
+    }
+
+    // one highlight pass over the given sub fields
+    private void highlight(int fields) {
+        DateRangeFieldMetrics m = getMetrics();
+        long start = startTiming(m);
+        if ((fields & FROM_FIELD) != 0) {
+            highlightInvalidField(fromField);
+        }
+        if ((fields & TO_FIELD) != 0) {
+            highlightInvalidField(toField);
+        }
+        if ((fields & YEAR_FIELD) != 0) {
+            highlightInvalidField(yearField);
+        }
+        endTiming(m, DateRangeFieldMetrics.Operation.HIGHLIGHT, start);
+    }
+
+    @Override
+    public void beforeClientResponse(boolean initial) {
+        super.beforeClientResponse(initial);
+        flushPendingValidation();
+        updateClientState();
+    }
+
+    @Override
+    protected DateRangeFieldState getState() {
+        return (DateRangeFieldState) super.getState();
+    }
+
+    @Override
+    protected DateRangeFieldState getState(boolean markAsDirty) {
+        return (DateRangeFieldState) super.getState(markAsDirty);
+    }
+
+    public boolean isClientSideValidation() {
+        return clientSideValidation;
+    }
+
+    /**
+     * When on, the browser checks the field's own rules (from not after to, min and max year, within the year) as
+     * the user steps and shows the error style right away; unless a sync mode was set the steppers are then
+     * DEBOUNCED.  The server still validates everything it receives, including the validators added to the fields,
+     * and decides what is valid.  Needs the add-on's widgetset.
+     */
+    public void setClientSideValidation(boolean clientSideValidation) {
+        this.clientSideValidation = clientSideValidation;
+        markAsDirty();
+    }
+
+    /**
+     * IMMEDIATE unless set, or DEBOUNCED with client side validation.
+     */
+    public SyncMode getSyncMode() {
+        if (null != syncMode) {
+            return syncMode;
+        }
+        return clientSideValidation ? SyncMode.DEBOUNCED : SyncMode.IMMEDIATE;
+    }
+
+    /**
+     * When the steppers send a changed value.  In the other modes than IMMEDIATE the browser keeps only the
+     * latest value of a stepper and sends it once, when it has stayed unchanged for the sync delay (DEBOUNCED) or
+     * when the stepper loses focus or the pointer leaves it, so scrolling through the dates or years makes one
+     * request, one yearChange and one validation pass instead of one per step.  Null for the default.  Needs the
+     * add-on's widgetset.
+     */
+    public void setSyncMode(SyncMode syncMode) {
+        this.syncMode = syncMode;
+        markAsDirty();
+    }
+
+    public int getSyncDelay() {
+        return syncDelay;
+    }
+
+    /**
+     * @param millis how long a value must stay unchanged before it is sent when DEBOUNCED, 500 by default
+     */
+    public void setSyncDelay(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("The sync delay can't be negative: " + millis);
+        }
+        this.syncDelay = millis;
+        markAsDirty();
+    }
+
+    // the browser checks with the same constraints, sent in the shared state
+    private void updateClientState() {
+        String style = (null == errorStyleName) ? "" : errorStyleName;
+        DateRangeFieldState state = getState(false);
+        if (state.clientValidation == clientSideValidation && state.fromField == fromField
+                && state.toField == toField && state.yearField == yearField
+                && state.minYear == constraints.getMinYear() && state.maxYear == constraints.getMaxYear()
+                && state.withinYear == constraints.isWithinYear() && style.equals(state.errorStyleName)
+                && state.syncMode == getSyncMode() && state.syncDelay == syncDelay) {
+            return;
+        }
+        state = getState();
+        state.fromField = fromField;
+        state.toField = toField;
+        state.yearField = yearField;
+        state.minYear = constraints.getMinYear();
+        state.maxYear = constraints.getMaxYear();
+        state.withinYear = constraints.isWithinYear();
+        state.errorStyleName = style;
+        state.clientValidation = clientSideValidation;
+        state.syncMode = getSyncMode();
+        state.syncDelay = syncDelay;
+    }
+
+    private int subFieldBit(Field<?> f) {
+        if (null == f) {
+            return 0;
+        }
+        return (f == fromField) ? FROM_FIELD : (f == toField) ? TO_FIELD : (f == yearField) ? YEAR_FIELD : 0;
+    }
+
+    private Map<Validator, CachedResult> validatorResults(int bit) {
+        switch (bit) {
+            case FROM_FIELD:
+                return fromValidatorResults;
+            case TO_FIELD:
+                return toValidatorResults;
+            case YEAR_FIELD:
+                return yearValidatorResults;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * How often a sub field validator result was reused instead of running the validator again.
+     */
+    public long getValidationCacheHits() {
+        return validationCacheHits;
+    }
+
+    public long getValidationCacheMisses() {
+        return validationCacheMisses;
+    }
+
+    public void resetValidationCacheCounters() {
+        validationCacheHits = 0;
+        validationCacheMisses = 0;
+    }
+
+    private void createValidationCache() {
+        fromValidatorResults = new IdentityHashMap<Validator, CachedResult>(4);
+        toValidatorResults = new IdentityHashMap<Validator, CachedResult>(4);
+        yearValidatorResults = new IdentityHashMap<Validator, CachedResult>(4);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (null != fromField) {
+            // starts empty, every validator runs once more
+            createValidationCache();
+        }
+    }
+
+    private void clearValidationCache() {
+        if (null == fromValidatorResults) {
+            return;
+        }
+        fromValidatorResults.clear();
+        toValidatorResults.clear();
+        yearValidatorResults.clear();
+    }
+
+    // which sub fields the validator's result depends on, including its own
+    private int validatorInputs(Validator v, int ownBit) {
+        if (v instanceof RangeValidator) {
+            // IntegerRangeValidator and friends only look at the value
+            return ownBit;
+        }
+        if (!(v instanceof ValidatorDependencies)) {
+            return -1;
+        }
+        Field<?>[] dependsOn = ((ValidatorDependencies) v).getDependsOnFields();
+        if (null == dependsOn) {
+            return -1;
+        }
+        int inputs = ownBit;
+        for (Field<?> f : dependsOn) {
+            int bit = subFieldBit(f);
+            if (0 == bit) {
+                // some field we don't track
+                return -1;
+            }
+            inputs |= bit;
+        }
+        return inputs;
+    }
+
+    /**
+     * Same as f.validate(), except that for the from, to and year fields a validator is only run again when a field
+     * it depends on has changed since it last ran.
+     */
+    private void validateField(Field<?> f) throws Validator.InvalidValueException {
+        int bit = subFieldBit(f);
+        if ((0 == bit) || f.isRequired() || (((AbstractField<?>) f).getConverter() != null)) {
+            f.validate();
+            return;
+        }
+        Map<Validator, CachedResult> results = validatorResults(bit);
+        DateRangeFieldMetrics m = getMetrics();
+        Object value = f.getValue();
+        List<Validator.InvalidValueException> errors = null;
+        for (Validator v : f.getValidators()) {
+            CachedResult result = results.get(v);
+            if (null == result) {
+                result = new CachedResult(validatorInputs(v, bit));
+                results.put(v, result);
+            }
+            Validator.InvalidValueException error;
+            if (result.isCurrent(fieldVersions)) {
+                validationCacheHits++;
+                error = result.error;
+            } else {
+                validationCacheMisses++;
+                error = null;
+                long start = startTiming(m);
+                try {
+                    v.validate(value);
+                } catch (Validator.InvalidValueException ive) {
+                    error = ive;
+                }
+                m.validatorEvaluated(v, m.isTiming() ? System.nanoTime() - start : 0);
+                result.record(error, fieldVersions);
+            }
+            if (null != error) {
+                if (null == errors) {
+                    errors = new ArrayList<Validator.InvalidValueException>(2);
+                }
+                errors.add(error);
+            }
+        }
+        // same as AbstractField.validate(Object)
+        if (null == errors) {
+            return;
+        }
+        if (errors.size() == 1) {
+            throw errors.get(0);
+        }
+        throw new Validator.InvalidValueException(null, errors.toArray(new Validator.InvalidValueException[errors
+                .size()]));
+    }
+
+    private void requestHighlight(Field<?> f) {
+        int bit = subFieldBit(f);
+        if (0 == bit) {
+            highlightInvalidField(f);
+            return;
+        }
+        requestHighlight(bit);
+    }
+
+    private void requestHighlight(int fields) {
+        if (null == fromField) {
+            // nothing to highlight yet, done once the sub fields are built
+            pendingValidation |= fields;
+            return;
+        }
+        if (!deferredValidation) {
+            highlight(fields);
+            return;
+        }
+        if (0 == pendingValidation) {
+            // makes sure beforeClientResponse gets called for this round trip
+            markAsDirty();
+        }
+        pendingValidation |= fields;
+    }
+
+    // what the window validators would say; lightweight fields have none and check the rules here
+    private Validator.InvalidValueException ruleError(int field) {
+        switch (field) {
+            case FROM_FIELD:
+                return DateWindowValidator.error(rules, true, fromValue(), toValue(), yearValue(),
+                        DateWindowValidator.FROM_AFTER_TO_MESSAGE);
+            case TO_FIELD:
+                return DateWindowValidator.error(rules, false, toValue(), fromValue(), yearValue(),
+                        DateWindowValidator.TO_BEFORE_FROM_MESSAGE);
+            case YEAR_FIELD:
+                return YearWindowValidator.error(rules, yearValue());
+            default:
+                return null;
+        }
     }
 
     // this enables an initial validation before the fields have changed
     public Validator.InvalidValueException highlightInvalidField(Field<?> f) {
-        Validator.InvalidValueException err = null;
+        Validator.InvalidValueException err = lightweight ? ruleError(subFieldBit(f)) : null;
         try {
-            f.validate();
-            f.removeStyleName(getErrorStyleName());
+            validateField(f);
         } catch (Validator.InvalidValueException ive) {
-            err = ive;
+            err = combine(err, ive);
+        }
+        if (null == err) {
+            f.removeStyleName(getErrorStyleName());
+        } else {
             f.addStyleName(getErrorStyleName());
         }
+        DateRangeFieldMetrics m = getMetrics();
+        m.subFieldValidated(null == err);
+        if (null != err) {
+            recordFailures(m, err);
+        }
         return err;
     }
 
+    private static void recordFailures(DateRangeFieldMetrics m, Validator.InvalidValueException e) {
+        Validator.InvalidValueException[] causes = e.getCauses();
+        if ((null != e.getMessage()) || (null == causes) || (0 == causes.length)) {
+            m.validationFailed(e.getMessage());
+            return;
+        }
+        for (Validator.InvalidValueException cause : causes) {
+            recordFailures(m, cause);
+        }
+    }
+
+    // the rule error first, as the window validator would have been the first validator
+    private static Validator.InvalidValueException combine(Validator.InvalidValueException ruleError,
+                                                           Validator.InvalidValueException error) {
+        if (null == ruleError) {
+            return error;
+        }
+        List<Validator.InvalidValueException> causes = new ArrayList<Validator.InvalidValueException>();
+        for (Validator.InvalidValueException e : new Validator.InvalidValueException[]{ruleError, error}) {
+            if (null == e.getMessage()) {
+                // already a combination
+                causes.addAll(Arrays.asList(e.getCauses()));
+            } else {
+                causes.add(e);
+            }
+        }
+        return new Validator.InvalidValueException(null, causes.toArray(
+                new Validator.InvalidValueException[causes.size()]));
+    }
+
     public void addErrorChangeListener(final Field<?> f) {
         f.addValueChangeListener(new Property.ValueChangeListener() {
             @Override
             public void valueChange(Property.ValueChangeEvent event) {
+                if (rangeUpdates > 0) {
+                    // setRange validates once both dates are in
+                    return;
+                }
+                if (deferredValidation) {
+                    requestHighlight(ALL_FIELDS);
+                    return;
+                }
                 //noinspection ThrowableResultOfMethodCallIgnored
                 highlightInvalidFields();
             }
@@ -408,9 +1108,24 @@ public class DateRangeField extends CustomField<DateRange> {
     }
 
     public Validator.InvalidValueException highlightInvalidFields() {
+        if (null == fromField) {
+            // only a lightweight field before it is built: check the rules, the highlighting waits
+            for (int field = FROM_FIELD; field <= YEAR_FIELD; field <<= 1) {
+                Validator.InvalidValueException err = ruleError(field);
+                if (null != err) {
+                    return err;
+                }
+            }
+            return null;
+        }
+        // this is a full pass, so nothing deferred is left to do
+        pendingValidation = 0;
+        DateRangeFieldMetrics m = getMetrics();
+        long start = startTiming(m);
         Validator.InvalidValueException err1 = highlightInvalidField(this.fromField);
         Validator.InvalidValueException err2 = highlightInvalidField(this.toField);
         Validator.InvalidValueException err3 = highlightInvalidField(this.yearField);
+        endTiming(m, DateRangeFieldMetrics.Operation.HIGHLIGHT, start);
         if (null != err1) {
             return err1;
         }
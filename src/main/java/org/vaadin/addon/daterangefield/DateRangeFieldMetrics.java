@@ -0,0 +1,51 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+
+/**
+ * Receives what DateRangeFields spend their server time on.  Set one for all fields with
+ * DateRangeField.setDefaultMetrics, or for a single field with setMetrics.  Calls come from request threads, so an
+ * implementation shared between fields must be thread safe and should be cheap: it is called on the hot path.
+ * InMemoryDateRangeFieldMetrics keeps everything in memory for scraping.
+ */
+public interface DateRangeFieldMetrics {
+
+    enum Operation {
+        // highlightInvalidFields and the other highlight passes, including deferred ones
+        HIGHLIGHT,
+        // validate() and friends; includes the highlight pass it makes
+        VALIDATE,
+        YEAR_CHANGE,
+        COMMIT
+    }
+
+    DateRangeFieldMetrics NONE = new NoOpDateRangeFieldMetrics();
+
+    /**
+     * When false the fields don't read the clock at all and only call the counting methods.
+     */
+    boolean isTiming();
+
+    void operation(Operation operation, long nanos);
+
+    /**
+     * A validator run on a sub field; results reused from the validation cache are not counted.  The nanos are 0
+     * when not timing.
+     */
+    void validatorEvaluated(Validator validator, long nanos);
+
+    /**
+     * A sub field was validated and highlighted, valid or not.
+     */
+    void subFieldValidated(boolean valid);
+
+    /**
+     * One failed rule of a sub field, called after subFieldValidated(false) for each message.
+     */
+    void validationFailed(String message);
+
+    /**
+     * The value of a DateRangeField changed.
+     */
+    void valueChanged();
+}
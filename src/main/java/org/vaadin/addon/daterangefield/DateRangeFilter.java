@@ -0,0 +1,68 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Item;
+
+/**
+ * Passes the items whose date is within an inclusive range of days, looking the day up in a SortedDateIndex
+ * instead of reading the item's property; only items added after the index was built, or invalidated since, are
+ * read.  Items without a date never pass.  Get one from SortedDateIndex.filter, or let DateRangeFilterBinding keep
+ * one in step with a DateRangeField.
+ * <p/>
+ * The in-memory containers still ask every item when a filter is added, but the filter only compares two ints per
+ * item and allocates nothing; use SortedDateIndex.getItemIds to get the matching items without a scan.
+ */
+public final class DateRangeFilter implements Container.Filter {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SortedDateIndex index;
+    private final int fromDay;
+    private final int toDay;
+
+    DateRangeFilter(SortedDateIndex index, int fromDay, int toDay) {
+        this.index = index;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+    }
+
+    public SortedDateIndex getIndex() {
+        return index;
+    }
+
+    public int getFromDay() {
+        return fromDay;
+    }
+
+    public int getToDay() {
+        return toDay;
+    }
+
+    @Override
+    public boolean passesFilter(Object itemId, Item item) {
+        int day = index.day(itemId);
+        if (SortedDateIndex.UNKNOWN == day) {
+            day = SortedDateIndex.read((null == item) ? null : item.getItemProperty(index.getPropertyId()));
+        }
+        return (day >= fromDay) && (day <= toDay);
+    }
+
+    @Override
+    public boolean appliesToProperty(Object propertyId) {
+        return index.getPropertyId().equals(propertyId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DateRangeFilter)) {
+            return false;
+        }
+        DateRangeFilter other = (DateRangeFilter) o;
+        return (index == other.index) && (fromDay == other.fromDay) && (toDay == other.toDay);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * System.identityHashCode(index) + fromDay) + toDay;
+    }
+}
@@ -0,0 +1,127 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Property;
+
+/**
+ * Filters a container by the value of a DateRangeField: every value change swaps the container's DateRangeFilter
+ * for one of the new range, sharing one SortedDateIndex of the container.  A range with both ends missing removes
+ * the filter.
+ * <p/>
+ * The index follows the container where it can tell: dates the container or the items' properties report as
+ * changed are read again (see SortedDateIndex.setTrackingValues), and a Container.ItemSetChangeNotifier reports
+ * added and removed items.  Either makes the index stale, and it is rebuilt before the next filter is applied.  Edits the container doesn't report need
+ * rebuildIndex().
+ * <pre>
+ * DateRangeFilterBinding.bind(dateRangeField, container, "date");
+ * </pre>
+ */
+public class DateRangeFilterBinding implements Property.ValueChangeListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DateRangeField field;
+    private final Container.Filterable container;
+    private final SortedDateIndex index;
+    private DateRangeFilter filter;
+    // set while this changes the container's filters, which the container reports as an item set change
+    private boolean filtering;
+    private final Container.ItemSetChangeListener itemSetListener = new Container.ItemSetChangeListener() {
+        @Override
+        public void containerItemSetChange(Container.ItemSetChangeEvent event) {
+            if (!filtering) {
+                index.invalidateItemSet();
+            }
+        }
+    };
+
+    /**
+     * Indexes the container's property, filters it by the field's current value and follows the field from then
+     * on.  Call before other filters are added: the index only sees the visible items.
+     */
+    public static DateRangeFilterBinding bind(DateRangeField field, Container.Filterable container,
+                                              Object propertyId) {
+        SortedDateIndex index = new SortedDateIndex(container, propertyId);
+        index.setTrackingValues(true);
+        DateRangeFilterBinding binding = new DateRangeFilterBinding(field, container, index);
+        field.addValueChangeListener(binding);
+        if (container instanceof Container.ItemSetChangeNotifier) {
+            ((Container.ItemSetChangeNotifier) container).addItemSetChangeListener(binding.itemSetListener);
+        }
+        binding.apply(field.getValue());
+        return binding;
+    }
+
+    private DateRangeFilterBinding(DateRangeField field, Container.Filterable container, SortedDateIndex index) {
+        this.field = field;
+        this.container = container;
+        this.index = index;
+    }
+
+    public SortedDateIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * The filter on the container, null if none.
+     */
+    public DateRangeFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public void valueChange(Property.ValueChangeEvent event) {
+        apply(field.getValue());
+    }
+
+    public void apply(DateRange range) {
+        if (index.isStale()) {
+            // so that added and edited items aren't read by the filter from now on
+            setFilter(null);
+            index.rebuild();
+        }
+        boolean open = (null == range) || ((null == range.getFrom()) && (null == range.getTo()));
+        DateRangeFilter newFilter = open ? null : index.filter(range);
+        if ((null == newFilter) ? (null == filter) : newFilter.equals(filter)) {
+            return;
+        }
+        setFilter(newFilter);
+    }
+
+    private void setFilter(DateRangeFilter newFilter) {
+        filtering = true;
+        try {
+            // removing the only filter is cheap, the container just drops its filtered list
+            if (null != filter) {
+                container.removeContainerFilter(filter);
+            }
+            filter = newFilter;
+            if (null != filter) {
+                container.addContainerFilter(filter);
+            }
+        } finally {
+            filtering = false;
+        }
+    }
+
+    /**
+     * Indexes the container again, e.g. after edits it didn't report, and filters it again.
+     */
+    public void rebuildIndex() {
+        setFilter(null);
+        index.rebuild();
+        apply(field.getValue());
+    }
+
+    /**
+     * Stops following the field and the container and removes the filter.
+     */
+    public void unbind() {
+        field.removeValueChangeListener(this);
+        if (container instanceof Container.ItemSetChangeNotifier) {
+            ((Container.ItemSetChangeNotifier) container).removeItemSetChangeListener(itemSetListener);
+        }
+        index.setTrackingValues(false);
+        setFilter(null);
+    }
+}
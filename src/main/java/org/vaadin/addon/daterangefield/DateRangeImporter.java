@@ -0,0 +1,546 @@
+package org.vaadin.addon.daterangefield;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads date ranges in bulk from a delimited text file, one range per line, e.g. a CSV export of bookings.  The
+ * file is memory mapped a window at a time and the dates are parsed straight from the mapped bytes, so no Strings or
+ * Dates are created per line.  Ranges come out as epoch day pairs: streamed to a Sink, which keeps the heap flat
+ * however big the file is, or collected into packed longs (see PackedDateRange).
+ * <p/>
+ * Lines whose dates can't be parsed are counted as malformed, a header line included unless skipped with
+ * setHeaderLines.  With DateRangeRules set, ranges that break them are counted as invalid and left out, the same
+ * checks a DateRangeField makes.  Empty lines are ignored, and fields may be quoted or padded with spaces.
+ * <p/>
+ * The configuration must not be changed while a file is read; other than that an importer can be shared between
+ * threads.  Java 6 can't unmap a buffer, so mapped windows are released when they are garbage collected.
+ */
+public class DateRangeImporter {
+
+    public enum Layout {
+        // yyyy-MM-dd, yyyy/MM/dd or yyyyMMdd
+        ISO,
+        // d/M/yyyy, any non digit separators
+        DAY_MONTH_YEAR,
+        // M/d/yyyy, any non digit separators
+        MONTH_DAY_YEAR
+    }
+
+    /**
+     * Receives the ranges in file order, from the reading thread.
+     */
+    public interface Sink {
+        void range(int fromDay, int toDay);
+    }
+
+    /**
+     * What a read found.  Lines are the non empty lines after the header.
+     */
+    public static class Stats {
+        long lines;
+        long malformed;
+        long invalid;
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getMalformed() {
+            return malformed;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        void add(Stats other) {
+            lines += other.lines;
+            malformed += other.malformed;
+            invalid += other.invalid;
+        }
+
+        @Override
+        public String toString() {
+            return "lines=" + lines + " malformed=" + malformed + " invalid=" + invalid;
+        }
+    }
+
+    /**
+     * The stats and the ranges that were read, packed as by PackedDateRange.pack, in file order.
+     */
+    public static final class Result extends Stats {
+        private final long[] ranges;
+
+        Result(long[] ranges) {
+            this.ranges = ranges;
+        }
+
+        /**
+         * The array itself, not a copy.
+         */
+        public long[] getRanges() {
+            return ranges;
+        }
+    }
+
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    private static final int NO_DAY = DateParser.NO_DAY;
+    // bytes read at a time when looking for where a part starts
+    private static final int PROBE_SIZE = 8192;
+
+    private byte separator = ',';
+    private int fromColumn = 0;
+    private int toColumn = 1;
+    private Layout layout = Layout.ISO;
+    private int headerLines = 0;
+    private DateRangeRules rules;
+    private int year = DateRangeRules.ANY_YEAR;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
+    public DateRangeImporter() {
+    }
+
+    public DateRangeImporter(Layout layout, char separator) {
+        setLayout(layout);
+        setSeparator(separator);
+    }
+
+    public char getSeparator() {
+        return (char) separator;
+    }
+
+    /**
+     * A single byte character other than a quote, e.g. ',', ';' or '\t'.
+     */
+    public void setSeparator(char separator) {
+        if ((separator > 0x7f) || (separator == '"') || (separator == '\n') || (separator == '\r')) {
+            throw new IllegalArgumentException("Not a usable separator: " + separator);
+        }
+        this.separator = (byte) separator;
+    }
+
+    public int getFromColumn() {
+        return fromColumn;
+    }
+
+    public int getToColumn() {
+        return toColumn;
+    }
+
+    /**
+     * Zero based.
+     */
+    public void setColumns(int fromColumn, int toColumn) {
+        if ((fromColumn < 0) || (toColumn < 0) || (fromColumn == toColumn)) {
+            throw new IllegalArgumentException("Bad columns " + fromColumn + ", " + toColumn);
+        }
+        this.fromColumn = fromColumn;
+        this.toColumn = toColumn;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * How both dates are written.  Whatever follows the date after a 'T' or a space, such as a time, is ignored.
+     */
+    public void setLayout(Layout layout) {
+        if (null == layout) {
+            throw new IllegalArgumentException("The layout can't be null");
+        }
+        this.layout = layout;
+    }
+
+    public int getHeaderLines() {
+        return headerLines;
+    }
+
+    public void setHeaderLines(int headerLines) {
+        if (headerLines < 0) {
+            throw new IllegalArgumentException("Header lines can't be negative: " + headerLines);
+        }
+        this.headerLines = headerLines;
+    }
+
+    public DateRangeRules getRules() {
+        return rules;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Only ranges that pass the rules are passed on.  Null (the default) passes every range that parses.
+     *
+     * @param year as for DateRangeRules.check: the year, SAME_YEAR or ANY_YEAR
+     */
+    public void setRules(DateRangeRules rules, int year) {
+        this.rules = rules;
+        this.year = year;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * How much of the file is mapped at a time.  A line longer than this counts as malformed.
+     */
+    public void setWindowSize(int windowSize) {
+        if (windowSize < 64) {
+            throw new IllegalArgumentException("Window too small: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Streams the ranges to the sink in this thread.
+     */
+    public Stats read(File file, Sink sink) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            Stats stats = new Stats();
+            new Part(channel, channel.size(), 0, channel.size(), headerLines, sink, stats).read();
+            return stats;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Collects the ranges in this thread.
+     */
+    public Result read(File file) throws IOException {
+        Collector collector = new Collector(file.length());
+        Stats stats = read(file, collector);
+        return collector.result(stats);
+    }
+
+    /**
+     * Splits the file into parts at line boundaries and parses them on the executor, then puts the ranges together
+     * in file order.  Returns when all parts are done.
+     */
+    public Result read(File file, ExecutorService executor, int parts) throws IOException, InterruptedException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("Need at least one part: " + parts);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            long[] starts = partStarts(channel, size, parts);
+            List<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+            for (int i = 0; i < parts; i++) {
+                final long start = starts[i];
+                final long end = starts[i + 1];
+                final int skip = (0 == i) ? headerLines : 0;
+                tasks.add(new Callable<Result>() {
+                    @Override
+                    public Result call() throws IOException {
+                        Collector collector = new Collector(end - start);
+                        Stats stats = new Stats();
+                        new Part(channel, size, start, end, skip, collector, stats).read();
+                        return collector.result(stats);
+                    }
+                });
+            }
+            List<Result> results = new ArrayList<Result>();
+            long total = 0;
+            for (Future<Result> f : executor.invokeAll(tasks)) {
+                try {
+                    Result r = f.get();
+                    results.add(r);
+                    total += r.getRanges().length;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IllegalStateException("Reading a part of " + file + " failed", e.getCause());
+                }
+            }
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many ranges to collect, use a Sink");
+            }
+            Result all = new Result(new long[(int) total]);
+            int at = 0;
+            for (Result r : results) {
+                System.arraycopy(r.getRanges(), 0, all.getRanges(), at, r.getRanges().length);
+                at += r.getRanges().length;
+                all.add(r);
+            }
+            return all;
+        } finally {
+            raf.close();
+        }
+    }
+
+    // parts.length + 1 offsets, each a line start or the end of the file
+    private static long[] partStarts(FileChannel channel, long size, int parts) throws IOException {
+        long[] starts = new long[parts + 1];
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        for (int i = 1; i < parts; i++) {
+            long at = Math.max(starts[i - 1], size / parts * i);
+            starts[i] = (0 == at) ? 0 : lineStartAtOrAfter(channel, size, at, probe);
+        }
+        starts[parts] = size;
+        return starts;
+    }
+
+    private static long lineStartAtOrAfter(FileChannel channel, long size, long at, ByteBuffer probe)
+            throws IOException {
+        // a line starts at 'at' if the byte before it ends a line
+        long pos = at - 1;
+        while (pos < size) {
+            probe.clear();
+            int n = channel.read(probe, pos);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    /**
+     * Grows a long[] of packed ranges.
+     */
+    private static final class Collector implements Sink {
+        private long[] ranges;
+        private int size;
+
+        Collector(long bytes) {
+            // a line with two ISO dates takes at least 22 bytes
+            this.ranges = new long[(int) Math.min(1 << 20, Math.max(16, bytes / 22))];
+        }
+
+        @Override
+        public void range(int fromDay, int toDay) {
+            if (size == ranges.length) {
+                if (size == Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many ranges to collect, use a Sink");
+                }
+                long[] bigger = new long[(int) Math.min(Integer.MAX_VALUE - 8, size + (long) (size >> 1) + 16)];
+                System.arraycopy(ranges, 0, bigger, 0, size);
+                ranges = bigger;
+            }
+            ranges[size++] = PackedDateRange.pack(fromDay, toDay);
+        }
+
+        Result result(Stats stats) {
+            long[] exact = ranges;
+            if (size != ranges.length) {
+                exact = new long[size];
+                System.arraycopy(ranges, 0, exact, 0, size);
+            }
+            Result r = new Result(exact);
+            r.add(stats);
+            return r;
+        }
+    }
+
+    /**
+     * Reads the lines that start in [start, end), one window at a time.  Only used by one thread.
+     */
+    private final class Part {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long start;
+        private final long end;
+        private final Sink sink;
+        private final Stats stats;
+        private final int lastColumn = Math.max(fromColumn, toColumn);
+        private int skip;
+        private MappedByteBuffer buf;
+        // where the parser is in buf
+        private int pos;
+        // for finding the end of lines longer than a window, allocated at the first one
+        private ByteBuffer probe;
+
+        Part(FileChannel channel, long fileSize, long start, long end, int skip, Sink sink, Stats stats) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.start = start;
+            this.end = end;
+            this.skip = skip;
+            this.sink = sink;
+            this.stats = stats;
+        }
+
+        void read() throws IOException {
+            long at = start;
+            while (at < end) {
+                int size = (int) Math.min(windowSize, fileSize - at);
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, at, size);
+                boolean last = (at + size == fileSize);
+                // lines starting at or after limit belong to the next part
+                int limit = (int) Math.min(size, end - at);
+                int lineStart = 0;
+                while (lineStart < limit) {
+                    int nl = indexOfNewline(lineStart, size);
+                    if ((nl < 0) && !last) {
+                        // runs past the window, map again from its start
+                        break;
+                    }
+                    int lineEnd = (nl < 0) ? size : nl;
+                    line(lineStart, lineEnd);
+                    lineStart = (nl < 0) ? size : nl + 1;
+                }
+                if (0 == lineStart) {
+                    // not even one line fits in the window
+                    stats.lines++;
+                    stats.malformed++;
+                    if (null == probe) {
+                        probe = ByteBuffer.allocate(PROBE_SIZE);
+                    }
+                    at = lineStartAtOrAfter(channel, fileSize, at + size, probe);
+                } else {
+                    at += lineStart;
+                }
+            }
+            buf = null;
+        }
+
+        private int indexOfNewline(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buf.get(i) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void line(int lineStart, int lineEnd) {
+            if ((lineEnd > lineStart) && (buf.get(lineEnd - 1) == '\r')) {
+                lineEnd--;
+            }
+            if (lineEnd == lineStart) {
+                return;
+            }
+            if (skip > 0) {
+                skip--;
+                return;
+            }
+            stats.lines++;
+            int fromDay = NO_DAY;
+            int toDay = NO_DAY;
+            int column = 0;
+            int fieldStart = lineStart;
+            boolean quoted = false;
+            for (int i = lineStart; (i <= lineEnd) && (column <= lastColumn); i++) {
+                byte b = (i < lineEnd) ? buf.get(i) : separator;
+                if ((b == '"') && (i < lineEnd)) {
+                    quoted = !quoted;
+                } else if ((i == lineEnd) || ((b == separator) && !quoted)) {
+                    if (column == fromColumn) {
+                        fromDay = day(fieldStart, i);
+                    } else if (column == toColumn) {
+                        toDay = day(fieldStart, i);
+                    }
+                    column++;
+                    fieldStart = i + 1;
+                }
+            }
+            if ((NO_DAY == fromDay) || (NO_DAY == toDay)) {
+                stats.malformed++;
+            } else if ((null != rules) && (DateRangeRules.VALID != rules.check(fromDay, toDay, year))) {
+                stats.invalid++;
+            } else {
+                sink.range(fromDay, toDay);
+            }
+        }
+
+        // the epoch day in [from, to) of buf, NO_DAY if it isn't a date in the layout
+        private int day(int from, int to) {
+            while ((from < to) && isPadding(buf.get(from))) {
+                from++;
+            }
+            while ((to > from) && isPadding(buf.get(to - 1))) {
+                to--;
+            }
+            pos = from;
+            int y;
+            int m;
+            int d;
+            if (Layout.ISO == layout) {
+                y = digits(to, 4, 4);
+                if ((pos < to) && !isDigit(buf.get(pos))) {
+                    byte sep = buf.get(pos++);
+                    m = digits(to, 1, 2);
+                    if ((pos >= to) || (buf.get(pos++) != sep)) {
+                        return NO_DAY;
+                    }
+                    d = digits(to, 1, 2);
+                } else {
+                    m = digits(to, 2, 2);
+                    d = digits(to, 2, 2);
+                }
+            } else {
+                int first = digits(to, 1, 2);
+                if (!separator(to)) {
+                    return NO_DAY;
+                }
+                int second = digits(to, 1, 2);
+                if (!separator(to)) {
+                    return NO_DAY;
+                }
+                y = digits(to, 4, 4);
+                m = (Layout.DAY_MONTH_YEAR == layout) ? second : first;
+                d = (Layout.DAY_MONTH_YEAR == layout) ? first : second;
+            }
+            if ((y < 0) || (m < 1) || (m > 12) || (d < 1) || (d > DateUtil.daysInMonth(y, m))) {
+                return NO_DAY;
+            }
+            if ((pos < to) && (buf.get(pos) != 'T') && (buf.get(pos) != ' ')) {
+                return NO_DAY;
+            }
+            return DateUtil.epochDay(y, m, d);
+        }
+
+        // min to max digits from pos, -1 if there are fewer than min
+        private int digits(int to, int min, int max) {
+            int value = 0;
+            int n = 0;
+            while ((n < max) && (pos < to) && isDigit(buf.get(pos))) {
+                value = value * 10 + (buf.get(pos++) - '0');
+                n++;
+            }
+            return (n < min) ? -1 : value;
+        }
+
+        private boolean separator(int to) {
+            if ((pos < to) && !isDigit(buf.get(pos))) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return (b >= '0') && (b <= '9');
+    }
+
+    private static boolean isPadding(byte b) {
+        return (b == ' ') || (b == '\t') || (b == '"');
+    }
+}
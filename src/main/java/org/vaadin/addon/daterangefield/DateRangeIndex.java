@@ -0,0 +1,368 @@
+package org.vaadin.addon.daterangefield;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An interval tree over inclusive date ranges: an AVL tree ordered by from day (then to day) where every node also
+ * keeps the latest to day found in its subtree.  Inserting, removing and asking whether anything overlaps a range
+ * are O(log n); listing the overlapping ranges is O(log n + k).
+ * <p/>
+ * The same range may be added more than once and then has to be removed as many times.  Empty ranges and ranges
+ * with a missing end are ignored.  Not thread safe.  Serialized as the sorted ranges with their counts and rebuilt
+ * balanced when read, rather than as a tree of nodes.
+ */
+public class DateRangeIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final class Node {
+        final long range;
+        int count = 1;
+        int height = 1;
+        int maxTo;
+        Node left, right;
+
+        Node(long range) {
+            this.range = range;
+            this.maxTo = PackedDateRange.toDay(range);
+        }
+    }
+
+    private transient Node root;
+    private transient int size;
+
+    public DateRangeIndex() {
+    }
+
+    public DateRangeIndex(Collection<DateRange> ranges) {
+        addAll(ranges);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Bulk load.  If the index is empty the tree is built balanced from the sorted ranges in one pass, otherwise
+     * they are inserted one by one.
+     */
+    public void addAll(Collection<DateRange> ranges) {
+        long[] packed = new long[ranges.size()];
+        int n = 0;
+        for (DateRange dr : ranges) {
+            PackedDateRange p = PackedDateRange.of(dr);
+            if ((null != p) && !p.isEmpty()) {
+                packed[n++] = p.getPacked();
+            }
+        }
+        addAll(packed, n);
+    }
+
+    public void addAll(long[] packedRanges, int count) {
+        if (null != root) {
+            for (int i = 0; i < count; i++) {
+                add(packedRanges[i]);
+            }
+            return;
+        }
+        long[] sorted = new long[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (!PackedDateRange.isEmpty(packedRanges[i])) {
+                sorted[n++] = packedRanges[i];
+            }
+        }
+        // shift so the signed long order is from day, then to day
+        for (int i = 0; i < n; i++) {
+            sorted[i] ^= 0x80000000L;
+        }
+        Arrays.sort(sorted, 0, n);
+        for (int i = 0; i < n; i++) {
+            sorted[i] ^= 0x80000000L;
+        }
+        // collapse duplicates into counts
+        int distinct = 0;
+        int[] counts = new int[n];
+        for (int i = 0; i < n; i++) {
+            if ((distinct > 0) && (sorted[distinct - 1] == sorted[i])) {
+                counts[distinct - 1]++;
+            } else {
+                sorted[distinct] = sorted[i];
+                counts[distinct++] = 1;
+            }
+        }
+        root = build(sorted, counts, 0, distinct - 1);
+        size = n;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(countNodes(root));
+        writeNodes(root, out);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int distinct = in.readInt();
+        long[] sorted = new long[distinct];
+        int[] counts = new int[distinct];
+        int n = 0;
+        for (int i = 0; i < distinct; i++) {
+            sorted[i] = in.readLong();
+            counts[i] = in.readInt();
+            n += counts[i];
+        }
+        root = build(sorted, counts, 0, distinct - 1);
+        size = n;
+    }
+
+    private static int countNodes(Node node) {
+        return (null == node) ? 0 : 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
+    private static void writeNodes(Node node, ObjectOutputStream out) throws IOException {
+        if (null == node) {
+            return;
+        }
+        writeNodes(node.left, out);
+        out.writeLong(node.range);
+        out.writeInt(node.count);
+        writeNodes(node.right, out);
+    }
+
+    private static Node build(long[] sorted, int[] counts, int lo, int hi) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node(sorted[mid]);
+        node.count = counts[mid];
+        node.left = build(sorted, counts, lo, mid - 1);
+        node.right = build(sorted, counts, mid + 1, hi);
+        update(node);
+        return node;
+    }
+
+    public void add(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        if (null != p) {
+            add(p.getPacked());
+        }
+    }
+
+    public void add(long packedRange) {
+        if (PackedDateRange.isEmpty(packedRange)) {
+            return;
+        }
+        root = insert(root, packedRange);
+        size++;
+    }
+
+    /**
+     * Returns false if the range was not in the index.
+     */
+    public boolean remove(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        return (null != p) && remove(p.getPacked());
+    }
+
+    public boolean remove(long packedRange) {
+        int before = size;
+        root = delete(root, packedRange);
+        return size < before;
+    }
+
+    public boolean overlapsAny(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        return (null != p) && overlapsAny(p.getFromDay(), p.getToDay());
+    }
+
+    /**
+     * False for an empty query, one whose from day is after its to day, as that overlaps nothing.
+     */
+    public boolean overlapsAny(int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            return false;
+        }
+        Node node = root;
+        while (null != node) {
+            if ((PackedDateRange.fromDay(node.range) <= toDay) && (PackedDateRange.toDay(node.range) >= fromDay)) {
+                return true;
+            }
+            // if the left subtree reaches far enough and holds nothing overlapping, neither can the right one
+            if ((null != node.left) && (node.left.maxTo >= fromDay)) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    public List<PackedDateRange> findOverlapping(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        return (null == p) ? new ArrayList<PackedDateRange>() : findOverlapping(p.getFromDay(), p.getToDay());
+    }
+
+    /**
+     * All indexed ranges overlapping [fromDay, toDay], in order.  A range added twice is listed twice.  Nothing
+     * for an empty query.
+     */
+    public List<PackedDateRange> findOverlapping(int fromDay, int toDay) {
+        List<PackedDateRange> result = new ArrayList<PackedDateRange>();
+        if (fromDay <= toDay) {
+            collect(root, fromDay, toDay, result);
+        }
+        return result;
+    }
+
+    /**
+     * All indexed ranges containing the given epoch day.
+     */
+    public List<PackedDateRange> findContaining(int day) {
+        return findOverlapping(day, day);
+    }
+
+    private static void collect(Node node, int fromDay, int toDay, List<PackedDateRange> result) {
+        if ((null == node) || (node.maxTo < fromDay)) {
+            return;
+        }
+        collect(node.left, fromDay, toDay, result);
+        if (PackedDateRange.fromDay(node.range) > toDay) {
+            // everything to the right starts even later
+            return;
+        }
+        if (PackedDateRange.toDay(node.range) >= fromDay) {
+            PackedDateRange p = PackedDateRange.ofPacked(node.range);
+            for (int i = 0; i < node.count; i++) {
+                result.add(p);
+            }
+        }
+        collect(node.right, fromDay, toDay, result);
+    }
+
+    private static int height(Node n) {
+        return (null == n) ? 0 : n.height;
+    }
+
+    private static void update(Node n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+        int max = PackedDateRange.toDay(n.range);
+        if ((null != n.left) && (n.left.maxTo > max)) {
+            max = n.left.maxTo;
+        }
+        if ((null != n.right) && (n.right.maxTo > max)) {
+            max = n.right.maxTo;
+        }
+        n.maxTo = max;
+    }
+
+    private static Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private static Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private static Node balance(Node n) {
+        update(n);
+        int bf = height(n.left) - height(n.right);
+        if (bf > 1) {
+            if (height(n.left.left) < height(n.left.right)) {
+                n.left = rotateLeft(n.left);
+            }
+            return rotateRight(n);
+        }
+        if (bf < -1) {
+            if (height(n.right.right) < height(n.right.left)) {
+                n.right = rotateRight(n.right);
+            }
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    private static Node insert(Node n, long range) {
+        if (null == n) {
+            return new Node(range);
+        }
+        int c = PackedDateRange.compare(range, n.range);
+        if (c == 0) {
+            n.count++;
+            return n;
+        }
+        if (c < 0) {
+            n.left = insert(n.left, range);
+        } else {
+            n.right = insert(n.right, range);
+        }
+        return balance(n);
+    }
+
+    private Node delete(Node n, long range) {
+        if (null == n) {
+            return null;
+        }
+        int c = PackedDateRange.compare(range, n.range);
+        if (c < 0) {
+            n.left = delete(n.left, range);
+        } else if (c > 0) {
+            n.right = delete(n.right, range);
+        } else {
+            size--;
+            if (n.count > 1) {
+                n.count--;
+                return n;
+            }
+            if ((null == n.left) || (null == n.right)) {
+                return (null == n.left) ? n.right : n.left;
+            }
+            // replace with the smallest node of the right subtree
+            Node min = n.right;
+            while (null != min.left) {
+                min = min.left;
+            }
+            Node replacement = new Node(min.range);
+            replacement.count = min.count;
+            replacement.right = deleteMin(n.right);
+            replacement.left = n.left;
+            return balance(replacement);
+        }
+        return balance(n);
+    }
+
+    private static Node deleteMin(Node n) {
+        if (null == n.left) {
+            return n.right;
+        }
+        n.left = deleteMin(n.left);
+        return balance(n);
+    }
+}
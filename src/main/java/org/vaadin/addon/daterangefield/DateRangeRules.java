@@ -0,0 +1,235 @@
+package org.vaadin.addon.daterangefield;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The rules a DateRangeField enforces (from not after to, min and max year, the range within a calendar year) as
+ * plain functions of epoch days, so they can be applied to records outside of any UI.  DateWindowValidator and
+ * YearWindowValidator use this too, so the field and a batch job can't disagree.
+ * <p/>
+ * A check returns a bit mask of the broken rules, VALID (0) if there are none.  The batch methods write one short
+ * per record and can split the work over an ExecutorService.  The constraints must not be changed while a batch is
+ * running; other than that the rules hold no state and can be shared between threads.
+ */
+public class DateRangeRules implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int VALID = 0;
+    public static final int FROM_AFTER_TO = 1;
+    public static final int FROM_NOT_IN_YEAR = 1 << 1;
+    public static final int TO_NOT_IN_YEAR = 1 << 2;
+    public static final int FROM_BEFORE_MIN_YEAR = 1 << 3;
+    public static final int TO_BEFORE_MIN_YEAR = 1 << 4;
+    public static final int FROM_AFTER_MAX_YEAR = 1 << 5;
+    public static final int TO_AFTER_MAX_YEAR = 1 << 6;
+    // only for records given as DateRange
+    public static final int INCOMPLETE = 1 << 7;
+    // only for the year itself, see checkYear
+    public static final int YEAR_BEFORE_MIN_YEAR = 1 << 8;
+    public static final int YEAR_AFTER_MAX_YEAR = 1 << 9;
+
+    /**
+     * The codes that concern the from date, and those that concern the to date.  The order of the two dates
+     * concerns both.
+     */
+    public static final int FROM_CODES = FROM_AFTER_TO | FROM_NOT_IN_YEAR | FROM_BEFORE_MIN_YEAR | FROM_AFTER_MAX_YEAR;
+    public static final int TO_CODES = FROM_AFTER_TO | TO_NOT_IN_YEAR | TO_BEFORE_MIN_YEAR | TO_AFTER_MAX_YEAR;
+
+    /**
+     * Pass as the year to require only that both dates are in the same calendar year, the from date's.
+     */
+    public static final int SAME_YEAR = DateRangeConstraints.NO_YEAR;
+
+    /**
+     * Pass as the year to skip the within-a-year rule, e.g. when no year is selected.
+     */
+    public static final int ANY_YEAR = Integer.MIN_VALUE;
+
+    // below this many records per task splitting costs more than it saves
+    private static final int MIN_CHUNK = 4096;
+
+    private final DateRangeConstraints constraints;
+
+    public DateRangeRules(DateRangeConstraints constraints) {
+        this.constraints = constraints;
+    }
+
+    /**
+     * Year bounds below 1 mean no bound.
+     */
+    public DateRangeRules(int minYear, int maxYear, boolean withinYear) {
+        this(new DateRangeConstraints());
+        constraints.setMinYear(minYear);
+        constraints.setMaxYear(maxYear);
+        constraints.setWithinYear(withinYear);
+    }
+
+    public DateRangeConstraints getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * @param year the year both dates have to be in if the range must be within a calendar year, SAME_YEAR or
+     *             ANY_YEAR
+     */
+    public int check(int fromDay, int toDay, int year) {
+        if (!constraints.isWithinYear() || (ANY_YEAR == year)) {
+            return check(fromDay, toDay, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        int y = (SAME_YEAR == year) ? DateUtil.yearOfEpochDay(fromDay) : year;
+        return check(fromDay, toDay, DateUtil.firstEpochDayOfYear(y), DateUtil.lastEpochDayOfYear(y));
+    }
+
+    public int check(long packedRange, int year) {
+        return check(PackedDateRange.fromDay(packedRange), PackedDateRange.toDay(packedRange), year);
+    }
+
+    public int check(DateRange dr, int year) {
+        if ((null == dr) || (null == dr.getFrom()) || (null == dr.getTo())) {
+            return INCOMPLETE;
+        }
+        return check(DateUtil.toEpochDay(dr.getFrom()), DateUtil.toEpochDay(dr.getTo()), year);
+    }
+
+    private int check(int fromDay, int toDay, int yearFirstDay, int yearLastDay) {
+        int earliest = constraints.earliestDay;
+        int latest = constraints.latestDay;
+        int codes = VALID;
+        if (fromDay > toDay) {
+            codes |= FROM_AFTER_TO;
+        }
+        if ((fromDay < yearFirstDay) || (fromDay > yearLastDay)) {
+            codes |= FROM_NOT_IN_YEAR;
+        }
+        if ((toDay < yearFirstDay) || (toDay > yearLastDay)) {
+            codes |= TO_NOT_IN_YEAR;
+        }
+        if (fromDay < earliest) {
+            codes |= FROM_BEFORE_MIN_YEAR;
+        }
+        if (toDay < earliest) {
+            codes |= TO_BEFORE_MIN_YEAR;
+        }
+        if (fromDay > latest) {
+            codes |= FROM_AFTER_MAX_YEAR;
+        }
+        if (toDay > latest) {
+            codes |= TO_AFTER_MAX_YEAR;
+        }
+        return codes;
+    }
+
+    /**
+     * The year field's own rules: the min and max year, whether or not the range must be within a calendar year.
+     */
+    public int checkYear(Integer year) {
+        if (null == year) {
+            return VALID;
+        }
+        int minYear = constraints.getMinYear();
+        int maxYear = constraints.getMaxYear();
+        if ((DateRangeConstraints.NO_YEAR != minYear) && (year < minYear)) {
+            return YEAR_BEFORE_MIN_YEAR;
+        }
+        if ((DateRangeConstraints.NO_YEAR != maxYear) && (year > maxYear)) {
+            return YEAR_AFTER_MAX_YEAR;
+        }
+        return VALID;
+    }
+
+    /**
+     * One code per packed range (see PackedDateRange), in this thread.
+     */
+    public short[] checkAll(long[] packedRanges, int year) {
+        short[] codes = new short[packedRanges.length];
+        checkRange(packedRanges, year, codes, 0, packedRanges.length);
+        return codes;
+    }
+
+    /**
+     * One code per packed range, split into chunks run on the executor.  Returns when all are done.
+     */
+    public short[] checkAll(final long[] packedRanges, final int year, ExecutorService executor)
+            throws InterruptedException {
+        final short[] codes = new short[packedRanges.length];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        int chunk = chunkSize(packedRanges.length);
+        for (int start = 0; start < packedRanges.length; start += chunk) {
+            final int from = start;
+            final int to = Math.min(packedRanges.length, start + chunk);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    checkRange(packedRanges, year, codes, from, to);
+                    return null;
+                }
+            });
+        }
+        runAll(executor, tasks);
+        return codes;
+    }
+
+    /**
+     * One code per range, split into chunks run on the executor.  Use a random access list.
+     */
+    public short[] checkAll(final List<DateRange> ranges, final int year, ExecutorService executor)
+            throws InterruptedException {
+        final short[] codes = new short[ranges.size()];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        int chunk = chunkSize(ranges.size());
+        for (int start = 0; start < ranges.size(); start += chunk) {
+            final int from = start;
+            final int to = Math.min(ranges.size(), start + chunk);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = from; i < to; i++) {
+                        codes[i] = (short) check(ranges.get(i), year);
+                    }
+                    return null;
+                }
+            });
+        }
+        runAll(executor, tasks);
+        return codes;
+    }
+
+    private void checkRange(long[] packedRanges, int year, short[] codes, int from, int to) {
+        if (!constraints.isWithinYear() || (SAME_YEAR == year) || (ANY_YEAR == year)) {
+            for (int i = from; i < to; i++) {
+                codes[i] = (short) check(packedRanges[i], year);
+            }
+            return;
+        }
+        // the year is the same for every record, so work its bounds out once
+        int yearFirstDay = DateUtil.firstEpochDayOfYear(year);
+        int yearLastDay = DateUtil.lastEpochDayOfYear(year);
+        for (int i = from; i < to; i++) {
+            long p = packedRanges[i];
+            codes[i] = (short) check(PackedDateRange.fromDay(p), PackedDateRange.toDay(p), yearFirstDay,
+                    yearLastDay);
+        }
+    }
+
+    private static int chunkSize(int records) {
+        int tasks = Math.max(1, Runtime.getRuntime().availableProcessors() * 4);
+        return Math.max(MIN_CHUNK, (records + tasks - 1) / tasks);
+    }
+
+    private static void runAll(ExecutorService executor, List<Callable<Void>> tasks) throws InterruptedException {
+        for (Future<Void> f : executor.invokeAll(tasks)) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Checking a chunk of date ranges failed", e.getCause());
+            }
+        }
+    }
+}
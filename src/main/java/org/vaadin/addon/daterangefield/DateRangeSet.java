@@ -0,0 +1,503 @@
+package org.vaadin.addon.daterangefield;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of days, e.g. the union of the bookings minus the holidays, kept as a two level bitmap the way a roaring
+ * bitmap is: the years that have days in the set, sorted, each with a container of one bit per day of that year.
+ * A year has at most 366 days, so a bitmap container is never more than 6 longs and is the only kind needed; years
+ * without days take no space.  Union, intersection and difference work a year at a time on whole words, so a set
+ * spanning decades is combined in microseconds.
+ * <p/>
+ * Read back as coalesced ranges: adjacent days, across year ends too, come out as one DateRange.  Ranges with a
+ * missing end and empty ranges are ignored.  Not thread safe.
+ */
+public class DateRangeSet implements Iterable<DateRange>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // longs per year container
+    private static final int WORDS = 6;
+
+    // sorted; the container of years[i] is words[i * WORDS] to words[i * WORDS + WORDS - 1]
+    private transient int[] years = new int[4];
+    private transient long[] words = new long[4 * WORDS];
+    private transient int size;
+
+    public DateRangeSet() {
+    }
+
+    public DateRangeSet(Collection<DateRange> ranges) {
+        for (DateRange dr : ranges) {
+            add(dr);
+        }
+    }
+
+    public DateRangeSet(DateRangeSet other) {
+        this.years = Arrays.copyOf(other.years, Math.max(4, other.size));
+        this.words = Arrays.copyOf(other.words, Math.max(4, other.size) * WORDS);
+        this.size = other.size;
+    }
+
+    /**
+     * @param packedRanges ranges packed by PackedDateRange.pack
+     */
+    public static DateRangeSet ofPacked(long[] packedRanges, int count) {
+        DateRangeSet set = new DateRangeSet();
+        for (int i = 0; i < count; i++) {
+            set.add(PackedDateRange.fromDay(packedRanges[i]), PackedDateRange.toDay(packedRanges[i]));
+        }
+        return set;
+    }
+
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(words, 0);
+    }
+
+    /**
+     * The number of days in the set.
+     */
+    public long cardinality() {
+        long days = 0;
+        for (int i = 0; i < size * WORDS; i++) {
+            days += Long.bitCount(words[i]);
+        }
+        return days;
+    }
+
+    public void add(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        if (null != p) {
+            add(p.getFromDay(), p.getToDay());
+        }
+    }
+
+    public void add(int fromDay, int toDay) {
+        for (int year = DateUtil.yearOfEpochDay(fromDay); fromDay <= toDay; year++) {
+            int first = DateUtil.firstEpochDayOfYear(year);
+            int last = Math.min(toDay, DateUtil.lastEpochDayOfYear(year));
+            int i = indexOf(year);
+            if (i < 0) {
+                i = insert(-i - 1, year);
+            }
+            setBits(i * WORDS, fromDay - first, last - first);
+            if (last == toDay) {
+                break;
+            }
+            fromDay = last + 1;
+        }
+    }
+
+    public void remove(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        if (null != p) {
+            remove(p.getFromDay(), p.getToDay());
+        }
+    }
+
+    public void remove(int fromDay, int toDay) {
+        if ((fromDay > toDay) || (0 == size)) {
+            return;
+        }
+        // only the years in the set need looking at
+        int from = Math.max(fromDay, DateUtil.firstEpochDayOfYear(years[0]));
+        int to = Math.min(toDay, DateUtil.lastEpochDayOfYear(years[size - 1]));
+        for (int year = DateUtil.yearOfEpochDay(from); from <= to; year++) {
+            int first = DateUtil.firstEpochDayOfYear(year);
+            int last = Math.min(to, DateUtil.lastEpochDayOfYear(year));
+            int i = indexOf(year);
+            if (i >= 0) {
+                clearBits(i * WORDS, from - first, last - first);
+            }
+            from = last + 1;
+        }
+        compact();
+    }
+
+    public boolean contains(int day) {
+        int year = DateUtil.yearOfEpochDay(day);
+        int i = indexOf(year);
+        if (i < 0) {
+            return false;
+        }
+        int bit = day - DateUtil.firstEpochDayOfYear(year);
+        return (words[i * WORDS + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * True if every day of the range is in the set.  False for an incomplete or empty range.
+     */
+    public boolean contains(DateRange dr) {
+        PackedDateRange p = PackedDateRange.of(dr);
+        return (null != p) && !p.isEmpty() && (count(p.getFromDay(), p.getToDay()) == p.length());
+    }
+
+    /**
+     * The number of days of [fromDay, toDay] in the set.
+     */
+    public int count(int fromDay, int toDay) {
+        if ((fromDay > toDay) || (0 == size)) {
+            return 0;
+        }
+        int from = Math.max(fromDay, DateUtil.firstEpochDayOfYear(years[0]));
+        int to = Math.min(toDay, DateUtil.lastEpochDayOfYear(years[size - 1]));
+        int days = 0;
+        for (int year = DateUtil.yearOfEpochDay(from); from <= to; year++) {
+            int first = DateUtil.firstEpochDayOfYear(year);
+            int last = Math.min(to, DateUtil.lastEpochDayOfYear(year));
+            int i = indexOf(year);
+            if (i >= 0) {
+                days += countBits(i * WORDS, from - first, last - first);
+            }
+            from = last + 1;
+        }
+        return days;
+    }
+
+    /**
+     * The days in this set or the other, as a new set.
+     */
+    public DateRangeSet union(DateRangeSet other) {
+        DateRangeSet result = new DateRangeSet(this);
+        result.addAll(other);
+        return result;
+    }
+
+    /**
+     * The days in both sets, as a new set.
+     */
+    public DateRangeSet intersect(DateRangeSet other) {
+        DateRangeSet result = new DateRangeSet(this);
+        result.retainAll(other);
+        return result;
+    }
+
+    /**
+     * The days in this set that aren't in the other, as a new set.
+     */
+    public DateRangeSet minus(DateRangeSet other) {
+        DateRangeSet result = new DateRangeSet(this);
+        result.removeAll(other);
+        return result;
+    }
+
+    /**
+     * Adds the other set's days to this one.
+     */
+    public void addAll(DateRangeSet other) {
+        int n = 0;
+        int[] y = new int[Math.max(4, size + other.size)];
+        long[] w = new long[y.length * WORDS];
+        int i = 0;
+        int j = 0;
+        while ((i < size) || (j < other.size)) {
+            if ((j == other.size) || ((i < size) && (years[i] < other.years[j]))) {
+                y[n] = years[i];
+                System.arraycopy(words, i++ * WORDS, w, n++ * WORDS, WORDS);
+            } else if ((i == size) || (other.years[j] < years[i])) {
+                y[n] = other.years[j];
+                System.arraycopy(other.words, j++ * WORDS, w, n++ * WORDS, WORDS);
+            } else {
+                y[n] = years[i];
+                for (int k = 0; k < WORDS; k++) {
+                    w[n * WORDS + k] = words[i * WORDS + k] | other.words[j * WORDS + k];
+                }
+                i++;
+                j++;
+                n++;
+            }
+        }
+        years = y;
+        words = w;
+        size = n;
+    }
+
+    /**
+     * Keeps only the days that are in the other set too.
+     */
+    public void retainAll(DateRangeSet other) {
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while ((j < other.size) && (other.years[j] < years[i])) {
+                j++;
+            }
+            if ((j == other.size) || (other.years[j] != years[i])) {
+                continue;
+            }
+            long any = 0;
+            for (int k = 0; k < WORDS; k++) {
+                long x = words[i * WORDS + k] & other.words[j * WORDS + k];
+                words[n * WORDS + k] = x;
+                any |= x;
+            }
+            if (0 != any) {
+                years[n++] = years[i];
+            }
+        }
+        Arrays.fill(words, n * WORDS, size * WORDS, 0);
+        size = n;
+    }
+
+    /**
+     * Takes the other set's days out of this one.
+     */
+    public void removeAll(DateRangeSet other) {
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while ((j < other.size) && (other.years[j] < years[i])) {
+                j++;
+            }
+            boolean both = (j < other.size) && (other.years[j] == years[i]);
+            long any = 0;
+            for (int k = 0; k < WORDS; k++) {
+                long x = both ? words[i * WORDS + k] & ~other.words[j * WORDS + k] : words[i * WORDS + k];
+                words[n * WORDS + k] = x;
+                any |= x;
+            }
+            if (0 != any) {
+                years[n++] = years[i];
+            }
+        }
+        Arrays.fill(words, n * WORDS, size * WORDS, 0);
+        size = n;
+    }
+
+    /**
+     * The coalesced ranges in order, packed by PackedDateRange.pack.
+     */
+    public long[] toPackedRanges() {
+        long[] ranges = new long[Math.max(4, size)];
+        int n = 0;
+        int runFrom = 0;
+        int runTo = 0;
+        boolean open = false;
+        for (int i = 0; i < size; i++) {
+            int first = DateUtil.firstEpochDayOfYear(years[i]);
+            for (int k = 0; k < WORDS; k++) {
+                long word = words[i * WORDS + k];
+                while (0 != word) {
+                    int start = Long.numberOfTrailingZeros(word);
+                    int end = Long.numberOfTrailingZeros(~word & (-1L << start));
+                    // end is 64 when the run reaches the top of the word
+                    word = (64 == end) ? 0 : word & (-1L << end);
+                    int from = first + k * 64 + start;
+                    int to = first + k * 64 + end - 1;
+                    if (open && (runTo + 1 == from)) {
+                        runTo = to;
+                        continue;
+                    }
+                    if (open) {
+                        if (n == ranges.length) {
+                            ranges = Arrays.copyOf(ranges, n + (n >> 1));
+                        }
+                        ranges[n++] = PackedDateRange.pack(runFrom, runTo);
+                    }
+                    runFrom = from;
+                    runTo = to;
+                    open = true;
+                }
+            }
+        }
+        if (open) {
+            if (n == ranges.length) {
+                ranges = Arrays.copyOf(ranges, n + 1);
+            }
+            ranges[n++] = PackedDateRange.pack(runFrom, runTo);
+        }
+        return Arrays.copyOf(ranges, n);
+    }
+
+    /**
+     * The coalesced ranges in order, as new DateRanges.
+     */
+    public List<DateRange> toDateRanges() {
+        long[] packed = toPackedRanges();
+        List<DateRange> ranges = new ArrayList<DateRange>(packed.length);
+        for (long p : packed) {
+            ranges.add(PackedDateRange.ofPacked(p).toDateRange());
+        }
+        return ranges;
+    }
+
+    /**
+     * Over the coalesced ranges as they are when this is called.
+     */
+    @Override
+    public Iterator<DateRange> iterator() {
+        final long[] packed = toPackedRanges();
+        return new Iterator<DateRange>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < packed.length;
+            }
+
+            @Override
+            public DateRange next() {
+                if (next >= packed.length) {
+                    throw new NoSuchElementException();
+                }
+                return PackedDateRange.ofPacked(packed[next++]).toDateRange();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private int indexOf(int year) {
+        return Arrays.binarySearch(years, 0, size, year);
+    }
+
+    private int insert(int i, int year) {
+        if (size == years.length) {
+            years = Arrays.copyOf(years, size * 2);
+            words = Arrays.copyOf(words, size * 2 * WORDS);
+        }
+        System.arraycopy(years, i, years, i + 1, size - i);
+        System.arraycopy(words, i * WORDS, words, (i + 1) * WORDS, (size - i) * WORDS);
+        years[i] = year;
+        Arrays.fill(words, i * WORDS, (i + 1) * WORDS, 0);
+        size++;
+        return i;
+    }
+
+    // drops the years that have no days left
+    private void compact() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            long any = 0;
+            for (int k = 0; k < WORDS; k++) {
+                any |= words[i * WORDS + k];
+            }
+            if (0 != any) {
+                if (n != i) {
+                    years[n] = years[i];
+                    System.arraycopy(words, i * WORDS, words, n * WORDS, WORDS);
+                }
+                n++;
+            }
+        }
+        Arrays.fill(words, n * WORDS, size * WORDS, 0);
+        size = n;
+    }
+
+    // mask of the bits lo to hi (inclusive) of word k, where lo and hi are bits of the whole container
+    private static long mask(int k, int lo, int hi) {
+        int from = Math.max(lo - k * 64, 0);
+        int to = Math.min(hi - k * 64, 63);
+        if (from > to) {
+            return 0;
+        }
+        return (-1L << from) & (-1L >>> (63 - to));
+    }
+
+    private void setBits(int base, int lo, int hi) {
+        for (int k = lo >>> 6; k <= hi >>> 6; k++) {
+            words[base + k] |= mask(k, lo, hi);
+        }
+    }
+
+    private void clearBits(int base, int lo, int hi) {
+        for (int k = lo >>> 6; k <= hi >>> 6; k++) {
+            words[base + k] &= ~mask(k, lo, hi);
+        }
+    }
+
+    private int countBits(int base, int lo, int hi) {
+        int bits = 0;
+        for (int k = lo >>> 6; k <= hi >>> 6; k++) {
+            bits += Long.bitCount(words[base + k] & mask(k, lo, hi));
+        }
+        return bits;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(years[i]);
+            for (int k = 0; k < WORDS; k++) {
+                out.writeLong(words[i * WORDS + k]);
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        size = in.readInt();
+        years = new int[Math.max(4, size)];
+        words = new long[years.length * WORDS];
+        for (int i = 0; i < size; i++) {
+            years[i] = in.readInt();
+            for (int k = 0; k < WORDS; k++) {
+                words[i * WORDS + k] = in.readLong();
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DateRangeSet)) {
+            return false;
+        }
+        DateRangeSet other = (DateRangeSet) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (years[i] != other.years[i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < size * WORDS; i++) {
+            if (words[i] != other.words[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + years[i];
+            for (int k = 0; k < WORDS; k++) {
+                long w = words[i * WORDS + k];
+                h = 31 * h + (int) (w ^ (w >>> 32));
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("DateRangeSet[");
+        long[] ranges = toPackedRanges();
+        for (int i = 0; i < ranges.length; i++) {
+            sb.append((0 == i) ? "" : ", ").append(PackedDateRange.dayToString(PackedDateRange.fromDay(ranges[i])))
+                    .append("..").append(PackedDateRange.dayToString(PackedDateRange.toDay(ranges[i])));
+        }
+        return sb.append(']').toString();
+    }
+}
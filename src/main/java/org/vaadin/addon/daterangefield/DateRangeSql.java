@@ -0,0 +1,97 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.util.filter.And;
+import com.vaadin.data.util.filter.Compare;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pushes a date range down to the database, as half-open bounds (see DateRangeBounds): a filter for a
+ * SQLContainer, which its query generators turn into "column >= ? AND column < ?", or the same as a plain SQL
+ * fragment with its parameters for hand written queries.
+ */
+public final class DateRangeSql {
+
+    /**
+     * A piece of a WHERE clause and the values of its ? placeholders, in order.
+     */
+    public static final class Fragment implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String sql;
+        private final List<Object> parameters;
+
+        Fragment(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = Collections.unmodifiableList(parameters);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        @Override
+        public String toString() {
+            return sql + " " + parameters;
+        }
+    }
+
+    private DateRangeSql() {
+    }
+
+    /**
+     * A filter for a SQLContainer (or any container) on the date property, null if both ends are open.
+     */
+    public static Container.Filter filter(Object propertyId, DateRangeBounds bounds) {
+        Container.Filter start = bounds.hasStart()
+                ? new Compare.GreaterOrEqual(propertyId, new Timestamp(bounds.getStart().getTime())) : null;
+        Container.Filter end = bounds.hasEnd()
+                ? new Compare.Less(propertyId, new Timestamp(bounds.getEnd().getTime())) : null;
+        if ((null != start) && (null != end)) {
+            return new And(start, end);
+        }
+        return (null != start) ? start : end;
+    }
+
+    public static Container.Filter filter(Object propertyId, DateRange range) {
+        return filter(propertyId, DateRangeBounds.of(range));
+    }
+
+    /**
+     * The bounds as a condition on the column, its parameters Timestamps.  The column is put in as given, so quote
+     * it yourself if needed and never pass user input.  Both ends open gives "1 = 1".
+     */
+    public static Fragment fragment(String column, DateRangeBounds bounds) {
+        List<Object> parameters = new ArrayList<Object>(2);
+        StringBuilder sql = new StringBuilder();
+        if (bounds.hasStart()) {
+            sql.append(column).append(" >= ?");
+            parameters.add(new Timestamp(bounds.getStart().getTime()));
+        }
+        if (bounds.hasEnd()) {
+            if (sql.length() > 0) {
+                sql.append(" AND ");
+            }
+            sql.append(column).append(" < ?");
+            parameters.add(new Timestamp(bounds.getEnd().getTime()));
+        }
+        if (sql.length() == 0) {
+            sql.append("1 = 1");
+        }
+        return new Fragment(sql.toString(), parameters);
+    }
+
+    public static Fragment fragment(String column, DateRange range) {
+        return fragment(column, DateRangeBounds.of(range));
+    }
+}
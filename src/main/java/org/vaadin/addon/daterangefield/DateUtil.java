@@ -1,52 +1,220 @@
 package org.vaadin.addon.daterangefield;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
 import java.io.Serializable;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
 public class DateUtil implements Serializable {
 
+    public static final long MILLIS_PER_DAY = 86400000L;
+
+    private static volatile DateClock clock = DateClock.SYSTEM;
+
+    public static DateClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Where today and the current year come from, for all fields.  Null goes back to DateClock.SYSTEM.
+     */
+    public static void setClock(DateClock clock) {
+        DateUtil.clock = (null == clock) ? DateClock.SYSTEM : clock;
+    }
+
     public static boolean isAfter(Date isThisDateAfter, Date thisDate) {
-        DateTime d1 = new DateTime(isThisDateAfter);
-        DateTime d2 = new DateTime(thisDate);
-        return (d1.withTimeAtStartOfDay().isAfter(d2.withTimeAtStartOfDay()));
+        return isDayAfter(dayOrToday(isThisDateAfter), dayOrToday(thisDate));
     }
 
     public static boolean isBefore(Date isThisDateBefore, Date thisDate) {
-        return isBefore(new DateTime(isThisDateBefore), new DateTime(thisDate));
+        return isDayBefore(dayOrToday(isThisDateBefore), dayOrToday(thisDate));
     }
 
     public static boolean isOnOrBefore(Date isThisDateOnOrBefore, Date thisDate) {
-        return isOnOrBefore(new DateTime(isThisDateOnOrBefore), new DateTime(thisDate));
+        return isDayOnOrBefore(dayOrToday(isThisDateOnOrBefore), dayOrToday(thisDate));
     }
 
     public static boolean isOnOrAfter(Date isThisDateOnOrAfter, Date thisDate) {
-        return isOnOrAfter(new DateTime(isThisDateOnOrAfter), new DateTime(thisDate));
+        return isDayOnOrAfter(dayOrToday(isThisDateOnOrAfter), dayOrToday(thisDate));
     }
 
     public static boolean isBetweenInclusive(Date date, Date startDate, Date endDate) {
-        return isOnOrAfter(date, startDate) && isOnOrBefore(date, endDate);
+        return isDayBetweenInclusive(dayOrToday(date), dayOrToday(startDate), dayOrToday(endDate));
     }
 
     public static boolean isBetweenNotInclusive(Date date, Date startDate, Date endDate) {
-        return isAfter(date, startDate) && isBefore(date, endDate);
+        return isDayBetweenNotInclusive(dayOrToday(date), dayOrToday(startDate), dayOrToday(endDate));
+    }
+
+    /*
+     * Epoch-day core.  A day is the number of days since 1970-01-01 in the default time zone, which is what
+     * withTimeAtStartOfDay() normalizes to.  Starts of days come from the zone's cached DayBoundaries.  None of
+     * these methods allocate, except toDate for the Date itself.
+     */
+
+    /**
+     * Returns the local day (in the default time zone) of the given instant as days since 1970-01-01.
+     */
+    public static int toEpochDay(long millis) {
+        long local = millis + DateTimeZone.getDefault().getOffset(millis);
+        return (int) floorDiv(local, MILLIS_PER_DAY);
+    }
+
+    public static int toEpochDay(Date d) {
+        return toEpochDay(d.getTime());
+    }
+
+    public static int todayEpochDay() {
+        return clock.todayEpochDay();
+    }
+
+    /**
+     * The Date based methods have always treated a null date as "now" (that is what new DateTime(null) does), so
+     * keep doing that.
+     */
+    static int dayOrToday(Date d) {
+        return (null == d) ? todayEpochDay() : toEpochDay(d.getTime());
+    }
+
+    /**
+     * The start of the given epoch day in the default time zone, the inverse of toEpochDay(Date).
+     */
+    public static Date toDate(int epochDay) {
+        return new Date(DayBoundaries.forDefaultZone().startOf(epochDay));
+    }
+
+    public static boolean isDayAfter(int isThisDayAfter, int thisDay) {
+        return isThisDayAfter > thisDay;
+    }
+
+    public static boolean isDayBefore(int isThisDayBefore, int thisDay) {
+        return isThisDayBefore < thisDay;
+    }
+
+    public static boolean isDayOnOrAfter(int isThisDayOnOrAfter, int thisDay) {
+        return isThisDayOnOrAfter >= thisDay;
+    }
+
+    public static boolean isDayOnOrBefore(int isThisDayOnOrBefore, int thisDay) {
+        return isThisDayOnOrBefore <= thisDay;
+    }
+
+    public static boolean isDayBetweenInclusive(int day, int startDay, int endDay) {
+        return day >= startDay && day <= endDay;
+    }
+
+    public static boolean isDayBetweenNotInclusive(int day, int startDay, int endDay) {
+        return day > startDay && day < endDay;
+    }
+
+    public static boolean isDayInYear(int day, int year) {
+        return yearOfEpochDay(day) == year;
+    }
+
+    /**
+     * Days since 1970-01-01 of the given (proleptic Gregorian) date.  Month is 1-12.
+     */
+    public static int epochDay(int year, int month, int dayOfMonth) {
+        // see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+        int y = (month <= 2) ? year - 1 : year;
+        int era = (int) floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int mp = (month + 9) % 12;
+        int doy = (153 * mp + 2) / 5 + dayOfMonth - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    public static int firstEpochDayOfYear(int year) {
+        return epochDay(year, 1, 1);
+    }
+
+    public static int lastEpochDayOfYear(int year) {
+        return epochDay(year, 12, 31);
+    }
+
+    public static int yearOfEpochDay(int day) {
+        int z = day + 719468;
+        int era = (int) floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int y = yoe + era * 400;
+        return (mp >= 10) ? y + 1 : y;
+    }
+
+    public static int monthOfEpochDay(int day) {
+        int mp = marchBasedMonth(day);
+        return (mp < 10) ? mp + 3 : mp - 9;
+    }
+
+    public static int dayOfMonthOfEpochDay(int day) {
+        int doy = marchBasedDayOfYear(day);
+        int mp = (5 * doy + 2) / 153;
+        return doy - (153 * mp + 2) / 5 + 1;
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0));
+    }
+
+    public static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return isLeapYear(year) ? 29 : 28;
+        }
+        return ((month == 4) || (month == 6) || (month == 9) || (month == 11)) ? 30 : 31;
+    }
+
+    /**
+     * Moves the day to the same month and day of month in newYear.  Like the Date version this rejects Feb 29 when
+     * newYear is not a leap year.
+     */
+    public static int sameDayDifferentYear(int day, int newYear) {
+        int month = monthOfEpochDay(day);
+        int dayOfMonth = dayOfMonthOfEpochDay(day);
+        if (dayOfMonth > daysInMonth(newYear, month)) {
+            throw new IllegalArgumentException("No day " + dayOfMonth + " in month " + month + " of " + newYear);
+        }
+        return epochDay(newYear, month, dayOfMonth);
+    }
+
+    private static int marchBasedDayOfYear(int day) {
+        int z = day + 719468;
+        int era = (int) floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        return doe - (365 * yoe + yoe / 4 - yoe / 100);
+    }
+
+    private static int marchBasedMonth(int day) {
+        return (5 * marchBasedDayOfYear(day) + 2) / 153;
+    }
+
+    static long floorDiv(long x, long y) {
+        long q = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            q--;
+        }
+        return q;
     }
 
     public static boolean isOnOrAfter(final DateTime isThisDateOnOrAfter, final DateTime thisDate) {
-        return !((null == isThisDateOnOrAfter) || (null == thisDate)) && ((isThisDateOnOrAfter.withTimeAtStartOfDay()
-                .isEqual(thisDate.withTimeAtStartOfDay())) || (isThisDateOnOrAfter.withTimeAtStartOfDay().isAfter
-                (thisDate.withTimeAtStartOfDay())));
+        return !((null == isThisDateOnOrAfter) || (null == thisDate))
+                && (startOfDay(isThisDateOnOrAfter) >= startOfDay(thisDate));
     }
 
     public static boolean isOnOrBefore(final DateTime isThisDateOnOrBefore, final DateTime thisDate) {
-        return !((null == isThisDateOnOrBefore) || (null == thisDate)) && ((isThisDateOnOrBefore.withTimeAtStartOfDay
-                ().isEqual(thisDate.withTimeAtStartOfDay())) || (isThisDateOnOrBefore.withTimeAtStartOfDay().isBefore
-                (thisDate.withTimeAtStartOfDay())));
+        return !((null == isThisDateOnOrBefore) || (null == thisDate))
+                && (startOfDay(isThisDateOnOrBefore) <= startOfDay(thisDate));
+    }
+
+    // the instant dt.withTimeAtStartOfDay() is at, in dt's own zone
+    private static long startOfDay(DateTime dt) {
+        DayBoundaries boundaries = DayBoundaries.forZone(dt.getZone());
+        return boundaries.startOf(boundaries.epochDay(dt.getMillis()));
     }
 
     public static boolean isBefore(final DateTime isThisDateBefore, final DateTime thisDate) {
@@ -54,46 +222,44 @@ public class DateUtil implements Serializable {
     }
 
     public static int currentYear() {
-        return DateTime.now().getYear();
+        return clock.currentYear();
     }
 
+    /**
+     * The start of today.
+     */
     public static Date now() {
-        return DateTime.now().withTimeAtStartOfDay().toDate();
+        return clock.today();
     }
 
     public static boolean isInYear(final Date d, final int year) {
-        DateTime dt = new DateTime(d);
-        return dt.getYear() == year;
+        return isDayInYear(dayOrToday(d), year);
     }
 
     public static Date firstDayOfYear(final int year) {
-        DateTime dt = new DateTime(year, 1, 1, 0, 0);
-        return dt.withTimeAtStartOfDay().toDate();
+        return toDate(firstEpochDayOfYear(year));
     }
 
     public static Date lastDayOfYear(final int year) {
-        DateTime dt = new DateTime(year, 12, 31, 0, 0);
-        return dt.withTimeAtStartOfDay().toDate();
+        return toDate(lastEpochDayOfYear(year));
     }
 
+    /**
+     * Throws IllegalArgumentException for Feb 29 when newYear is not a leap year.
+     */
     public static Date sameDayDifferentYear(final Date d, final int newYear) {
-        DateTime dt = new DateTime(d);
-        DateTime newDate = new DateTime(newYear, dt.getMonthOfYear(), dt.getDayOfMonth(), 0, 0);
-        return newDate.withTimeAtStartOfDay().toDate();
+        return toDate(sameDayDifferentYear(dayOrToday(d), newYear));
     }
 
+    /**
+     * Returns null if the string doesn't match the pattern (dd-MMM-yyyy if null).  See DateParser, which this uses,
+     * for the cached formatters and for trying several patterns.
+     */
     public static Date stringToDate(final String dateString, String pattern, final Locale locale) {
         if (null == pattern) {
-            pattern = "dd-MMM-yyyy";
-        }
-        DateFormat fmt = new SimpleDateFormat(pattern, locale);
-        Date d = null;
-        try {
-            return fmt.parse(dateString);
-        } catch (ParseException e) {
-            return null;
-            //throw new Converter.ConversionException(e);
+            pattern = DateParser.DEFAULT_PATTERN;
         }
+        return DateParser.parse(dateString, pattern, locale);
     }
 
 }
\ No newline at end of file
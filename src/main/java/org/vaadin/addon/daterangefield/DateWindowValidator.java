@@ -0,0 +1,115 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.validator.AbstractValidator;
+import com.vaadin.ui.Field;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Checks every DateRangeField rule for the from or the to date at once: the dates are in order, in the selected
+ * year, and within the min and max year.  The rules themselves are in DateRangeRules, with the constant bounds
+ * precompiled, so a valid date costs a few int comparisons.  Only when the date is invalid are the broken rules
+ * turned into the same messages the separate validators used to give.
+ */
+public class DateWindowValidator extends AbstractValidator<Date> implements ValidatorDependencies {
+
+    public static final String FROM_AFTER_TO_MESSAGE = "Start date cannot be after the end date";
+    public static final String TO_BEFORE_FROM_MESSAGE = "End date cannot be before the start date";
+    public static final String FROM_NOT_IN_YEAR_MESSAGE = "From date not in the specified year";
+    public static final String TO_NOT_IN_YEAR_MESSAGE = "To date not in the specified year";
+
+    DateRangeRules rules;
+    boolean isFromDate;
+    Field otherField;
+    Field yearField;
+
+    /**
+     * @param isFromDate     true to validate the from date, false for the to date
+     * @param otherDateField the other end of the range
+     */
+    public DateWindowValidator(DateRangeRules rules, boolean isFromDate, Field<?> otherDateField,
+                               Field<?> yearField) {
+        super(isFromDate ? FROM_AFTER_TO_MESSAGE : TO_BEFORE_FROM_MESSAGE);
+        this.rules = rules;
+        this.isFromDate = isFromDate;
+        this.otherField = otherDateField;
+        this.yearField = yearField;
+    }
+
+    @Override
+    protected boolean isValidValue(Date value) {
+        return DateRangeRules.VALID == check(rules, isFromDate, value, (Date) otherField.getValue(),
+                (Integer) yearField.getValue());
+    }
+
+    @Override
+    public void validate(Object value) throws InvalidValueException {
+        if (!isValidType(value)) {
+            super.validate(value);
+        }
+        InvalidValueException error = error(rules, isFromDate, (Date) value, (Date) otherField.getValue(),
+                (Integer) yearField.getValue(), getErrorMessage());
+        if (null != error) {
+            throw error;
+        }
+    }
+
+    // the codes of the rules this end breaks, null dates meaning today and a null year any year
+    static int check(DateRangeRules rules, boolean isFromDate, Date value, Date otherValue, Integer year) {
+        int day = DateUtil.dayOrToday(value);
+        int other = DateUtil.dayOrToday(otherValue);
+        int y = (null == year) ? DateRangeRules.ANY_YEAR : year;
+        if (isFromDate) {
+            return rules.check(day, other, y) & DateRangeRules.FROM_CODES;
+        }
+        return rules.check(other, day, y) & DateRangeRules.TO_CODES;
+    }
+
+    /**
+     * The error this validator would throw for the given values, or null.  DateRangeField uses this directly for
+     * lightweight fields, which have no validator objects of their own.
+     */
+    static InvalidValueException error(DateRangeRules rules, boolean isFromDate, Date value, Date otherValue,
+                                       Integer year, String orderMessage) {
+        int codes = check(rules, isFromDate, value, otherValue, year);
+        if (DateRangeRules.VALID == codes) {
+            return null;
+        }
+        DateRangeConstraints constraints = rules.getConstraints();
+        List<InvalidValueException> errors = new ArrayList<InvalidValueException>(2);
+        if ((codes & DateRangeRules.FROM_AFTER_TO) != 0) {
+            errors.add(new InvalidValueException(orderMessage));
+        }
+        if ((codes & (DateRangeRules.FROM_NOT_IN_YEAR | DateRangeRules.TO_NOT_IN_YEAR)) != 0) {
+            errors.add(new InvalidValueException(isFromDate ? FROM_NOT_IN_YEAR_MESSAGE : TO_NOT_IN_YEAR_MESSAGE));
+        }
+        if ((codes & (DateRangeRules.FROM_BEFORE_MIN_YEAR | DateRangeRules.TO_BEFORE_MIN_YEAR)) != 0) {
+            errors.add(new InvalidValueException(isFromDate ? constraints.fromMinYearMessage
+                    : constraints.toMinYearMessage));
+        }
+        if ((codes & (DateRangeRules.FROM_AFTER_MAX_YEAR | DateRangeRules.TO_AFTER_MAX_YEAR)) != 0) {
+            errors.add(new InvalidValueException(isFromDate ? constraints.fromMaxYearMessage
+                    : constraints.toMaxYearMessage));
+        }
+        // one message per broken rule, combined the way AbstractField combines several validators
+        if (errors.size() == 1) {
+            return errors.get(0);
+        }
+        return new InvalidValueException(null, errors.toArray(new InvalidValueException[errors.size()]));
+    }
+
+    /**
+     * Also depends on the constraints, which DateRangeField handles itself.
+     */
+    @Override
+    public Field<?>[] getDependsOnFields() {
+        return new Field<?>[]{otherField, yearField};
+    }
+
+    @Override
+    public Class<Date> getType() {
+        return Date.class;
+    }
+}
@@ -0,0 +1,108 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.validator.AbstractValidator;
+import com.vaadin.ui.Field;
+
+import java.util.Date;
+
+/**
+ * What BeforeValidator and AfterValidator have in common: the bound, either a constant day or a value from a
+ * ValueSupplier, and the sharing of constant-bound ones through ValidatorCache.  Subclasses only compare the days.
+ */
+abstract class DayBoundValidator extends AbstractValidator<Date> implements ValidatorDependencies {
+    final boolean compareToValue;
+    final boolean allowOnTheDate;
+    final ValueSupplier<Date> otherValue;
+    // a null constant means "today", which moves, so it can't be precomputed
+    final boolean today;
+    final int constantDay;
+    // handed out by of(...), so its message can't change
+    private boolean shared;
+
+    DayBoundValidator(String message, ValueSupplier<Date> otherValue, boolean allowOnTheDate) {
+        super(message);
+        this.compareToValue = true;
+        this.allowOnTheDate = allowOnTheDate;
+        this.otherValue = otherValue;
+        this.today = false;
+        this.constantDay = 0;
+    }
+
+    DayBoundValidator(String message, int constantDay, boolean today, boolean allowOnTheDate) {
+        super(message);
+        this.compareToValue = false;
+        this.allowOnTheDate = allowOnTheDate;
+        this.otherValue = null;
+        this.today = today;
+        this.constantDay = today ? 0 : constantDay;
+    }
+
+    static int day(Date constantDate) {
+        return (null == constantDate) ? 0 : DateUtil.toEpochDay(constantDate);
+    }
+
+    static ValidatorCache.Key key(Class<? extends DayBoundValidator> kind, String message, Date constantDate,
+                                  boolean allowOnTheDate) {
+        return new ValidatorCache.Key(kind, day(constantDate), null == constantDate, allowOnTheDate, message);
+    }
+
+    /**
+     * Marks a new constant-bound validator as shared and caches it, or gives the one cached meanwhile.
+     */
+    static <V extends DayBoundValidator> V share(ValidatorCache.Key key, V validator) {
+        ((DayBoundValidator) validator).shared = true;
+        return ValidatorCache.intern(key, validator);
+    }
+
+    /**
+     * Whether the day is valid against the bound, both as epoch days.
+     */
+    abstract boolean isValidDay(int day, int bound);
+
+    @Override
+    protected boolean isValidValue(Date value) {
+        int day = DateUtil.dayOrToday(value);
+        int other;
+        if (compareToValue) {
+            other = DateUtil.dayOrToday(otherValue.getValue());
+        } else {
+            other = today ? DateUtil.todayEpochDay() : constantDay;
+        }
+        return isValidDay(day, other);
+    }
+
+    /**
+     * Not for a validator from of(...), which is shared.
+     */
+    @Override
+    public void setErrorMessage(String errorMessage) {
+        if (shared) {
+            throw new UnsupportedOperationException("A shared validator is immutable");
+        }
+        super.setErrorMessage(errorMessage);
+    }
+
+    @Override
+    public Field<?>[] getDependsOnFields() {
+        if (compareToValue) {
+            return (otherValue instanceof ValidatorDependencies)
+                    ? ((ValidatorDependencies) otherValue).getDependsOnFields() : null;
+        }
+        // today changes without telling anyone
+        return today ? null : new Field<?>[0];
+    }
+
+    // a shared validator is shared again when a session is read back
+    Object readResolve() {
+        if (!shared) {
+            return this;
+        }
+        return ValidatorCache.intern(new ValidatorCache.Key(getClass(), constantDay, today, allowOnTheDate,
+                getErrorMessage()), this);
+    }
+
+    @Override
+    public Class<Date> getType() {
+        return Date.class;
+    }
+}
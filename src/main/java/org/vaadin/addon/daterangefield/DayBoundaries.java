@@ -0,0 +1,164 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The instants local days start at in one time zone, so turning an epoch day into a Date and back is a table lookup
+ * and a comparison instead of resolving the zone rules with withTimeAtStartOfDay each time.  The start of a day is
+ * what Joda-Time's toDateTimeAtStartOfDay gives: midnight, or the first instant after a DST gap at midnight.
+ * <p/>
+ * Starts are computed on demand, 256 days at a time, for 1900 to 2100, and kept for the life of the JVM; days
+ * outside those years go to Joda-Time directly.  Where a start doesn't tell which day an instant is in, because the
+ * clocks went back over midnight or forward past it, epochDay asks the zone for the offset there instead, so the
+ * result is always the local date of the instant.  Thread safe.
+ */
+public final class DayBoundaries {
+
+    private static final int BLOCK_BITS = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    // 1900-01-01 and 2100-01-01, rounded to whole blocks
+    private static final int FIRST_BLOCK = DateUtil.epochDay(1900, 1, 1) >> BLOCK_BITS;
+    private static final int LAST_BLOCK = DateUtil.epochDay(2100, 1, 1) >> BLOCK_BITS;
+
+    private static final ConcurrentMap<DateTimeZone, DayBoundaries> ZONES =
+            new ConcurrentHashMap<DateTimeZone, DayBoundaries>();
+    // nearly always the default zone, so it doesn't need the map
+    private static volatile DayBoundaries last;
+
+    /**
+     * The starts of the days of one block and of the day after it.
+     */
+    private static final class Block {
+        final long[] starts = new long[BLOCK_SIZE + 1];
+        // some start in or next to this block isn't where the local day changes
+        boolean backwards;
+    }
+
+    private final DateTimeZone zone;
+    private final AtomicReferenceArray<Block> blocks = new AtomicReferenceArray<Block>(LAST_BLOCK - FIRST_BLOCK + 1);
+    // a guess at the offset, to start looking from
+    private final long offset;
+
+    private DayBoundaries(DateTimeZone zone) {
+        this.zone = zone;
+        this.offset = zone.getOffset(System.currentTimeMillis());
+    }
+
+    public static DayBoundaries forZone(DateTimeZone zone) {
+        DayBoundaries b = last;
+        if ((null != b) && (b.zone == zone)) {
+            return b;
+        }
+        b = ZONES.get(zone);
+        if (null == b) {
+            DayBoundaries created = new DayBoundaries(zone);
+            b = ZONES.putIfAbsent(zone, created);
+            if (null == b) {
+                b = created;
+            }
+        }
+        last = b;
+        return b;
+    }
+
+    public static DayBoundaries forDefaultZone() {
+        return forZone(DateTimeZone.getDefault());
+    }
+
+    public DateTimeZone getZone() {
+        return zone;
+    }
+
+    /**
+     * Millis at the start of the local day.
+     */
+    public long startOf(int epochDay) {
+        Block b = block(epochDay >> BLOCK_BITS);
+        return (null == b) ? computeStart(epochDay) : b.starts[epochDay & (BLOCK_SIZE - 1)];
+    }
+
+    /**
+     * The local day of the instant, as days since 1970-01-01.
+     */
+    public int epochDay(long millis) {
+        int day = (int) DateUtil.floorDiv(millis + offset, DateUtil.MILLIS_PER_DAY);
+        Block b = block(day >> BLOCK_BITS);
+        if ((null == b) || b.backwards) {
+            return localDay(millis);
+        }
+        int i = day & (BLOCK_SIZE - 1);
+        if (millis < b.starts[i]) {
+            // the offset guess was too far east
+            do {
+                day--;
+            } while (millis < startOf(day));
+        } else if (millis >= b.starts[i + 1]) {
+            do {
+                day++;
+            } while (millis >= startOf(day + 1));
+        }
+        return day;
+    }
+
+    private Block block(int blockIndex) {
+        if ((blockIndex < FIRST_BLOCK) || (blockIndex > LAST_BLOCK)) {
+            return null;
+        }
+        Block b = blocks.get(blockIndex - FIRST_BLOCK);
+        if (null == b) {
+            // two threads may both build it, which does no harm
+            b = build(blockIndex);
+            blocks.set(blockIndex - FIRST_BLOCK, b);
+        }
+        return b;
+    }
+
+    private Block build(int blockIndex) {
+        Block b = new Block();
+        int first = blockIndex << BLOCK_BITS;
+        for (int i = 0; i <= BLOCK_SIZE; i++) {
+            long start = computeStart(first + i);
+            b.starts[i] = start;
+            // Joda-Time moves a start in a gap by whole hours, which may be after the day's first instant
+            if ((localDay(start - 1) != first + i - 1) || (localDay(start) != first + i)) {
+                b.backwards = true;
+            }
+        }
+        if (b.backwards) {
+            return b;
+        }
+        // look a day either side too, as a block's first or last day may be found from its neighbour
+        long t = b.starts[0] - DateUtil.MILLIS_PER_DAY;
+        long end = b.starts[BLOCK_SIZE] + DateUtil.MILLIS_PER_DAY;
+        while (true) {
+            long next = zone.nextTransition(t);
+            if ((next == t) || (next >= end)) {
+                break;
+            }
+            // the clocks went back: the local times from after to before come twice, a problem if midnight does
+            long before = next - 1 + zone.getOffset(next - 1);
+            long after = next + zone.getOffset(next);
+            if ((after <= before)
+                    && (DateUtil.floorDiv(before, DateUtil.MILLIS_PER_DAY) * DateUtil.MILLIS_PER_DAY >= after)) {
+                b.backwards = true;
+                break;
+            }
+            t = next;
+        }
+        return b;
+    }
+
+    private int localDay(long millis) {
+        return (int) DateUtil.floorDiv(millis + zone.getOffset(millis), DateUtil.MILLIS_PER_DAY);
+    }
+
+    private long computeStart(int epochDay) {
+        return new LocalDate(epochDay * DateUtil.MILLIS_PER_DAY, DateTimeZone.UTC).toDateTimeAtStartOfDay(zone)
+                .getMillis();
+    }
+}
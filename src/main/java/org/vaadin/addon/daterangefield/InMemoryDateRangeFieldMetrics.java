@@ -0,0 +1,333 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps DateRangeField metrics in memory, to be read (scraped) by whatever reports them; toString() gives a plain
+ * text summary.  Recording takes no locks: counters are striped over cache lines so request threads don't contend
+ * on one value, and operation times go into a log-linear histogram, like HdrHistogram with 16 sub buckets per power
+ * of two, so percentiles are within about 6%.  Failures are counted by message and validator evaluations by
+ * validator class, each for up to 256 distinct keys; the rest are counted under OTHER.
+ * <p/>
+ * Reading while threads record gives a close but not an atomic snapshot.  One instance is meant to be shared by all
+ * fields, typically through DateRangeField.setDefaultMetrics.
+ */
+public class InMemoryDateRangeFieldMetrics implements DateRangeFieldMetrics {
+
+    public static final String OTHER = "(other)";
+    private static final int MAX_KEYS = 256;
+
+    /**
+     * A counter spread over one stripe per cache line, a thread always adding to the same stripe.
+     */
+    static final class StripedCounter {
+        // longs per 64 byte cache line
+        private static final int PAD = 8;
+
+        private final AtomicLongArray cells;
+        private final int mask;
+
+        StripedCounter(int stripes) {
+            this.cells = new AtomicLongArray(stripes * PAD);
+            this.mask = stripes - 1;
+        }
+
+        void add(long x) {
+            long id = Thread.currentThread().getId();
+            int stripe = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            cells.addAndGet(stripe * PAD, x);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < cells.length(); i += PAD) {
+                sum += cells.get(i);
+            }
+            return sum;
+        }
+
+        void reset() {
+            for (int i = 0; i < cells.length(); i += PAD) {
+                cells.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Nanosecond latencies in log-linear buckets: values below 16 exactly, above that 16 buckets per power of two.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+        private final StripedCounter count;
+        private final StripedCounter total;
+
+        LatencyHistogram(int stripes) {
+            this.count = new StripedCounter(stripes);
+            this.total = new StripedCounter(stripes);
+        }
+
+        void record(long nanos) {
+            long v = Math.max(0, nanos);
+            counts.incrementAndGet(bucket(v));
+            count.add(1);
+            total.add(v);
+            long m = max.get();
+            while ((v > m) && !max.compareAndSet(m, v)) {
+                m = max.get();
+            }
+        }
+
+        static int bucket(long v) {
+            if (v < SUB) {
+                return (int) v;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+            return (exp - SUB_BITS + 1) * SUB + sub;
+        }
+
+        // the largest value that falls in the bucket
+        static long highestValue(int bucket) {
+            if (bucket < SUB) {
+                return bucket;
+            }
+            int exp = bucket / SUB + SUB_BITS - 1;
+            long lowest = (long) (SUB + bucket % SUB) << (exp - SUB_BITS);
+            return lowest + (1L << (exp - SUB_BITS)) - 1;
+        }
+
+        long valueAtPercentile(double percentile) {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                n += counts.get(i);
+            }
+            if (0 == n) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= target) {
+                    return Math.min(highestValue(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            max.set(0);
+            count.reset();
+            total.reset();
+        }
+    }
+
+    private final boolean timing;
+    private final LatencyHistogram[] operations = new LatencyHistogram[Operation.values().length];
+    private final StripedCounter valueChanges;
+    private final StripedCounter subFieldValidations;
+    private final StripedCounter invalidSubFields;
+    private final ConcurrentMap<String, AtomicLong> failures = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<String, AtomicLong> validatorEvaluations = new ConcurrentHashMap<String, AtomicLong>();
+    private final ConcurrentMap<String, AtomicLong> validatorNanos = new ConcurrentHashMap<String, AtomicLong>();
+
+    public InMemoryDateRangeFieldMetrics() {
+        this(true);
+    }
+
+    /**
+     * @param timing false to only count, so the fields never read the clock
+     */
+    public InMemoryDateRangeFieldMetrics(boolean timing) {
+        this.timing = timing;
+        int stripes = 1;
+        while (stripes < 2 * Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new LatencyHistogram(stripes);
+        }
+        this.valueChanges = new StripedCounter(stripes);
+        this.subFieldValidations = new StripedCounter(stripes);
+        this.invalidSubFields = new StripedCounter(stripes);
+    }
+
+    @Override
+    public boolean isTiming() {
+        return timing;
+    }
+
+    @Override
+    public void operation(Operation operation, long nanos) {
+        operations[operation.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void validatorEvaluated(Validator validator, long nanos) {
+        String key = validator.getClass().getName();
+        counter(validatorEvaluations, key).incrementAndGet();
+        if (timing) {
+            counter(validatorNanos, key).addAndGet(nanos);
+        }
+    }
+
+    @Override
+    public void subFieldValidated(boolean valid) {
+        subFieldValidations.add(1);
+        if (!valid) {
+            invalidSubFields.add(1);
+        }
+    }
+
+    @Override
+    public void validationFailed(String message) {
+        counter(failures, (null == message) ? OTHER : message).incrementAndGet();
+    }
+
+    @Override
+    public void valueChanged() {
+        valueChanges.add(1);
+    }
+
+    private static AtomicLong counter(ConcurrentMap<String, AtomicLong> map, String key) {
+        AtomicLong c = map.get(key);
+        if (null != c) {
+            return c;
+        }
+        if (map.size() >= MAX_KEYS) {
+            // racing threads may add a few more keys, which is fine
+            key = OTHER;
+        }
+        AtomicLong created = new AtomicLong();
+        c = map.putIfAbsent(key, created);
+        return (null == c) ? created : c;
+    }
+
+    private static Map<String, Long> snapshot(ConcurrentMap<String, AtomicLong> map) {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> e : map.entrySet()) {
+            result.put(e.getKey(), e.getValue().get());
+        }
+        return result;
+    }
+
+    public long getCount(Operation operation) {
+        return operations[operation.ordinal()].count.sum();
+    }
+
+    public long getTotalNanos(Operation operation) {
+        return operations[operation.ordinal()].total.sum();
+    }
+
+    public long getMaxNanos(Operation operation) {
+        return operations[operation.ordinal()].max.get();
+    }
+
+    /**
+     * E.g. 99 for the 99th percentile.  0 if nothing was recorded.
+     */
+    public long getNanosAtPercentile(Operation operation, double percentile) {
+        return operations[operation.ordinal()].valueAtPercentile(percentile);
+    }
+
+    public long getValueChanges() {
+        return valueChanges.sum();
+    }
+
+    public long getSubFieldValidations() {
+        return subFieldValidations.sum();
+    }
+
+    public long getInvalidSubFields() {
+        return invalidSubFields.sum();
+    }
+
+    /**
+     * Failures by message, sorted by message.
+     */
+    public Map<String, Long> getFailures() {
+        return snapshot(failures);
+    }
+
+    /**
+     * The share of sub field validations that failed with the message.
+     */
+    public double getFailureRate(String message) {
+        AtomicLong c = failures.get(message);
+        long validations = subFieldValidations.sum();
+        return ((null == c) || (0 == validations)) ? 0 : (double) c.get() / validations;
+    }
+
+    /**
+     * Evaluations by validator class name.
+     */
+    public Map<String, Long> getValidatorEvaluations() {
+        return snapshot(validatorEvaluations);
+    }
+
+    public Map<String, Long> getValidatorNanos() {
+        return snapshot(validatorNanos);
+    }
+
+    /**
+     * Not atomic either: what is recorded during a reset may be partly kept.
+     */
+    public void reset() {
+        for (LatencyHistogram h : operations) {
+            h.reset();
+        }
+        valueChanges.reset();
+        subFieldValidations.reset();
+        invalidSubFields.reset();
+        failures.clear();
+        validatorEvaluations.clear();
+        validatorNanos.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Operation op : Operation.values()) {
+            long count = getCount(op);
+            sb.append(op).append(" count=").append(count);
+            if (timing && (count > 0)) {
+                sb.append(" meanNanos=").append(getTotalNanos(op) / count)
+                        .append(" p50=").append(getNanosAtPercentile(op, 50))
+                        .append(" p99=").append(getNanosAtPercentile(op, 99))
+                        .append(" max=").append(getMaxNanos(op));
+            }
+            sb.append('\n');
+        }
+        sb.append("valueChanges=").append(getValueChanges()).append('\n');
+        sb.append("subFieldValidations=").append(getSubFieldValidations())
+                .append(" invalid=").append(getInvalidSubFields()).append('\n');
+        Map<String, Long> nanos = getValidatorNanos();
+        for (Map.Entry<String, Long> e : getValidatorEvaluations().entrySet()) {
+            sb.append("validator ").append(e.getKey()).append(" evaluations=").append(e.getValue());
+            if (timing && nanos.containsKey(e.getKey())) {
+                sb.append(" totalNanos=").append(nanos.get(e.getKey()));
+            }
+            sb.append('\n');
+        }
+        for (Map.Entry<String, Long> e : getFailures().entrySet()) {
+            sb.append("failure \"").append(e.getKey()).append("\" count=").append(e.getValue())
+                    .append(" rate=").append(getFailureRate(e.getKey())).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -5,29 +5,45 @@ import com.vaadin.ui.Field;
 
 import java.util.Date;
 
-public class InYearValidator extends AbstractValidator<Date> {
+/**
+ * A date in the year a ValueSupplier gives, while the constraints say the range must be within a calendar year.
+ * Holds neither the year field nor the DateRangeField, only the supplier and the (possibly shared) constraints.
+ */
+public class InYearValidator extends AbstractValidator<Date> implements ValidatorDependencies {
 
-    Field yearField;
-    DateRangeField drf;
+    final ValueSupplier<Integer> year;
+    final DateRangeConstraints constraints;
 
     public InYearValidator(String message, Field<?> yearField, DateRangeField drf) {
+        this(message, new ValueSupplier.OfField<Integer>(yearField), drf.getRules().getConstraints());
+    }
+
+    public InYearValidator(String message, ValueSupplier<Integer> year, DateRangeConstraints constraints) {
         super(message);
-        this.yearField = yearField;
-        this.drf = drf;
+        this.year = year;
+        this.constraints = constraints;
     }
 
     @Override
     protected boolean isValidValue(Date value) {
-        if (!drf.getForceRangeToBeWithinACalendarYear()) {
+        if (!constraints.isWithinYear()) {
             // we're not forcing it within a year in which case this is always a valid value
             return true;
         }
-        int year = (Integer) yearField.getValue();
-        return DateUtil.isInYear(value, year);
+        Integer y = year.getValue();
+        return (null == y) || DateUtil.isDayInYear(DateUtil.dayOrToday(value), y);
+    }
+
+    /**
+     * Also depends on the constraints, which DateRangeField handles itself.
+     */
+    @Override
+    public Field<?>[] getDependsOnFields() {
+        return (year instanceof ValidatorDependencies) ? ((ValidatorDependencies) year).getDependsOnFields() : null;
     }
 
     @Override
     public Class<Date> getType() {
         return Date.class;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+
+/**
+ * The default: records nothing and tells the fields not to time anything.  Use DateRangeFieldMetrics.NONE.
+ */
+public class NoOpDateRangeFieldMetrics implements DateRangeFieldMetrics {
+
+    @Override
+    public boolean isTiming() {
+        return false;
+    }
+
+    @Override
+    public void operation(Operation operation, long nanos) {
+    }
+
+    @Override
+    public void validatorEvaluated(Validator validator, long nanos) {
+    }
+
+    @Override
+    public void subFieldValidated(boolean valid) {
+    }
+
+    @Override
+    public void validationFailed(String message) {
+    }
+
+    @Override
+    public void valueChanged() {
+    }
+}
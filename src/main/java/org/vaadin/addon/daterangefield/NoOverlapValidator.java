@@ -0,0 +1,28 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.validator.AbstractValidator;
+
+/**
+ * Rejects a range that overlaps any range in the index, e.g. blackout periods or already booked slots.  Add it to
+ * the DateRangeField itself.  A range with a missing end, or with its from date after its to date, is not checked;
+ * the field reports the order itself.
+ */
+public class NoOverlapValidator extends AbstractValidator<DateRange> {
+    DateRangeIndex index;
+
+    public NoOverlapValidator(String message, DateRangeIndex index) {
+        super(message);
+        this.index = index;
+    }
+
+    @Override
+    protected boolean isValidValue(DateRange value) {
+        PackedDateRange p = PackedDateRange.of(value);
+        return (null == p) || !index.overlapsAny(p.getFromDay(), p.getToDay());
+    }
+
+    @Override
+    public Class<DateRange> getType() {
+        return DateRange.class;
+    }
+}
@@ -0,0 +1,42 @@
+package org.vaadin.addon.daterangefield;
+
+import org.vaadin.risto.stepper.DateStepper;
+import org.vaadin.risto.stepper.StepperValueParseException;
+
+import java.util.Date;
+
+/**
+ * A DateStepper whose manual input can also be read by a DateParser, so users may type any of the parser's
+ * patterns as well as the displayed format.  The parser is tried first; put the displayed pattern in it too if the
+ * fallback to the stepper's own SimpleDateFormat should be avoided.
+ */
+public class ParsingDateStepper extends DateStepper {
+
+    private DateParser dateParser;
+
+    public ParsingDateStepper() {
+        super();
+    }
+
+    public ParsingDateStepper(String caption) {
+        super(caption);
+    }
+
+    public DateParser getDateParser() {
+        return dateParser;
+    }
+
+    public void setDateParser(DateParser dateParser) {
+        this.dateParser = dateParser;
+    }
+
+    @Override
+    protected Date parseStringValue(String value) throws StepperValueParseException {
+        if ((null == dateParser) || (null == value) || "".equals(value)) {
+            return super.parseStringValue(value);
+        }
+        Date d = dateParser.parse(value);
+        // stepping sends the displayed format, which the parser may not know
+        return (null != d) ? d : super.parseStringValue(value);
+    }
+}
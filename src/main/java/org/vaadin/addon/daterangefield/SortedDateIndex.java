@@ -0,0 +1,359 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.Property;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The items of a container sorted by the epoch day of a date property, read once.  The items in an inclusive
+ * range of days are found with two binary searches and returned as a slice.  DateRangeFilter gets the day of an
+ * item from here too, without reading the property or converting a Date: a container filters its items in the
+ * order it lists them, so the next item is tried first, then an identity hash table.  Ids are compared by identity
+ * since a container passes its own id objects to the filters; an id that isn't found counts as unknown.
+ * <p/>
+ * A snapshot: call rebuild() after items were added, removed or had their date changed.  Items it doesn't know,
+ * and items invalidated since, are left to the filter to read.  With setTrackingValues the index invalidates items
+ * itself when a date property says it changed; DateRangeFilterBinding turns that on and rebuilds a stale index
+ * before it filters again.  Build it while the container isn't filtered, since a filtered container only lists its
+ * visible items.  Not thread safe.
+ */
+public class SortedDateIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * day() of an item whose date is null or not a Date.
+     */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * day() of an item that wasn't in the container when the index was built.
+     */
+    public static final int UNKNOWN = Integer.MAX_VALUE;
+
+    private final Container container;
+    private final Object propertyId;
+
+    // the items in the container's order and their days
+    private Object[] orderIds;
+    private int[] orderDays;
+    // the items with a date, by day; then those without one
+    private Object[] itemIds;
+    private int[] days;
+    private int dated;
+    // open addressing by identity: item id -> position in orderIds, rebuilt after deserialization
+    private transient Object[] tableIds;
+    private transient int[] tablePositions;
+    // where the next day() is expected in orderIds
+    private transient int cursor;
+    // items whose date may have changed since the rebuild, by identity; null if none
+    private IdentityHashMap<Object, Boolean> invalidated;
+    // every item's date may have changed since the rebuild
+    private boolean valuesChanged;
+    private boolean itemSetChanged;
+    // with tracking, one listener on a container that reports the value changes of all its items
+    private boolean trackingValues;
+    private ContainerListener containerListener;
+    // otherwise the listener on each item's date property in orderIds' order, null where it can't notify
+    private ItemListener[] listeners;
+
+    // invalidates its item when the item's date changes
+    private final class ItemListener implements Property.ValueChangeListener {
+        private static final long serialVersionUID = 1L;
+
+        final Object itemId;
+
+        ItemListener(Object itemId) {
+            this.itemId = itemId;
+        }
+
+        @Override
+        public void valueChange(Property.ValueChangeEvent event) {
+            invalidate(itemId);
+        }
+    }
+
+    // the event doesn't say which item changed, so a change of any property of the date's type invalidates them all
+    private final class ContainerListener implements Property.ValueChangeListener {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void valueChange(Property.ValueChangeEvent event) {
+            Property<?> p = event.getProperty();
+            if ((null == p) || (p.getType() == container.getType(propertyId))) {
+                valuesChanged = true;
+            }
+        }
+    }
+
+    public SortedDateIndex(Container container, Object propertyId) {
+        this.container = container;
+        this.propertyId = propertyId;
+        rebuild();
+    }
+
+    public Container getContainer() {
+        return container;
+    }
+
+    public Object getPropertyId() {
+        return propertyId;
+    }
+
+    /**
+     * Reads the date of every item the container lists again.
+     */
+    public void rebuild() {
+        removeItemListeners();
+        Collection<?> ids = container.getItemIds();
+        Object[] all = ids.toArray();
+        int n = all.length;
+        boolean perItem = trackingValues && (null == containerListener);
+        ItemListener[] added = perItem ? new ItemListener[n] : null;
+        // day in the high half, the item's position in the low half, so a plain sort orders by day
+        long[] keys = new long[n];
+        int[] allDays = new int[n];
+        int withDate = 0;
+        int withoutDate = n;
+        for (int i = 0; i < n; i++) {
+            Property<?> p = container.getContainerProperty(all[i], propertyId);
+            int day = read(p);
+            allDays[i] = day;
+            if (perItem && (p instanceof Property.ValueChangeNotifier)) {
+                added[i] = new ItemListener(all[i]);
+                ((Property.ValueChangeNotifier) p).addValueChangeListener(added[i]);
+            }
+            if (NO_DATE == day) {
+                keys[--withoutDate] = i;
+            } else {
+                keys[withDate++] = ((long) day << 32) | i;
+            }
+        }
+        Arrays.sort(keys, 0, withDate);
+        Object[] sortedIds = new Object[n];
+        int[] sortedDays = new int[n];
+        for (int i = 0; i < n; i++) {
+            sortedIds[i] = all[(int) keys[i]];
+            sortedDays[i] = (i < withDate) ? (int) (keys[i] >> 32) : NO_DATE;
+        }
+        this.orderIds = all;
+        this.orderDays = allDays;
+        this.itemIds = sortedIds;
+        this.days = sortedDays;
+        this.dated = withDate;
+        this.listeners = added;
+        this.invalidated = null;
+        this.valuesChanged = false;
+        this.itemSetChanged = false;
+        index();
+    }
+
+    /**
+     * Whether to invalidate items when their date properties tell their listeners that they changed, for properties
+     * that can.  A container that is a Property.ValueChangeNotifier, such as IndexedContainer, gets one listener;
+     * as its events don't say which item changed, any change of a property of the date's type then invalidates
+     * every item until the next rebuild().  Otherwise every item's property gets a listener of about 80 to 120 bytes
+     * (see IndexFootprint in benchmarks), which the next rebuild() moves to the items then listed.  Turning it off
+     * removes them.
+     */
+    public void setTrackingValues(boolean track) {
+        if (track == trackingValues) {
+            return;
+        }
+        this.trackingValues = track;
+        if (track) {
+            if (container instanceof Property.ValueChangeNotifier) {
+                containerListener = new ContainerListener();
+                ((Property.ValueChangeNotifier) container).addValueChangeListener(containerListener);
+            }
+            rebuild();
+        } else {
+            removeItemListeners();
+            if (null != containerListener) {
+                ((Property.ValueChangeNotifier) container).removeValueChangeListener(containerListener);
+                containerListener = null;
+            }
+        }
+    }
+
+    public boolean isTrackingValues() {
+        return trackingValues;
+    }
+
+    private void removeItemListeners() {
+        ItemListener[] l = listeners;
+        if (null == l) {
+            return;
+        }
+        listeners = null;
+        for (ItemListener listener : l) {
+            if (null == listener) {
+                continue;
+            }
+            Property<?> p = container.getContainerProperty(listener.itemId, propertyId);
+            if (p instanceof Property.ValueChangeNotifier) {
+                ((Property.ValueChangeNotifier) p).removeValueChangeListener(listener);
+            }
+        }
+    }
+
+    /**
+     * The item's date may have changed: day() says UNKNOWN for it until the next rebuild(), so a filter reads it.
+     * getItemIds still lists it under its old day.
+     */
+    public void invalidate(Object itemId) {
+        if (null == invalidated) {
+            invalidated = new IdentityHashMap<Object, Boolean>();
+        }
+        invalidated.put(itemId, Boolean.TRUE);
+    }
+
+    /**
+     * Items were added or removed.  The ones it knows keep their days and added ones are read anyway, so this only
+     * makes the index stale.
+     */
+    public void invalidateItemSet() {
+        itemSetChanged = true;
+    }
+
+    /**
+     * Whether anything was invalidated since the last rebuild().
+     */
+    public boolean isStale() {
+        return itemSetChanged || valuesChanged || (null != invalidated);
+    }
+
+    private void index() {
+        int capacity = 2;
+        while (capacity < 2 * orderIds.length) {
+            capacity <<= 1;
+        }
+        tableIds = new Object[capacity];
+        tablePositions = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < orderIds.length; i++) {
+            int slot = slot(orderIds[i], mask);
+            while ((null != tableIds[slot]) && (tableIds[slot] != orderIds[i])) {
+                slot = (slot + 1) & mask;
+            }
+            tableIds[slot] = orderIds[i];
+            tablePositions[slot] = i;
+        }
+        cursor = 0;
+    }
+
+    private static int slot(Object id, int mask) {
+        int h = System.identityHashCode(id) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        index();
+    }
+
+    static int read(Property<?> p) {
+        Object value = (null == p) ? null : p.getValue();
+        return (value instanceof Date) ? DateUtil.toEpochDay((Date) value) : NO_DATE;
+    }
+
+    /**
+     * The indexed epoch day of the item, NO_DATE, or UNKNOWN if it isn't indexed or was invalidated.
+     */
+    public int day(Object itemId) {
+        if (valuesChanged || ((null != invalidated) && invalidated.containsKey(itemId))) {
+            return UNKNOWN;
+        }
+        int c = cursor;
+        if ((c < orderIds.length) && (orderIds[c] == itemId)) {
+            cursor = c + 1;
+            return orderDays[c];
+        }
+        Object[] ids = tableIds;
+        int mask = ids.length - 1;
+        int slot = slot(itemId, mask);
+        Object id;
+        while (null != (id = ids[slot])) {
+            if (id == itemId) {
+                int position = tablePositions[slot];
+                cursor = position + 1;
+                return orderDays[position];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * The number of indexed items, with a date or without.
+     */
+    public int size() {
+        return itemIds.length;
+    }
+
+    /**
+     * The items from fromDay to toDay inclusive, by day.  A view, invalid after the next rebuild().  toDay must be
+     * below Integer.MAX_VALUE.
+     */
+    public List<Object> getItemIds(int fromDay, int toDay) {
+        int lo = lowerBound(fromDay);
+        int hi = lowerBound(toDay + 1);
+        if (lo >= hi) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(itemIds).subList(lo, hi));
+    }
+
+    /**
+     * The items in the range, a missing end being open.
+     */
+    public List<Object> getItemIds(DateRange range) {
+        return getItemIds(fromDay(range), toDay(range));
+    }
+
+    public int count(int fromDay, int toDay) {
+        return getItemIds(fromDay, toDay).size();
+    }
+
+    /**
+     * A filter for the range, a missing end being open.
+     */
+    public DateRangeFilter filter(DateRange range) {
+        return new DateRangeFilter(this, fromDay(range), toDay(range));
+    }
+
+    // the first position with a day not before the given one
+    private int lowerBound(int day) {
+        int lo = 0;
+        int hi = dated;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // open ends stay clear of NO_DATE and UNKNOWN
+    static int fromDay(DateRange range) {
+        return ((null == range) || (null == range.getFrom())) ? Integer.MIN_VALUE + 1
+                : DateUtil.toEpochDay(range.getFrom());
+    }
+
+    static int toDay(DateRange range) {
+        return ((null == range) || (null == range.getTo())) ? Integer.MAX_VALUE - 1
+                : DateUtil.toEpochDay(range.getTo());
+    }
+}
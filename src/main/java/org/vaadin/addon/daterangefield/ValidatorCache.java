@@ -0,0 +1,89 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The constant-bound validators handed out by BeforeValidator.of and AfterValidator.of, one per kind, bound day,
+ * inclusive and message, so that any number of fields and sessions share a handful of instances.  Least recently
+ * used ones are dropped beyond MAX_CACHED_VALIDATORS; a dropped one stays valid wherever it is still used.
+ */
+final class ValidatorCache {
+
+    static final int MAX_CACHED_VALIDATORS = 256;
+
+    static final class Key {
+        final Class<?> kind;
+        // the bound as an epoch day, ignored if today
+        final int day;
+        final boolean today;
+        final boolean inclusive;
+        final String message;
+        private final int hash;
+
+        Key(Class<?> kind, int day, boolean today, boolean inclusive, String message) {
+            this.kind = kind;
+            this.day = today ? 0 : day;
+            this.today = today;
+            this.inclusive = inclusive;
+            this.message = message;
+            int h = kind.hashCode();
+            h = 31 * h + this.day;
+            h = 31 * h + (today ? 1 : 0);
+            h = 31 * h + (inclusive ? 1 : 0);
+            this.hash = 31 * h + ((null == message) ? 0 : message.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return (kind == k.kind) && (day == k.day) && (today == k.today) && (inclusive == k.inclusive)
+                    && ((null == message) ? (null == k.message) : message.equals(k.message));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final Map<Key, Validator> VALIDATORS = Collections.synchronizedMap(
+            new LinkedHashMap<Key, Validator>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Validator> eldest) {
+                    return size() > MAX_CACHED_VALIDATORS;
+                }
+            });
+
+    private ValidatorCache() {
+    }
+
+    static Validator get(Key key) {
+        return VALIDATORS.get(key);
+    }
+
+    /**
+     * The cached validator for the key if there is one, otherwise the given one, which is cached.
+     */
+    @SuppressWarnings("unchecked")
+    static <V extends Validator> V intern(Key key, V validator) {
+        synchronized (VALIDATORS) {
+            Validator cached = VALIDATORS.get(key);
+            if (null != cached) {
+                return (V) cached;
+            }
+            VALIDATORS.put(key, validator);
+            return validator;
+        }
+    }
+
+    static int size() {
+        return VALIDATORS.size();
+    }
+}
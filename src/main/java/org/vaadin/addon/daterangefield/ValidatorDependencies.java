@@ -0,0 +1,16 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.ui.Field;
+
+/**
+ * Implemented by validators that can tell DateRangeField what their result depends on, so it can reuse the last
+ * result while none of those inputs has changed.  The value being validated is always an input.
+ */
+public interface ValidatorDependencies {
+
+    /**
+     * The other fields whose values the result depends on, an empty array if it only depends on the value being
+     * validated and on constants, or null if it can't say, in which case it is always re-run.
+     */
+    Field<?>[] getDependsOnFields();
+}
@@ -0,0 +1,39 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.ui.Field;
+
+import java.io.Serializable;
+
+/**
+ * Where a validator that compares against another value gets it from, like a Supplier.  It can be a field, a
+ * property or anything computed, so the validator doesn't have to hold a Field.
+ */
+public interface ValueSupplier<T> extends Serializable {
+
+    T getValue();
+
+    /**
+     * The value of a field, which DateRangeField then knows the validator depends on.
+     */
+    final class OfField<T> implements ValueSupplier<T>, ValidatorDependencies {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Field<?> field;
+
+        public OfField(Field<?> field) {
+            this.field = field;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T getValue() {
+            return (T) field.getValue();
+        }
+
+        @Override
+        public Field<?>[] getDependsOnFields() {
+            return new Field<?>[]{field};
+        }
+    }
+}
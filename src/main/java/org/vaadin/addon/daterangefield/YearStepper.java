@@ -0,0 +1,18 @@
+package org.vaadin.addon.daterangefield;
+
+import org.vaadin.risto.stepper.IntStepper;
+
+/**
+ * The year field of a DateRangeField.  An IntStepper whose browser side can hold changes back, see
+ * DateRangeField.setSyncMode.
+ */
+public class YearStepper extends IntStepper {
+
+    public YearStepper() {
+        super();
+    }
+
+    public YearStepper(String caption) {
+        super(caption);
+    }
+}
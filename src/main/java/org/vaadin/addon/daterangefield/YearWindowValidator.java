@@ -0,0 +1,58 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.validator.AbstractValidator;
+import com.vaadin.ui.Field;
+
+/**
+ * The min and max year bounds for the year field of a DateRangeField, see DateRangeRules.checkYear.
+ */
+public class YearWindowValidator extends AbstractValidator<Integer> implements ValidatorDependencies {
+
+    DateRangeRules rules;
+
+    public YearWindowValidator(DateRangeRules rules) {
+        super(null);
+        this.rules = rules;
+    }
+
+    @Override
+    protected boolean isValidValue(Integer value) {
+        return DateRangeRules.VALID == rules.checkYear(value);
+    }
+
+    @Override
+    public void validate(Object value) throws InvalidValueException {
+        if (!isValidType(value)) {
+            throw new InvalidValueException(null);
+        }
+        InvalidValueException error = error(rules, (Integer) value);
+        if (null != error) {
+            throw error;
+        }
+    }
+
+    // the error for the year, or null; also used by lightweight DateRangeFields
+    static InvalidValueException error(DateRangeRules rules, Integer year) {
+        switch (rules.checkYear(year)) {
+            case DateRangeRules.YEAR_BEFORE_MIN_YEAR:
+                return new InvalidValueException(rules.getConstraints().yearMinYearMessage);
+            case DateRangeRules.YEAR_AFTER_MAX_YEAR:
+                return new InvalidValueException(rules.getConstraints().yearMaxYearMessage);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Only the constraints, which DateRangeField handles itself.
+     */
+    @Override
+    public Field<?>[] getDependsOnFields() {
+        return new Field<?>[0];
+    }
+
+    @Override
+    public Class<Integer> getType() {
+        return Integer.class;
+    }
+}
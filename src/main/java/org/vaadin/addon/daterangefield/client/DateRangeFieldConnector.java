@@ -0,0 +1,179 @@
+package org.vaadin.addon.daterangefield.client;
+
+import com.google.gwt.user.client.Command;
+import com.google.web.bindery.event.shared.HandlerRegistration;
+import com.vaadin.client.ComponentConnector;
+import com.vaadin.client.communication.StateChangeEvent;
+import com.vaadin.client.ui.customfield.CustomFieldConnector;
+import com.vaadin.shared.Connector;
+import com.vaadin.shared.ui.ComponentStateUtil;
+import com.vaadin.shared.ui.Connect;
+import org.vaadin.addon.daterangefield.DateRangeField;
+import org.vaadin.addon.daterangefield.shared.DateRangeFieldState;
+import org.vaadin.risto.stepper.widgetset.client.ui.VAbstractStepper;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Checks a DateRangeField's own rules (from not after to, min and max year, the range within the selected year) in
+ * the browser on every step, so the error style follows the user without a round trip, and sets the steppers up
+ * to send their values as the field's SyncMode says.  The server still validates whatever it receives and its
+ * verdict wins: a style the server set is only taken off by the server, since it may come from validators the
+ * browser doesn't know about.
+ */
+@Connect(DateRangeField.class)
+public class DateRangeFieldConnector extends CustomFieldConnector {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Command check = new Command() {
+        @Override
+        public void execute() {
+            checkRules();
+        }
+    };
+
+    private final StateChangeEvent.StateChangeHandler subFieldStateHandler = new StateChangeEvent.StateChangeHandler() {
+        @Override
+        public void onStateChanged(StateChangeEvent stateChangeEvent) {
+            // the server's styles were just put back
+            checkRules();
+        }
+    };
+
+    private final Connector[] bound = new Connector[3];
+    private final List<HandlerRegistration> registrations = new ArrayList<HandlerRegistration>();
+
+    @Override
+    public DateRangeFieldState getState() {
+        return (DateRangeFieldState) super.getState();
+    }
+
+    @Override
+    public void onStateChanged(StateChangeEvent stateChangeEvent) {
+        super.onStateChanged(stateChangeEvent);
+        bind();
+        checkRules();
+    }
+
+    @Override
+    public void onUnregister() {
+        unbind();
+        super.onUnregister();
+    }
+
+    private void bind() {
+        DateRangeFieldState state = getState();
+        if ((bound[0] != state.fromField) || (bound[1] != state.toField) || (bound[2] != state.yearField)) {
+            unbind();
+            bound[0] = state.fromField;
+            bound[1] = state.toField;
+            bound[2] = state.yearField;
+            for (Connector c : bound) {
+                if (c instanceof ComponentConnector) {
+                    registrations.add(((ComponentConnector) c).addStateChangeHandler(subFieldStateHandler));
+                }
+            }
+        }
+        for (Connector c : bound) {
+            configure(c);
+        }
+    }
+
+    private void configure(Connector c) {
+        VAbstractStepper<?, ?> s = stepper(c);
+        if (s instanceof SyncedStepper) {
+            SyncedStepper stepper = (SyncedStepper) s;
+            stepper.setChangeListener(getState().clientValidation ? check : null);
+            stepper.setSyncMode(getState().syncMode, getState().syncDelay);
+        }
+    }
+
+    private void unbind() {
+        for (HandlerRegistration r : registrations) {
+            r.removeHandler();
+        }
+        registrations.clear();
+        for (int i = 0; i < bound.length; i++) {
+            bound[i] = null;
+        }
+    }
+
+    private void checkRules() {
+        DateRangeFieldState state = getState();
+        String style = state.errorStyleName;
+        if (!state.clientValidation || (null == style) || style.isEmpty()) {
+            return;
+        }
+        Date from = date(state.fromField);
+        Date to = date(state.toField);
+        Integer year = year(state.yearField);
+        boolean order = (null != from) && (null != to) && from.after(to);
+        mark(state.fromField, order || !inYears(from, year));
+        mark(state.toField, order || !inYears(to, year));
+        boolean yearValid = (null == year) || inBounds(year);
+        mark(state.yearField, !yearValid);
+    }
+
+    // Date methods are not deprecated in GWT
+    @SuppressWarnings("deprecation")
+    private boolean inYears(Date d, Integer year) {
+        if (null == d) {
+            return true;
+        }
+        int y = d.getYear() + 1900;
+        if (getState().withinYear && (null != year) && (y != year)) {
+            return false;
+        }
+        return inBounds(y);
+    }
+
+    private boolean inBounds(int year) {
+        DateRangeFieldState state = getState();
+        return ((state.minYear < 0) || (year >= state.minYear)) && ((state.maxYear < 0) || (year <= state.maxYear));
+    }
+
+    // adds the style for an error found here, removes it only if the server didn't set it
+    private void mark(Connector c, boolean error) {
+        if (!(c instanceof ComponentConnector)) {
+            return;
+        }
+        ComponentConnector cc = (ComponentConnector) c;
+        String style = getState().errorStyleName;
+        boolean serverError = ComponentStateUtil.hasStyles(cc.getState()) && cc.getState().styles.contains(style);
+        cc.getWidget().setStyleName(style, error || serverError);
+    }
+
+    private Date date(Connector c) {
+        VAbstractStepper<?, ?> s = stepper(c);
+        Object value = (null == s) ? null : parse(s);
+        return (value instanceof Date) ? (Date) value : null;
+    }
+
+    private Integer year(Connector c) {
+        VAbstractStepper<?, ?> s = stepper(c);
+        Object value = (null == s) ? null : parse(s);
+        return (value instanceof Integer) ? (Integer) value : null;
+    }
+
+    // what is displayed, which may not have been sent yet; null while it doesn't parse
+    private static Object parse(VAbstractStepper<?, ?> s) {
+        try {
+            return s.parseStringValue(s.getTextBox().getValue());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static VAbstractStepper<?, ?> stepper(Connector c) {
+        if (c instanceof ComponentConnector) {
+            Object w = ((ComponentConnector) c).getWidget();
+            if (w instanceof VAbstractStepper) {
+                return (VAbstractStepper<?, ?>) w;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,111 @@
+package org.vaadin.addon.daterangefield.client;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.EventTarget;
+import com.google.gwt.event.dom.client.BlurEvent;
+import com.google.gwt.event.dom.client.BlurHandler;
+import com.google.gwt.event.dom.client.MouseOutEvent;
+import com.google.gwt.event.dom.client.MouseOutHandler;
+import com.google.gwt.user.client.Timer;
+import org.vaadin.addon.daterangefield.shared.SyncMode;
+import org.vaadin.risto.stepper.widgetset.client.ui.VAbstractStepper;
+
+/**
+ * A stepper's value on its way to the server: sent right away, or held back and sent once when it has stopped
+ * changing or the stepper is left, so a burst of steps becomes one request.
+ */
+class HeldValue {
+
+    interface Sender {
+        void send(String value);
+    }
+
+    private final Sender sender;
+    private SyncMode mode = SyncMode.IMMEDIATE;
+    private int delay;
+    private String value;
+    private boolean pending;
+
+    private final Timer timer = new Timer() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private final Scheduler.ScheduledCommand deferredFlush = new Scheduler.ScheduledCommand() {
+        @Override
+        public void execute() {
+            flush();
+        }
+    };
+
+    HeldValue(Sender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Flushes when the text box loses focus or the pointer leaves the stepper, which it does on its way to a
+     * commit button.
+     */
+    void attachTo(final VAbstractStepper<?, ?> stepper) {
+        stepper.getTextBox().addBlurHandler(new BlurHandler() {
+            @Override
+            public void onBlur(BlurEvent event) {
+                // after the text box's own change event
+                Scheduler.get().scheduleDeferred(deferredFlush);
+            }
+        });
+        stepper.addDomHandler(new MouseOutHandler() {
+            @Override
+            public void onMouseOut(MouseOutEvent event) {
+                EventTarget to = event.getRelatedTarget();
+                if ((null == to) || !Element.is(to) || !stepper.getElement().isOrHasChild(Element.as(to))) {
+                    Scheduler.get().scheduleDeferred(deferredFlush);
+                }
+            }
+        }, MouseOutEvent.getType());
+    }
+
+    void setMode(SyncMode mode, int delay) {
+        this.mode = (null == mode) ? SyncMode.IMMEDIATE : mode;
+        this.delay = delay;
+        if (SyncMode.IMMEDIATE == this.mode) {
+            flush();
+        }
+    }
+
+    void offer(String newValue) {
+        if (SyncMode.IMMEDIATE == mode) {
+            sender.send(newValue);
+            return;
+        }
+        value = newValue;
+        pending = true;
+        if (SyncMode.DEBOUNCED == mode) {
+            // rescheduling cancels the previous run
+            timer.schedule(Math.max(1, delay));
+        }
+    }
+
+    void flush() {
+        timer.cancel();
+        if (pending) {
+            String v = value;
+            pending = false;
+            value = null;
+            sender.send(v);
+        }
+    }
+
+    void discard() {
+        timer.cancel();
+        pending = false;
+        value = null;
+    }
+
+    boolean isPending() {
+        return pending;
+    }
+}
@@ -0,0 +1,31 @@
+package org.vaadin.addon.daterangefield.client;
+
+import com.google.gwt.core.client.GWT;
+import com.vaadin.shared.ui.Connect;
+import org.vaadin.addon.daterangefield.ParsingDateStepper;
+import org.vaadin.risto.stepper.widgetset.client.shared.DateStepperConnector;
+
+/**
+ * The date steppers of a DateRangeField; the field's connector sets them up for checking in the browser.
+ */
+@Connect(ParsingDateStepper.class)
+public class ParsingDateStepperConnector extends DateStepperConnector {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected VDateRangeStepper createWidget() {
+        return GWT.create(VDateRangeStepper.class);
+    }
+
+    @Override
+    public VDateRangeStepper getWidget() {
+        return (VDateRangeStepper) super.getWidget();
+    }
+
+    @Override
+    public void onUnregister() {
+        getWidget().discardPending();
+        super.onUnregister();
+    }
+}
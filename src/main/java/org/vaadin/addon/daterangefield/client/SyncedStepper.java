@@ -0,0 +1,29 @@
+package org.vaadin.addon.daterangefield.client;
+
+import com.google.gwt.user.client.Command;
+import org.vaadin.addon.daterangefield.shared.SyncMode;
+
+/**
+ * A stepper of a DateRangeField, set up by the field's connector.
+ */
+public interface SyncedStepper {
+
+    void setSyncMode(SyncMode mode, int delay);
+
+    /**
+     * Sends a held back value now.
+     */
+    void flush();
+
+    /**
+     * Drops a held back value, e.g. when the stepper is removed.
+     */
+    void discardPending();
+
+    boolean hasPendingValue();
+
+    /**
+     * Run on every change of the displayed value, sent or not.
+     */
+    void setChangeListener(Command changeListener);
+}
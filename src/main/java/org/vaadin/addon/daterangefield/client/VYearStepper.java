@@ -0,0 +1,74 @@
+package org.vaadin.addon.daterangefield.client;
+
+import com.google.gwt.user.client.Command;
+import org.vaadin.addon.daterangefield.shared.SyncMode;
+import org.vaadin.risto.stepper.widgetset.client.ui.VIntStepper;
+
+/**
+ * The year stepper of a DateRangeField: a VIntStepper that can hold its value back (see SyncMode) and that tells
+ * a listener about every step right away.  In IMMEDIATE mode it sends each change like VIntStepper does.
+ */
+public class VYearStepper extends VIntStepper implements SyncedStepper {
+
+    private final HeldValue held = new HeldValue(new HeldValue.Sender() {
+        @Override
+        public void send(String value) {
+            VYearStepper.super.updateValueToServer(value);
+        }
+    });
+    private Command changeListener;
+
+    public VYearStepper() {
+        super();
+        held.attachTo(this);
+    }
+
+    @Override
+    public void increaseValue() {
+        super.increaseValue();
+        changed();
+    }
+
+    @Override
+    public void decreaseValue() {
+        super.decreaseValue();
+        changed();
+    }
+
+    @Override
+    public void updateValueToServer(String newValue) {
+        changed();
+        held.offer(newValue);
+    }
+
+    @Override
+    public void setSyncMode(SyncMode mode, int delay) {
+        held.setMode(mode, delay);
+    }
+
+    @Override
+    public void flush() {
+        held.flush();
+    }
+
+    @Override
+    public void discardPending() {
+        held.discard();
+    }
+
+    @Override
+    public boolean hasPendingValue() {
+        return held.isPending();
+    }
+
+    @Override
+    public void setChangeListener(Command changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void changed() {
+        if (null != changeListener) {
+            changeListener.execute();
+        }
+    }
+}
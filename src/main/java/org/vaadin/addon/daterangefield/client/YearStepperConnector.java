@@ -0,0 +1,31 @@
+package org.vaadin.addon.daterangefield.client;
+
+import com.google.gwt.core.client.GWT;
+import com.vaadin.shared.ui.Connect;
+import org.vaadin.addon.daterangefield.YearStepper;
+import org.vaadin.risto.stepper.widgetset.client.shared.IntStepperConnector;
+
+/**
+ * The year stepper of a DateRangeField; the field's connector sets it up.
+ */
+@Connect(YearStepper.class)
+public class YearStepperConnector extends IntStepperConnector {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected VYearStepper createWidget() {
+        return GWT.create(VYearStepper.class);
+    }
+
+    @Override
+    public VYearStepper getWidget() {
+        return (VYearStepper) super.getWidget();
+    }
+
+    @Override
+    public void onUnregister() {
+        getWidget().discardPending();
+        super.onUnregister();
+    }
+}
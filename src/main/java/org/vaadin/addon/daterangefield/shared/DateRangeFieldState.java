@@ -0,0 +1,28 @@
+package org.vaadin.addon.daterangefield.shared;
+
+import com.vaadin.shared.AbstractFieldState;
+import com.vaadin.shared.Connector;
+
+/**
+ * What the browser needs to check a DateRangeField's rules itself: the sub fields and the constraints, a few ints
+ * and flags.
+ */
+public class DateRangeFieldState extends AbstractFieldState {
+
+    private static final long serialVersionUID = 1L;
+
+    public Connector fromField;
+    public Connector toField;
+    public Connector yearField;
+
+    // -1 for no bound
+    public int minYear = -1;
+    public int maxYear = -1;
+    public boolean withinYear;
+    public String errorStyleName = "";
+
+    public boolean clientValidation;
+    public SyncMode syncMode = SyncMode.IMMEDIATE;
+    // milliseconds a value must stay unchanged before it is sent when DEBOUNCED
+    public int syncDelay = 500;
+}
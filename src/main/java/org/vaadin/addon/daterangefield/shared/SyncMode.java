@@ -0,0 +1,13 @@
+package org.vaadin.addon.daterangefield.shared;
+
+/**
+ * When the steppers of a DateRangeField send a changed value to the server.
+ */
+public enum SyncMode {
+    // every change, as the plain steppers do
+    IMMEDIATE,
+    // once the value has stayed unchanged for the sync delay, or the stepper is left
+    DEBOUNCED,
+    // only when the stepper loses focus or the pointer leaves it
+    ON_BLUR
+}
@@ -0,0 +1,128 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTimeConstants;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BusinessCalendar against walking the days one at a time, for random holidays and weekends, on both sides of the
+ * epoch and of the years with holidays.
+ */
+public class BusinessCalendarTest {
+
+    private static final int[][] WEEKENDS = {
+            {DateTimeConstants.SATURDAY, DateTimeConstants.SUNDAY},
+            {DateTimeConstants.FRIDAY, DateTimeConstants.SATURDAY},
+            {DateTimeConstants.SUNDAY},
+            // only Sundays worked
+            {1, 2, 3, 4, 5, 6},
+            {}};
+
+    @Test
+    public void sameAsWalkingTheDays() {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            // before the epoch in about half the rounds
+            int start = DateUtil.epochDay(1990 + random.nextInt(40), 1, 1) - (random.nextBoolean() ? 30000 : 0);
+            DateRangeSet holidays = new DateRangeSet();
+            int n = (0 == random.nextInt(4)) ? 0 : random.nextInt(80);
+            for (int i = 0; i < n; i++) {
+                int day = start + random.nextInt(2000);
+                holidays.add(day, day + ((0 == random.nextInt(10)) ? random.nextInt(30) : 0));
+            }
+            int[] weekend = WEEKENDS[random.nextInt(WEEKENDS.length)];
+            check(new BusinessCalendar(holidays, weekend), holidays, weekend, start, random);
+        }
+    }
+
+    @Test
+    public void wordsWithoutWorkingDays() {
+        // a closed quarter and a closed month leave runs of words with the same rank
+        DateRangeSet holidays = new DateRangeSet();
+        holidays.add(DateUtil.epochDay(1969, 11, 1), DateUtil.epochDay(1970, 2, 28));
+        holidays.add(DateUtil.epochDay(1970, 7, 1), DateUtil.epochDay(1970, 7, 31));
+        Random random = new Random(5);
+        for (int[] weekend : WEEKENDS) {
+            BusinessCalendar calendar = new BusinessCalendar(holidays, weekend);
+            check(calendar, holidays, weekend, DateUtil.epochDay(1969, 1, 1), random);
+            // straight over the closed months
+            int lastOpen = DateUtil.epochDay(1969, 10, 31);
+            while (!calendar.isBusinessDay(lastOpen)) {
+                lastOpen--;
+            }
+            int firstOpen = DateUtil.epochDay(1970, 3, 1);
+            while (!calendar.isBusinessDay(firstOpen)) {
+                firstOpen++;
+            }
+            assertEquals(firstOpen, calendar.addBusinessDays(lastOpen, 1));
+            assertEquals(lastOpen, calendar.addBusinessDays(firstOpen, -1));
+            assertEquals(firstOpen, calendar.rangeEnd(lastOpen + 1, 1));
+            assertEquals(0, calendar.businessDays(lastOpen + 1, firstOpen - 1));
+        }
+    }
+
+    @Test
+    public void dates() {
+        BusinessCalendar calendar = new BusinessCalendar();
+        int saturday = DateUtil.epochDay(2014, 3, 1);
+        assertEquals(DateUtil.toDate(saturday + 2), calendar.addBusinessDays(DateUtil.toDate(saturday), 1));
+        assertEquals(5, calendar.businessDays(new DateRange(DateUtil.toDate(saturday),
+                DateUtil.toDate(saturday + 8))));
+        assertEquals(0, calendar.businessDays(new DateRange(null, DateUtil.toDate(saturday))));
+        assertEquals(saturday - 1, calendar.addBusinessDays(saturday, -1));
+    }
+
+    private static void check(BusinessCalendar calendar, DateRangeSet holidays, int[] weekend, int start,
+                              Random random) {
+        boolean[] off = new boolean[8];
+        for (int d : weekend) {
+            off[d] = true;
+        }
+        int lo = start - 1500;
+        int hi = start + 5000;
+        boolean[] working = new boolean[hi - lo + 1];
+        // working days before each day from lo
+        int[] before = new int[working.length + 1];
+        for (int day = lo; day <= hi; day++) {
+            working[day - lo] = !off[dayOfWeek(day)] && !holidays.contains(day);
+            assertEquals(working[day - lo], calendar.isBusinessDay(day));
+            before[day - lo + 1] = before[day - lo] + (working[day - lo] ? 1 : 0);
+        }
+        for (int t = 0; t < 300; t++) {
+            int from = lo + 600 + random.nextInt(3400);
+            int to = from + random.nextInt(800) - 50;
+            int expected = (from > to) ? 0 : before[to - lo + 1] - before[from - lo];
+            assertEquals(expected, calendar.businessDays(from, to));
+
+            int n = random.nextInt(60) - 30;
+            int day = from;
+            for (int k = n; k > 0; ) {
+                day++;
+                if (working[day - lo]) {
+                    k--;
+                }
+            }
+            for (int k = n; k < 0; ) {
+                day--;
+                if (working[day - lo]) {
+                    k++;
+                }
+            }
+            assertEquals(day, calendar.addBusinessDays(from, n));
+
+            int days = 1 + random.nextInt(40);
+            int end = calendar.rangeEnd(from, days);
+            assertEquals(days, calendar.businessDays(from, end));
+            assertTrue(working[end - lo]);
+        }
+    }
+
+    // MONDAY is 1, SUNDAY 7; epoch day 0 was a Thursday
+    private static int dayOfWeek(int day) {
+        return (int) (day + 3 - DateUtil.floorDiv(day + 3, 7) * 7) + 1;
+    }
+}
@@ -0,0 +1,70 @@
+package org.vaadin.addon.daterangefield;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Constant-bound BeforeValidator and AfterValidator: the ones from of(...) are shared, so they are immutable and
+ * shared again when read back; ones built with a constructor belong to their caller.
+ */
+public class ConstantValidatorTest {
+
+    private static final int DAY = 16071;
+
+    @Test
+    public void sharedOnesAreImmutable() throws Exception {
+        AfterValidator after = AfterValidator.of("Too early", DateUtil.toDate(DAY), true);
+        assertSame(after, AfterValidator.of("Too early", DateUtil.toDate(DAY), true));
+        BeforeValidator before = BeforeValidator.of("Too late", null, false);
+        assertSame(before, BeforeValidator.of("Too late", null, false));
+        try {
+            after.setErrorMessage("Changed");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            assertEquals("Too early", after.getErrorMessage());
+        }
+        try {
+            before.setErrorMessage("Changed");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            assertEquals("Too late", before.getErrorMessage());
+        }
+        assertSame(after, copy(after));
+        assertSame(before, copy(before));
+    }
+
+    @Test
+    public void constructedOnesAreNotShared() throws Exception {
+        AfterValidator after = new AfterValidator("Too early", DateUtil.toDate(DAY), true);
+        after.setErrorMessage("Earlier than allowed");
+        assertEquals("Earlier than allowed", after.getErrorMessage());
+        BeforeValidator before = new BeforeValidator("Too late", DateUtil.toDate(DAY), false);
+        before.setErrorMessage("Later than allowed");
+        // even with the message of a shared one
+        BeforeValidator shared = BeforeValidator.of("Too late", DateUtil.toDate(DAY), false);
+        before.setErrorMessage("Too late");
+        BeforeValidator copy = (BeforeValidator) copy(before);
+        assertNotSame(shared, copy);
+        copy.setErrorMessage("Changed");
+        assertEquals("Too late", shared.getErrorMessage());
+        assertNotSame(after, AfterValidator.of("Earlier than allowed", DateUtil.toDate(DAY), true));
+    }
+
+    private static Object copy(Serializable o) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+        return new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+}
@@ -0,0 +1,58 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counts what a single field reports, for tests that check how often it validates.
+ */
+class CountingMetrics implements DateRangeFieldMetrics {
+
+    final Map<Operation, Integer> operations = new EnumMap<Operation, Integer>(Operation.class);
+    int validatorsEvaluated;
+    int subFieldsValidated;
+    int valueChanges;
+
+    int operations(Operation operation) {
+        Integer n = operations.get(operation);
+        return (null == n) ? 0 : n;
+    }
+
+    void reset() {
+        operations.clear();
+        validatorsEvaluated = 0;
+        subFieldsValidated = 0;
+        valueChanges = 0;
+    }
+
+    @Override
+    public boolean isTiming() {
+        return false;
+    }
+
+    @Override
+    public void operation(Operation operation, long nanos) {
+        operations.put(operation, operations(operation) + 1);
+    }
+
+    @Override
+    public void validatorEvaluated(Validator validator, long nanos) {
+        validatorsEvaluated++;
+    }
+
+    @Override
+    public void subFieldValidated(boolean valid) {
+        subFieldsValidated++;
+    }
+
+    @Override
+    public void validationFailed(String message) {
+    }
+
+    @Override
+    public void valueChanged() {
+        valueChanges++;
+    }
+}
@@ -0,0 +1,156 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fixed clocks, and the cached days of a CachingClock rolling over at midnight, with time moved along by hand and
+ * an executor that only records what it is given.
+ */
+public class DateClockTest {
+
+    private static final DateTimeZone SAO_PAULO = DateTimeZone.forID("America/Sao_Paulo");
+    private static final DateTimeZone KATHMANDU = DateTimeZone.forID("Asia/Kathmandu");
+    private static final long MARGIN = DateClock.CachingClock.ROLLOVER_MARGIN_MILLIS;
+
+    private static final class ManualClock extends DateClock {
+        long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    // runs nothing, keeps the last task and its delay
+    private static final class RecordingExecutor extends ScheduledThreadPoolExecutor {
+        Runnable task;
+        long delay = -1;
+        int scheduled;
+
+        RecordingExecutor() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            this.task = command;
+            this.delay = unit.toMillis(delay);
+            scheduled++;
+            return null;
+        }
+    }
+
+    private DateTimeZone defaultZone;
+    private ManualClock time;
+    private DateClock.CachingClock clock;
+    private RecordingExecutor executor;
+
+    @Before
+    public void setUp() {
+        defaultZone = DateTimeZone.getDefault();
+        time = new ManualClock();
+        clock = new DateClock.CachingClock(time);
+        executor = new RecordingExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        DateTimeZone.setDefault(defaultZone);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void fixedClocks() {
+        long millis = new DateTime(1969, 12, 31, 22, 30, DateTimeZone.UTC).getMillis();
+        DateClock fixed = DateClock.fixed(millis);
+        assertEquals(-1, fixed.todayEpochDay(DateTimeZone.UTC));
+        // 04:15 the next day in Kathmandu, 19:30 the same day in Sao Paulo
+        assertEquals(0, fixed.todayEpochDay(KATHMANDU));
+        assertEquals(1970, fixed.currentYear(KATHMANDU));
+        assertEquals(-1, fixed.todayEpochDay(SAO_PAULO));
+        assertEquals(1969, fixed.currentYear(SAO_PAULO));
+        DateTimeZone.setDefault(KATHMANDU);
+        assertEquals(new LocalDate(1970, 1, 1).toDateTimeAtStartOfDay(KATHMANDU).getMillis(),
+                fixed.today().getTime());
+        assertEquals(millis, DateClock.fixed(new java.util.Date(millis)).currentTimeMillis());
+    }
+
+    @Test
+    public void cachedUntilMidnight() {
+        time.now = new DateTime(2014, 12, 31, 23, 59, 59, 999, SAO_PAULO).getMillis();
+        assertEquals(DateUtil.epochDay(2014, 12, 31), clock.todayEpochDay(SAO_PAULO));
+        assertEquals(2014, clock.currentYear(SAO_PAULO));
+        time.now++;
+        assertEquals(DateUtil.epochDay(2015, 1, 1), clock.todayEpochDay(SAO_PAULO));
+        assertEquals(2015, clock.currentYear(SAO_PAULO));
+        // another zone has its own day
+        assertEquals(DateUtil.epochDay(2015, 1, 1), clock.todayEpochDay(KATHMANDU));
+        assertEquals(DateUtil.epochDay(2015, 1, 1), clock.todayEpochDay(SAO_PAULO));
+        DateTimeZone.setDefault(SAO_PAULO);
+        assertEquals(new DateTime(2015, 1, 1, 0, 0, SAO_PAULO).toDate(), clock.today());
+    }
+
+    @Test
+    public void rolloverJustAfterMidnight() {
+        long midnight = new DateTime(2014, 3, 6, 0, 0, DateTimeZone.UTC).getMillis();
+        time.now = midnight - 1000;
+        clock.scheduleRollover(executor, DateTimeZone.UTC);
+        assertEquals(1000 + MARGIN, executor.delay);
+
+        // on time: the next day is cached and the next midnight scheduled
+        time.now = midnight + MARGIN;
+        executor.task.run();
+        assertEquals(DateUtil.epochDay(2014, 3, 6), clock.day(DateTimeZone.UTC).epochDay);
+        assertEquals(DateUtil.MILLIS_PER_DAY, executor.delay);
+        assertEquals(2, executor.scheduled);
+    }
+
+    @Test
+    public void aTimerFiringEarlyWaitsAnotherMargin() {
+        long midnight = new DateTime(2014, 3, 6, 0, 0, DateTimeZone.UTC).getMillis();
+        time.now = midnight - 1000;
+        clock.scheduleRollover(executor, DateTimeZone.UTC);
+        time.now = midnight - 3;
+        executor.task.run();
+        // not 0, which would have it run again and again until midnight
+        assertEquals(3 + MARGIN, executor.delay);
+        time.now = midnight - 3 + executor.delay;
+        executor.task.run();
+        assertEquals(DateUtil.epochDay(2014, 3, 6), clock.todayEpochDay(DateTimeZone.UTC));
+        assertTrue(executor.delay > DateUtil.MILLIS_PER_DAY - 100);
+    }
+
+    @Test
+    public void rolloverOverAClockChange() {
+        // 2013-10-20 in Sao Paulo started at 01:00, so the 19th ended an hour early and the 20th had 23 hours
+        long start = new DateTime(2013, 10, 20, 1, 0, SAO_PAULO).getMillis();
+        time.now = start - 60000;
+        clock.scheduleRollover(executor, SAO_PAULO);
+        assertEquals(60000 + MARGIN, executor.delay);
+        time.now = start + MARGIN;
+        executor.task.run();
+        assertEquals(DateUtil.epochDay(2013, 10, 20), clock.todayEpochDay(SAO_PAULO));
+        assertEquals(23 * 3600000L, executor.delay);
+    }
+
+    @Test
+    public void stopsWithTheExecutor() {
+        time.now = new DateTime(2014, 3, 5, 12, 0, DateTimeZone.UTC).getMillis();
+        clock.scheduleRollover(executor, DateTimeZone.UTC);
+        executor.shutdown();
+        executor.task.run();
+        assertEquals(1, executor.scheduled);
+    }
+}
@@ -0,0 +1,122 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.vaadin.risto.stepper.StepperValueParseException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * DateUtil.stringToDate and DateParser against the lenient SimpleDateFormat that stringToDate used before: the
+ * same dates where the whole text is a real date, nothing where the old parse ignored trailing text or rolled an
+ * impossible day over into the next month.
+ */
+public class DateParserTest {
+
+    private static final Locale EN = Locale.ENGLISH;
+
+    // text, pattern, what the old parse gave as yyyy-MM-dd or null, what stringToDate gives now
+    private static final String[][] TABLE = {
+            {"05-Mar-2014", "dd-MMM-yyyy", "2014-03-05", "2014-03-05"},
+            {"5-Mar-2014", "dd-MMM-yyyy", "2014-03-05", "2014-03-05"},
+            {"05-mar-2014", "dd-MMM-yyyy", "2014-03-05", "2014-03-05"},
+            {"29-Feb-2012", "dd-MMM-yyyy", "2012-02-29", "2012-02-29"},
+            {"2014-03-05", "yyyy-MM-dd", "2014-03-05", "2014-03-05"},
+            {"31/12/1999", "dd/MM/yyyy", "1999-12-31", "1999-12-31"},
+            {"01.01.1970", "dd.MM.yyyy", "1970-01-01", "1970-01-01"},
+            // impossible days, which the old parse rolled over
+            {"31-Feb-2014", "dd-MMM-yyyy", "2014-03-03", null},
+            {"29-Feb-2013", "dd-MMM-yyyy", "2013-03-01", null},
+            {"2014-02-30", "yyyy-MM-dd", "2014-03-02", null},
+            {"2014-13-01", "yyyy-MM-dd", "2015-01-01", null},
+            {"32/01/2014", "dd/MM/yyyy", "2014-02-01", null},
+            {"00/01/2014", "dd/MM/yyyy", "2013-12-31", null},
+            // trailing text, which the old parse ignored
+            {"05-Mar-2014 junk", "dd-MMM-yyyy", "2014-03-05", null},
+            {"2014-03-05T10:00", "yyyy-MM-dd", "2014-03-05", null},
+            // rejected by both
+            {"", "dd-MMM-yyyy", null, null},
+            {"garbage", "dd-MMM-yyyy", null, null},
+            {"2014/03/05", "yyyy-MM-dd", null, null},
+            {"05-Mrz-2014", "dd-MMM-yyyy", null, null}};
+
+    @Test
+    public void againstTheOldParse() throws Exception {
+        for (String[] row : TABLE) {
+            String what = row[0] + " as " + row[1];
+            assertEquals(what, day(row[2]), oldParse(row[0], row[1]));
+            assertEquals(what, day(row[3]), DateUtil.stringToDate(row[0], row[1], EN));
+            assertEquals(what, day(row[3]), new DateParser(EN, row[1]).parse(row[0]));
+        }
+        assertEquals(day("2014-03-05"), DateUtil.stringToDate("05-Mar-2014", null, EN));
+        assertNull(DateUtil.stringToDate(null, null, EN));
+    }
+
+    @Test
+    public void primitiveResults() {
+        DateParser parser = new DateParser(EN, "yyyy-MM-dd");
+        assertEquals(DateUtil.epochDay(1969, 12, 31), parser.parseEpochDay("1969-12-31"));
+        assertEquals(DateParser.NO_DAY, parser.parseEpochDay("2014-02-30"));
+        assertEquals(DateParser.FAILED, parser.parseLocalMillis("2014-03-05 "));
+        assertEquals(DateParser.FAILED, parser.parseLocalMillis(null));
+        assertEquals(-DateUtil.MILLIS_PER_DAY, parser.parseLocalMillis("1969-12-31"));
+        // a zone in the text makes it an instant, which is moved to local time
+        long instant = DateUtil.toDate(DateUtil.epochDay(2014, 3, 5)).getTime() + 3600000L;
+        long local = instant + DateTimeZone.getDefault().getOffset(instant);
+        assertEquals(local, DateParser.parseLocalMillis(DateParser.formatter("yyyy-MM-dd HH:mm Z", EN),
+                new DateTime(instant, DateTimeZone.UTC).toString("yyyy-MM-dd HH:mm Z")));
+        // a time of day out of range
+        assertEquals(DateParser.FAILED, DateParser.parseLocalMillis(DateParser.formatter("yyyy-MM-dd HH:mm", EN),
+                "2014-03-05 25:00"));
+    }
+
+    @Test
+    public void theMostUsedPatternIsTriedFirst() {
+        DateParser parser = new DateParser(EN, "dd/MM/yyyy", "MM/dd/yyyy");
+        // both patterns read it, the first one wins
+        assertEquals(day("2014-04-03"), parser.parse("03/04/2014"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(day("2014-12-31"), parser.parse("12/31/2014"));
+        }
+        assertEquals(1, parser.getHits(0));
+        assertEquals(3, parser.getHits(1));
+        assertEquals(day("2014-03-04"), parser.parse("03/04/2014"));
+        // the other one still reads what only it can
+        assertEquals(day("2014-12-31"), parser.parse("31/12/2014"));
+        assertEquals(2, parser.getHits(0));
+    }
+
+    @Test
+    public void stepperInput() throws StepperValueParseException {
+        ParsingDateStepper stepper = new ParsingDateStepper();
+        stepper.setDateParser(new DateParser(EN, "yyyy-MM-dd", "dd-MMM-yyyy"));
+        assertEquals(day("2014-03-05"), stepper.parseStringValue("2014-03-05"));
+        assertEquals(day("2014-03-05"), stepper.parseStringValue("05-Mar-2014"));
+        assertNotNull(stepper.getDateParser());
+    }
+
+    private static Date oldParse(String text, String pattern) {
+        try {
+            return new SimpleDateFormat(pattern, EN).parse(text);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static Date day(String iso) {
+        if (null == iso) {
+            return null;
+        }
+        String[] parts = iso.split("-");
+        return DateUtil.toDate(DateUtil.epochDay(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                Integer.parseInt(parts[2])));
+    }
+}
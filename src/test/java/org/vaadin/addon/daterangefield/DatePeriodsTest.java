@@ -0,0 +1,156 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * DatePeriods against period starts and ends worked out with Joda-Time's LocalDate, through get, tryAdvance,
+ * forEachRemaining and random splits.
+ */
+public class DatePeriodsTest {
+
+    private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+
+    @Test
+    public void sameAsJodaTime() {
+        Random random = new Random(5);
+        for (int round = 0; round < 3000; round++) {
+            // 1696 to 2243
+            int from = random.nextInt(200000) - 100000;
+            int to = from + random.nextInt(random.nextBoolean() ? 40 : 4000) - 5;
+            DatePeriods.Period period = DatePeriods.Period.values()[random.nextInt(4)];
+            List<Integer> expected = starts(from, to, period);
+            DatePeriods periods = DatePeriods.of(from, to, period);
+            assertEquals(expected.size(), periods.estimateSize());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).intValue(), periods.get(i));
+            }
+            List<Integer> actual = new ArrayList<Integer>();
+            collect(periods, actual, random);
+            assertEquals(period + " " + from + " " + to, expected, actual);
+            for (int start : expected) {
+                assertEquals(end(start, period), DatePeriods.endOf(period, start));
+            }
+        }
+    }
+
+    @Test
+    public void knownPeriods() {
+        int from = DateUtil.epochDay(2014, 2, 15);
+        int to = DateUtil.epochDay(2014, 8, 1);
+        assertEquals(Arrays.asList(DateUtil.epochDay(2014, 1, 1), DateUtil.epochDay(2014, 4, 1),
+                DateUtil.epochDay(2014, 7, 1)), all(DatePeriods.of(from, to, DatePeriods.Period.QUARTER)));
+        assertEquals(DateUtil.epochDay(2014, 3, 31), DatePeriods.endOf(DatePeriods.Period.QUARTER,
+                DateUtil.epochDay(2014, 1, 1)));
+        // 2014-02-15 was a Saturday
+        assertEquals(DateUtil.epochDay(2014, 2, 10), DatePeriods.of(from, to, DatePeriods.Period.WEEK).get(0));
+        assertEquals(DateUtil.epochDay(2014, 2, 28), DatePeriods.endOf(DatePeriods.Period.MONTH,
+                DateUtil.epochDay(2014, 2, 1)));
+        assertEquals(DateUtil.epochDay(2012, 2, 29), DatePeriods.endOf(DatePeriods.Period.MONTH,
+                DateUtil.epochDay(2012, 2, 1)));
+        // the week around the epoch, which started on a Thursday
+        assertEquals(Arrays.asList(-3, 4), all(DatePeriods.of(-1, 4, DatePeriods.Period.WEEK)));
+    }
+
+    @Test
+    public void emptyRanges() {
+        assertEquals(0, DatePeriods.of(new DateRange(null, null), DatePeriods.Period.DAY).estimateSize());
+        assertEquals(0, DatePeriods.of(10, 9, DatePeriods.Period.MONTH).estimateSize());
+        assertNull(DatePeriods.of(10, 9, DatePeriods.Period.MONTH).trySplit());
+    }
+
+    @Test
+    public void splitsEvenly() {
+        DatePeriods periods = DatePeriods.of(DateUtil.epochDay(1900, 1, 1), DateUtil.epochDay(2100, 12, 31),
+                DatePeriods.Period.DAY);
+        long size = periods.estimateSize();
+        DatePeriods first = periods.trySplit();
+        assertEquals(size / 2, first.estimateSize());
+        assertEquals(size - size / 2, periods.estimateSize());
+        assertEquals(DateUtil.epochDay(1900, 1, 1), first.get(0));
+        assertEquals(first.get(0) + size / 2, periods.get(0));
+    }
+
+    private static List<Integer> starts(int from, int to, DatePeriods.Period period) {
+        List<Integer> starts = new ArrayList<Integer>();
+        if (from > to) {
+            return starts;
+        }
+        LocalDate d = EPOCH.plusDays(from);
+        LocalDate last = EPOCH.plusDays(to);
+        switch (period) {
+            case WEEK:
+                d = d.withDayOfWeek(DateTimeConstants.MONDAY);
+                break;
+            case MONTH:
+                d = d.withDayOfMonth(1);
+                break;
+            case QUARTER:
+                d = d.withDayOfMonth(1).withMonthOfYear((d.getMonthOfYear() - 1) / 3 * 3 + 1);
+                break;
+            default:
+        }
+        while (!d.isAfter(last)) {
+            starts.add(Days.daysBetween(EPOCH, d).getDays());
+            d = next(d, period);
+        }
+        return starts;
+    }
+
+    private static int end(int start, DatePeriods.Period period) {
+        return Days.daysBetween(EPOCH, next(EPOCH.plusDays(start), period)).getDays() - 1;
+    }
+
+    private static LocalDate next(LocalDate d, DatePeriods.Period period) {
+        switch (period) {
+            case DAY:
+                return d.plusDays(1);
+            case WEEK:
+                return d.plusWeeks(1);
+            case MONTH:
+                return d.plusMonths(1);
+            default:
+                return d.plusMonths(3);
+        }
+    }
+
+    // splits off parts at random and reads them first, as a parallel stream would in the end
+    private static void collect(DatePeriods periods, final List<Integer> out, Random random) {
+        if (random.nextBoolean()) {
+            DatePeriods first = periods.trySplit();
+            if (null != first) {
+                collect(first, out, random);
+            }
+        }
+        if ((0 == random.nextInt(3)) && (periods.estimateSize() > 0)) {
+            periods.tryAdvance(new DatePeriods.DayConsumer() {
+                @Override
+                public void accept(int day) {
+                    out.add(day);
+                }
+            });
+        }
+        periods.forEachRemaining(new DatePeriods.DayConsumer() {
+            @Override
+            public void accept(int day) {
+                out.add(day);
+            }
+        });
+    }
+
+    private static List<Integer> all(DatePeriods periods) {
+        List<Integer> days = new ArrayList<Integer>();
+        collect(periods, days, new Random(0));
+        return days;
+    }
+}
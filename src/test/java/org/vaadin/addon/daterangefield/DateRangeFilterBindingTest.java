@@ -0,0 +1,179 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Item;
+import com.vaadin.data.Property;
+import com.vaadin.data.util.BeanItemContainer;
+import com.vaadin.data.util.IndexedContainer;
+import com.vaadin.data.util.ObjectProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DateRangeFilterBinding keeping its SortedDateIndex in step with edits and added items.
+ */
+public class DateRangeFilterBindingTest {
+
+    private static final int JAN_10 = DateUtil.epochDay(2014, 1, 10);
+    private static final int FEB_10 = DateUtil.epochDay(2014, 2, 10);
+
+    private DateRangeField field;
+    private IndexedContainer container;
+
+    @Before
+    public void setUp() {
+        field = new DateRangeField(new ObjectProperty<Date>(null, Date.class),
+                new ObjectProperty<Date>(null, Date.class), false, 2014, true);
+        container = new IndexedContainer();
+        container.addContainerProperty("date", Date.class, null);
+        container.addContainerProperty("name", String.class, null);
+        for (int i = 0; i < 100; i++) {
+            addItem(i, DateUtil.epochDay(2014, 1, 1) + i);
+        }
+    }
+
+    @Test
+    public void filtersByTheField() {
+        DateRangeFilterBinding binding = DateRangeFilterBinding.bind(field, container, "date");
+        january();
+        assertEquals(31, container.size());
+        // its own filter changes don't make the index stale
+        assertFalse(binding.getIndex().isStale());
+        field.setValue(null);
+        assertEquals(100, container.size());
+        assertFalse(binding.getIndex().isStale());
+    }
+
+    @Test
+    public void anEditedDateIsReadUntilTheIndexIsRebuilt() {
+        DateRangeFilterBinding binding = DateRangeFilterBinding.bind(field, container, "date");
+        SortedDateIndex index = binding.getIndex();
+        january();
+        assertEquals(JAN_10, index.day(9));
+        setDate(9, FEB_10);
+        assertEquals(SortedDateIndex.UNKNOWN, index.day(9));
+        // the container doesn't say which item changed
+        assertEquals(SortedDateIndex.UNKNOWN, index.day(10));
+        assertTrue(index.isStale());
+        assertFalse(binding.getFilter().passesFilter(9, container.getItem(9)));
+        // the next range rebuilds it
+        field.setValue(new DateRange(DateUtil.toDate(FEB_10), DateUtil.toDate(FEB_10)));
+        assertFalse(index.isStale());
+        assertEquals(FEB_10, index.day(9));
+        assertEquals(2, container.size());
+        assertEquals(2, index.count(FEB_10, FEB_10));
+    }
+
+    @Test
+    public void addedItemsAreIndexedBeforeTheNextFilter() {
+        DateRangeFilterBinding binding = DateRangeFilterBinding.bind(field, container, "date");
+        SortedDateIndex index = binding.getIndex();
+        january();
+        addItem("new", JAN_10);
+        assertTrue(index.isStale());
+        assertEquals(SortedDateIndex.UNKNOWN, index.day("new"));
+        field.setValue(new DateRange(DateUtil.toDate(JAN_10), DateUtil.toDate(FEB_10)));
+        assertFalse(index.isStale());
+        assertEquals(JAN_10, index.day("new"));
+        assertEquals(101, index.size());
+        assertEquals(33, container.size());
+        // and followed from then on
+        setDate("new", FEB_10 + 1);
+        assertEquals(SortedDateIndex.UNKNOWN, index.day("new"));
+    }
+
+    @Test
+    public void oneListenerOnTheContainer() {
+        DateRangeFilterBinding binding = DateRangeFilterBinding.bind(field, container, "date");
+        assertEquals(1, container.getListeners(Property.ValueChangeEvent.class).size());
+        january();
+        // not a date
+        container.getContainerProperty(9, "name").setValue("edited");
+        assertFalse(binding.getIndex().isStale());
+        assertEquals(JAN_10, binding.getIndex().day(9));
+        binding.unbind();
+        assertEquals(0, container.getListeners(Property.ValueChangeEvent.class).size());
+    }
+
+    @Test
+    public void unbindStopsFollowing() {
+        DateRangeFilterBinding binding = DateRangeFilterBinding.bind(field, container, "date");
+        january();
+        binding.unbind();
+        assertEquals(100, container.size());
+        assertFalse(binding.getIndex().isTrackingValues());
+        setDate(9, FEB_10);
+        addItem("new", JAN_10);
+        assertFalse(binding.getIndex().isStale());
+        assertEquals(JAN_10, binding.getIndex().day(9));
+    }
+
+    @Test
+    public void beanProperties() {
+        BeanItemContainer<Booking> beans = new BeanItemContainer<Booking>(Booking.class);
+        Booking first = new Booking(DateUtil.toDate(JAN_10));
+        Booking second = new Booking(DateUtil.toDate(FEB_10));
+        beans.addBean(first);
+        beans.addBean(second);
+        DateRangeFilterBinding binding = DateRangeFilterBinding.bind(field, beans, "date");
+        january();
+        assertEquals(1, beans.size());
+        beans.getContainerProperty(second, "date").setValue(DateUtil.toDate(JAN_10 + 1));
+        assertEquals(SortedDateIndex.UNKNOWN, binding.getIndex().day(second));
+        // a listener per item, so only that one
+        assertEquals(JAN_10, binding.getIndex().day(first));
+        assertTrue(binding.getFilter().passesFilter(second, beans.getItem(second)));
+        field.setValue(new DateRange(DateUtil.toDate(JAN_10), DateUtil.toDate(JAN_10 + 1)));
+        assertEquals(2, beans.size());
+        assertEquals(JAN_10 + 1, binding.getIndex().day(second));
+    }
+
+    @Test
+    public void withoutTrackingTheIndexIsASnapshot() {
+        SortedDateIndex index = new SortedDateIndex(container, "date");
+        setDate(9, FEB_10);
+        assertFalse(index.isStale());
+        assertEquals(JAN_10, index.day(9));
+        index.invalidate(9);
+        assertEquals(SortedDateIndex.UNKNOWN, index.day(9));
+        index.rebuild();
+        assertEquals(FEB_10, index.day(9));
+    }
+
+    public static class Booking {
+        private Date date;
+
+        public Booking(Date date) {
+            this.date = date;
+        }
+
+        public Date getDate() {
+            return date;
+        }
+
+        public void setDate(Date date) {
+            this.date = date;
+        }
+    }
+
+    private void january() {
+        field.setValue(new DateRange(DateUtil.toDate(DateUtil.epochDay(2014, 1, 1)),
+                DateUtil.toDate(DateUtil.epochDay(2014, 1, 31))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addItem(Object id, int day) {
+        Item item = container.addItem(id);
+        item.getItemProperty("date").setValue(DateUtil.toDate(day));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setDate(Object id, int day) {
+        container.getContainerProperty(id, "date").setValue(DateUtil.toDate(day));
+    }
+}
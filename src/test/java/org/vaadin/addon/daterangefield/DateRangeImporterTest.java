@@ -0,0 +1,175 @@
+package org.vaadin.addon.daterangefield;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * DateRangeImporter reads the same ranges and counts whatever the window size and however many parts the file is
+ * split into, including lines that straddle a window or part boundary.
+ */
+public class DateRangeImporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final DateRangeRules rules = new DateRangeRules(2000, 2030, true);
+    private ExecutorService executor;
+    private File file;
+    private long[] expected;
+    private int lines;
+    private int malformed;
+    private int invalid;
+
+    @Before
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(4);
+        Random random = new Random(7);
+        List<Long> ranges = new ArrayList<Long>();
+        StringBuilder sb = new StringBuilder("from,to,name\n");
+        for (int i = 0; i < 5000; i++) {
+            int kind = random.nextInt(20);
+            if (0 == kind) {
+                sb.append('\n');
+                continue;
+            }
+            lines++;
+            if (1 == kind) {
+                sb.append("garbage,line,x\n");
+                malformed++;
+                continue;
+            }
+            if (2 == kind) {
+                sb.append("2014-02-30,2014-03-01\n");
+                malformed++;
+                continue;
+            }
+            if (3 == kind) {
+                // longer than the smaller windows
+                for (int j = 0; j < 300; j++) {
+                    sb.append('x');
+                }
+                sb.append('\n');
+                malformed++;
+                continue;
+            }
+            int from = 10000 + random.nextInt(12000);
+            int to = from + random.nextInt(400) - 20;
+            String f = iso(from);
+            String t = iso(to);
+            if (4 == kind) {
+                f = f.replace("-", "");
+            } else if (5 == kind) {
+                t = "\"" + t + "T10:00\"";
+            } else if (6 == kind) {
+                f = " " + f + " ";
+            }
+            sb.append(f).append(',').append(t).append(",\"a, b\"").append((7 == kind) ? "\r\n" : "\n");
+            if (0 != rules.check(from, to, DateRangeRules.SAME_YEAR)) {
+                invalid++;
+            } else {
+                ranges.add(PackedDateRange.pack(from, to));
+            }
+        }
+        // the last line without a line break
+        sb.append("2015-01-01,2015-01-02");
+        lines++;
+        ranges.add(PackedDateRange.pack(DateUtil.epochDay(2015, 1, 1), DateUtil.epochDay(2015, 1, 2)));
+        expected = new long[ranges.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = ranges.get(i);
+        }
+        file = write(sb.toString());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void sameForAnyWindowAndParts() throws Exception {
+        for (int window : new int[]{64, 100, 4096, DateRangeImporter.DEFAULT_WINDOW_SIZE}) {
+            for (int parts : new int[]{1, 3, 8, 64}) {
+                DateRangeImporter importer = new DateRangeImporter();
+                importer.setHeaderLines(1);
+                importer.setWindowSize(window);
+                importer.setRules(rules, DateRangeRules.SAME_YEAR);
+                DateRangeImporter.Result result = (1 == parts) ? importer.read(file)
+                        : importer.read(file, executor, parts);
+                String where = "window " + window + ", " + parts + " parts";
+                assertEquals(where, lines, result.getLines());
+                assertEquals(where, malformed, result.getMalformed());
+                assertEquals(where, invalid, result.getInvalid());
+                assertArrayEquals(where, expected, result.getRanges());
+            }
+        }
+    }
+
+    @Test
+    public void sinkGetsTheRangesInFileOrder() throws Exception {
+        DateRangeImporter importer = new DateRangeImporter();
+        importer.setHeaderLines(1);
+        importer.setWindowSize(100);
+        importer.setRules(rules, DateRangeRules.SAME_YEAR);
+        final List<Long> ranges = new ArrayList<Long>();
+        DateRangeImporter.Stats stats = importer.read(file, new DateRangeImporter.Sink() {
+            @Override
+            public void range(int fromDay, int toDay) {
+                ranges.add(PackedDateRange.pack(fromDay, toDay));
+            }
+        });
+        assertEquals(lines, stats.getLines());
+        assertEquals(expected.length, ranges.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], ranges.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void dayMonthYearLayouts() throws Exception {
+        File dates = write("3/1/2014;31.12.2014 00:00\n29/2/2013;1/1/2014\n");
+        DateRangeImporter importer = new DateRangeImporter(DateRangeImporter.Layout.DAY_MONTH_YEAR, ';');
+        DateRangeImporter.Result result = importer.read(dates);
+        assertEquals(2, result.getLines());
+        // there is no 29 February 2013
+        assertEquals(1, result.getMalformed());
+        assertArrayEquals(new long[]{PackedDateRange.pack(DateUtil.epochDay(2014, 1, 3),
+                DateUtil.epochDay(2014, 12, 31))}, result.getRanges());
+        importer.setLayout(DateRangeImporter.Layout.MONTH_DAY_YEAR);
+        result = importer.read(dates);
+        assertEquals(2, result.getMalformed());
+        assertEquals(0, result.getRanges().length);
+    }
+
+    private File write(String text) throws IOException {
+        File f = folder.newFile();
+        Writer w = new FileWriter(f);
+        try {
+            w.write(text);
+        } finally {
+            w.close();
+        }
+        return f;
+    }
+
+    private static String iso(int day) {
+        return String.format("%04d-%02d-%02d", DateUtil.yearOfEpochDay(day), DateUtil.monthOfEpochDay(day),
+                DateUtil.dayOfMonthOfEpochDay(day));
+    }
+}
@@ -0,0 +1,118 @@
+package org.vaadin.addon.daterangefield;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DateRangeIndex against a brute force scan of a plain list, over random adds, removes and queries.
+ */
+public class DateRangeIndexTest {
+
+    @Test
+    public void sameAsBruteForce() {
+        Random random = new Random(3);
+        for (int round = 0; round < 100; round++) {
+            DateRangeIndex index = new DateRangeIndex();
+            List<Long> all = new ArrayList<Long>();
+            // some empty ones, which are ignored
+            long[] initial = new long[random.nextInt(300)];
+            for (int i = 0; i < initial.length; i++) {
+                int from = random.nextInt(2000) - 1000;
+                initial[i] = PackedDateRange.pack(from, from + random.nextInt(50) - 2);
+                if (!PackedDateRange.isEmpty(initial[i])) {
+                    all.add(initial[i]);
+                }
+            }
+            index.addAll(initial, initial.length);
+            for (int op = 0; op < 1000; op++) {
+                int from = random.nextInt(2000) - 1000;
+                long range = PackedDateRange.pack(from, from + random.nextInt(60));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        index.add(range);
+                        all.add(range);
+                        break;
+                    case 1: {
+                        // mostly one that is there, which may be there more than once
+                        Long r = (!all.isEmpty() && random.nextBoolean())
+                                ? all.get(random.nextInt(all.size())) : Long.valueOf(range);
+                        assertEquals(all.remove(r), index.remove(r.longValue()));
+                        break;
+                    }
+                    default: {
+                        int queryFrom = random.nextInt(2100) - 1050;
+                        // now and then empty
+                        int queryTo = queryFrom + random.nextInt(30) - 3;
+                        List<PackedDateRange> expected = overlapping(all, queryFrom, queryTo);
+                        assertEquals(expected, index.findOverlapping(queryFrom, queryTo));
+                        assertEquals(!expected.isEmpty(), index.overlapsAny(queryFrom, queryTo));
+                        assertEquals(overlapping(all, queryFrom, queryFrom), index.findContaining(queryFrom));
+                    }
+                }
+                assertEquals(all.size(), index.size());
+            }
+        }
+    }
+
+    @Test
+    public void duplicatesAreCounted() {
+        DateRangeIndex index = new DateRangeIndex();
+        long range = PackedDateRange.pack(10, 20);
+        index.add(range);
+        index.add(range);
+        assertEquals(2, index.size());
+        assertEquals(2, index.findContaining(15).size());
+        assertTrue(index.remove(range));
+        assertTrue(index.overlapsAny(20, 30));
+        assertTrue(index.remove(range));
+        assertFalse(index.remove(range));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void incompleteRangesAreIgnored() {
+        DateRangeIndex index = new DateRangeIndex();
+        index.add(new DateRange(null, DateUtil.toDate(10)));
+        index.add(new DateRange(DateUtil.toDate(10), null));
+        index.add(PackedDateRange.pack(10, 9));
+        assertTrue(index.isEmpty());
+        assertFalse(index.overlapsAny(new DateRange(null, null)));
+        assertTrue(index.findOverlapping(new DateRange(DateUtil.toDate(0), null)).isEmpty());
+    }
+
+    @Test
+    public void emptyQueriesOverlapNothing() {
+        DateRangeIndex index = new DateRangeIndex();
+        index.add(PackedDateRange.pack(3, 12));
+        assertFalse(index.overlapsAny(10, 5));
+        assertTrue(index.findOverlapping(10, 5).isEmpty());
+        assertFalse(index.overlapsAny(new DateRange(DateUtil.toDate(10), DateUtil.toDate(5))));
+        assertTrue(index.findOverlapping(new DateRange(DateUtil.toDate(10), DateUtil.toDate(5))).isEmpty());
+        assertTrue(index.overlapsAny(5, 10));
+        // a reversed range is left to the field's own order check
+        NoOverlapValidator validator = new NoOverlapValidator("Already booked", index);
+        assertTrue(validator.isValid(new DateRange(DateUtil.toDate(10), DateUtil.toDate(5))));
+        assertFalse(validator.isValid(new DateRange(DateUtil.toDate(5), DateUtil.toDate(10))));
+    }
+
+    // in the index's order: by from day, then to day
+    private static List<PackedDateRange> overlapping(List<Long> all, int fromDay, int toDay) {
+        long query = PackedDateRange.pack(fromDay, toDay);
+        List<PackedDateRange> result = new ArrayList<PackedDateRange>();
+        for (long range : all) {
+            if (PackedDateRange.overlaps(range, query)) {
+                result.add(PackedDateRange.ofPacked(range));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package org.vaadin.addon.daterangefield;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * The batch checks of DateRangeRules, split over an executor, against checking one record at a time.
+ */
+public class DateRangeRulesTest {
+
+    // enough for several chunks of the smallest size
+    private static final int RECORDS = 50000;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void packedRanges() throws InterruptedException {
+        Random random = new Random(19);
+        long[] ranges = new long[RECORDS];
+        for (int i = 0; i < ranges.length; i++) {
+            // 2008 to 2015, now and then in the wrong order
+            int from = DateUtil.epochDay(2008, 1, 1) + random.nextInt(2900);
+            ranges[i] = PackedDateRange.pack(from, from + random.nextInt(400) - 20);
+        }
+        for (boolean withinYear : new boolean[]{false, true}) {
+            DateRangeRules rules = new DateRangeRules(2009, 2014, withinYear);
+            for (int year : new int[]{2012, 2016, DateRangeRules.SAME_YEAR, DateRangeRules.ANY_YEAR}) {
+                short[] expected = new short[ranges.length];
+                for (int i = 0; i < ranges.length; i++) {
+                    expected[i] = (short) rules.check(ranges[i], year);
+                }
+                String what = withinYear + " " + year;
+                assertArrayEquals(what, expected, rules.checkAll(ranges, year));
+                assertArrayEquals(what, expected, rules.checkAll(ranges, year, executor));
+            }
+        }
+        assertEquals(0, new DateRangeRules(-1, -1, false).checkAll(new long[0], 2012, executor).length);
+    }
+
+    @Test
+    public void dateRanges() throws InterruptedException {
+        Random random = new Random(23);
+        List<DateRange> ranges = new ArrayList<DateRange>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            int from = DateUtil.epochDay(2010, 1, 1) + random.nextInt(1500);
+            Date to = DateUtil.toDate(from + random.nextInt(200) - 10);
+            // some without an end
+            ranges.add(new DateRange(DateUtil.toDate(from), (random.nextInt(50) == 0) ? null : to));
+        }
+        DateRangeRules rules = new DateRangeRules(2011, 2013, true);
+        short[] codes = rules.checkAll(ranges, 2012, executor);
+        for (int i = 0; i < RECORDS; i++) {
+            assertEquals(rules.check(ranges.get(i), 2012), codes[i]);
+        }
+    }
+
+    @Test
+    public void aFailingChunk() throws InterruptedException {
+        List<DateRange> broken = new AbstractList<DateRange>() {
+            @Override
+            public DateRange get(int index) {
+                if (index == RECORDS - 1) {
+                    throw new IllegalArgumentException("record " + index);
+                }
+                return null;
+            }
+
+            @Override
+            public int size() {
+                return RECORDS;
+            }
+        };
+        try {
+            new DateRangeRules(-1, -1, false).checkAll(broken, 2012, executor);
+            fail();
+        } catch (IllegalStateException expected) {
+            assertEquals("record " + (RECORDS - 1), expected.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.vaadin.addon.daterangefield;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DateRangeSet against a BitSet with one bit per day, over random ranges around 1970 and around 2014.
+ */
+public class DateRangeSetTest {
+
+    // bit 0 of the reference sets
+    private static final int BASE = -800000;
+
+    @Test
+    public void sameAsBitSet() throws Exception {
+        Random random = new Random(1);
+        for (int round = 0; round < 300; round++) {
+            // negative days too
+            int start = random.nextBoolean() ? -1000 : 16000;
+            int span = random.nextInt(8000) + 10;
+            long[] a = randomRanges(random, random.nextInt(60), start, span);
+            long[] b = randomRanges(random, random.nextInt(60), start, span);
+            DateRangeSet sa = DateRangeSet.ofPacked(a, a.length);
+            DateRangeSet sb = DateRangeSet.ofPacked(b, b.length);
+            BitSet ra = bits(a);
+            BitSet rb = bits(b);
+            assertSame(ra, sa);
+            assertSame(rb, sb);
+
+            BitSet union = (BitSet) ra.clone();
+            union.or(rb);
+            assertSame(union, sa.union(sb));
+            BitSet intersection = (BitSet) ra.clone();
+            intersection.and(rb);
+            assertSame(intersection, sa.intersect(sb));
+            BitSet difference = (BitSet) ra.clone();
+            difference.andNot(rb);
+            assertSame(difference, sa.minus(sb));
+
+            // in place
+            DateRangeSet s = new DateRangeSet(sa);
+            s.addAll(sb);
+            assertSame(union, s);
+            s = new DateRangeSet(sa);
+            s.retainAll(sb);
+            assertSame(intersection, s);
+            s = new DateRangeSet(sa);
+            s.removeAll(sb);
+            assertSame(difference, s);
+
+            // a range at a time
+            s = new DateRangeSet(sa);
+            for (long p : b) {
+                s.remove(PackedDateRange.fromDay(p), PackedDateRange.toDay(p));
+            }
+            assertSame(difference, s);
+            assertEquals(sa.minus(sb), s);
+            assertEquals(sa.minus(sb).hashCode(), s.hashCode());
+            s = new DateRangeSet(sa);
+            for (long p : b) {
+                s.add(PackedDateRange.fromDay(p), PackedDateRange.toDay(p));
+            }
+            assertEquals(sa.union(sb), s);
+
+            for (int t = 0; t < 50; t++) {
+                int from = start + random.nextInt(span + 100) - 50;
+                int to = from + random.nextInt(800);
+                int count = ra.get(from - BASE, to - BASE + 1).cardinality();
+                assertEquals(ra.get(from - BASE), sa.contains(from));
+                assertEquals(count, sa.count(from, to));
+                assertEquals(count == to - from + 1, sa.contains(new DateRange(DateUtil.toDate(from),
+                        DateUtil.toDate(to))));
+            }
+
+            assertEquals(sa, new DateRangeSet(sa.toDateRanges()));
+            int ranges = 0;
+            for (DateRange ignored : sa) {
+                ranges++;
+            }
+            assertEquals(sa.toPackedRanges().length, ranges);
+            assertEquals(sa, copy(sa));
+        }
+    }
+
+    @Test
+    public void coalescesAcrossYearEnds() {
+        DateRangeSet s = new DateRangeSet();
+        s.add(DateUtil.epochDay(2013, 12, 30), DateUtil.epochDay(2013, 12, 31));
+        s.add(DateUtil.epochDay(2014, 1, 1), DateUtil.epochDay(2014, 1, 2));
+        s.add(DateUtil.epochDay(2014, 3, 1), DateUtil.epochDay(2014, 3, 1));
+        // a whole year and the days either side, before the epoch
+        s.add(DateUtil.epochDay(1959, 12, 31), DateUtil.epochDay(1961, 1, 1));
+        assertEquals(Arrays.asList(
+                range(DateUtil.epochDay(1959, 12, 31), DateUtil.epochDay(1961, 1, 1)),
+                range(DateUtil.epochDay(2013, 12, 30), DateUtil.epochDay(2014, 1, 2)),
+                range(DateUtil.epochDay(2014, 3, 1), DateUtil.epochDay(2014, 3, 1))), s.toDateRanges());
+        assertEquals(368 + 4 + 1, s.cardinality());
+        // and splits again when the year end is taken out
+        s.remove(DateUtil.epochDay(2013, 12, 31), DateUtil.epochDay(2013, 12, 31));
+        assertEquals(4, s.toPackedRanges().length);
+        assertEquals(PackedDateRange.pack(DateUtil.epochDay(2014, 1, 1), DateUtil.epochDay(2014, 1, 2)),
+                s.toPackedRanges()[2]);
+    }
+
+    @Test
+    public void emptyAndOpenRangesAreIgnored() {
+        DateRangeSet s = new DateRangeSet();
+        s.add(10, 9);
+        s.add(new DateRange(null, DateUtil.toDate(10)));
+        s.add(new DateRange(DateUtil.toDate(10), null));
+        assertTrue(s.isEmpty());
+        assertEquals(0, s.toPackedRanges().length);
+    }
+
+    private static long[] randomRanges(Random random, int n, int start, int span) {
+        long[] ranges = new long[n];
+        for (int i = 0; i < n; i++) {
+            int from = start + random.nextInt(span);
+            // now and then longer than a year, now and then empty
+            ranges[i] = PackedDateRange.pack(from, from + random.nextInt((0 == random.nextInt(10)) ? 900 : 20) - 2);
+        }
+        return ranges;
+    }
+
+    private static BitSet bits(long[] ranges) {
+        BitSet bits = new BitSet();
+        for (long p : ranges) {
+            if (!PackedDateRange.isEmpty(p)) {
+                bits.set(PackedDateRange.fromDay(p) - BASE, PackedDateRange.toDay(p) - BASE + 1);
+            }
+        }
+        return bits;
+    }
+
+    // the maximal runs of set bits, in order
+    private static void assertSame(BitSet expected, DateRangeSet actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        long[] ranges = actual.toPackedRanges();
+        int k = 0;
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i)) {
+            int end = expected.nextClearBit(i);
+            assertTrue(k < ranges.length);
+            assertEquals(PackedDateRange.pack(i + BASE, end - 1 + BASE), ranges[k++]);
+            i = end;
+        }
+        assertEquals(k, ranges.length);
+    }
+
+    private static DateRange range(int fromDay, int toDay) {
+        return new DateRange(DateUtil.toDate(fromDay), DateUtil.toDate(toDay));
+    }
+
+    private static DateRangeSet copy(DateRangeSet s) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(s);
+        out.close();
+        return (DateRangeSet) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+}
@@ -0,0 +1,358 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Container;
+import com.vaadin.data.util.sqlcontainer.SQLContainer;
+import com.vaadin.data.util.sqlcontainer.connection.SimpleJDBCConnectionPool;
+import com.vaadin.data.util.sqlcontainer.query.TableQuery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The half-open bounds of DateRangeBounds pushed down to an embedded H2 database, through DateRangeSql.fragment,
+ * through DateRangeSql.filter on a SQLContainer and through DateRangeCriteria.predicate, against a DATE and a
+ * TIMESTAMP column.  There is no JPA provider here, so the predicates are built by a CriteriaBuilder that writes
+ * what it is asked for as SQL, the way a provider would translate it.
+ */
+public class DateRangeSqlTest {
+
+    private static final String URL = "jdbc:h2:mem:daterangesql;DB_CLOSE_DELAY=-1";
+    private static final long HOUR = 3600000L;
+
+    private static final int DEC_31 = DateUtil.epochDay(2013, 12, 31);
+    private static final int JAN_1 = DateUtil.epochDay(2014, 1, 1);
+    private static final int JAN_31 = DateUtil.epochDay(2014, 1, 31);
+    private static final int FEB_1 = DateUtil.epochDay(2014, 2, 1);
+    private static final int DEC_31_2014 = DateUtil.epochDay(2014, 12, 31);
+    private static final int JAN_1_2015 = DateUtil.epochDay(2015, 1, 1);
+
+    private Connection connection;
+    private int nextId;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        Statement s = connection.createStatement();
+        s.execute("CREATE TABLE BOOKING (ID INT PRIMARY KEY, DAY DATE, AT TIMESTAMP)");
+        s.close();
+        // the last and first moments around each day boundary of interest
+        int[] days = {DEC_31, JAN_1, JAN_31, FEB_1, DEC_31_2014, JAN_1_2015};
+        for (int day : days) {
+            insert(day, DateUtil.toDate(day).getTime());
+            insert(day, DateUtil.toDate(day).getTime() + 12 * HOUR);
+            insert(day, DateUtil.toDate(day + 1).getTime() - 1);
+        }
+        insert(null, null);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        Statement s = connection.createStatement();
+        s.execute("DROP TABLE BOOKING");
+        s.close();
+        connection.close();
+    }
+
+    @Test
+    public void boundsAreHalfOpen() {
+        DateRangeBounds b = DateRangeBounds.of(range(JAN_1, JAN_31));
+        assertEquals(JAN_1, b.getStartDay());
+        assertEquals(FEB_1, b.getEndDay());
+        assertEquals(DateUtil.toDate(FEB_1), b.getEnd());
+        assertFalse(b.isEmpty());
+        assertTrue(DateRangeBounds.of(range(FEB_1, JAN_31)).isEmpty());
+    }
+
+    @Test
+    public void fragmentText() {
+        DateRangeSql.Fragment f = DateRangeSql.fragment("AT", range(JAN_1, JAN_31));
+        assertEquals("AT >= ? AND AT < ?", f.getSql());
+        assertEquals(Arrays.<Object>asList(new Timestamp(DateUtil.toDate(JAN_1).getTime()),
+                new Timestamp(DateUtil.toDate(FEB_1).getTime())), f.getParameters());
+        assertEquals("AT >= ?", DateRangeSql.fragment("AT", range(JAN_1, null)).getSql());
+        assertEquals("AT < ?", DateRangeSql.fragment("AT", range(null, JAN_31)).getSql());
+        DateRangeSql.Fragment open = DateRangeSql.fragment("AT", new DateRange(null, null));
+        assertEquals("1 = 1", open.getSql());
+        assertTrue(open.getParameters().isEmpty());
+    }
+
+    @Test
+    public void fragmentOnTimestamps() throws SQLException {
+        // every time of Jan 1 to Jan 31, nothing of Dec 31 or Feb 1
+        assertEquals(ids(JAN_1, JAN_31), select("AT", range(JAN_1, JAN_31)));
+        assertEquals(ids(JAN_1), select("AT", range(JAN_1, JAN_1)));
+    }
+
+    @Test
+    public void fragmentOnDates() throws SQLException {
+        assertEquals(ids(JAN_1, JAN_31), select("DAY", range(JAN_1, JAN_31)));
+        assertEquals(ids(JAN_31), select("DAY", range(JAN_31, JAN_31)));
+    }
+
+    @Test
+    public void openEnds() throws SQLException {
+        assertEquals(ids(JAN_31, FEB_1, DEC_31_2014, JAN_1_2015), select("AT", range(JAN_31, null)));
+        assertEquals(ids(DEC_31, JAN_1), select("DAY", range(null, JAN_1)));
+        // a row without a date matches no bound, but the open condition
+        assertEquals(19, count(DateRangeSql.fragment("AT", new DateRange(null, null))));
+    }
+
+    @Test
+    public void yearBounds() throws SQLException {
+        DateRangeConstraints constraints = new DateRangeConstraints();
+        constraints.setMinYear(2014);
+        constraints.setMaxYear(2014);
+        DateRangeBounds b = DateRangeBounds.of(new DateRange(null, null), constraints, null);
+        assertEquals(JAN_1, b.getStartDay());
+        assertEquals(JAN_1_2015, b.getEndDay());
+        assertEquals(ids(JAN_1, JAN_31, FEB_1, DEC_31_2014), select("AT", b));
+        assertEquals(ids(JAN_1, JAN_31, FEB_1, DEC_31_2014), select("DAY", b));
+        // an explicit range stays narrower
+        assertEquals(ids(JAN_31, FEB_1), select("AT", DateRangeBounds.of(range(JAN_31, FEB_1), constraints, null)));
+    }
+
+    @Test
+    public void withinYearNarrowing() throws SQLException {
+        DateRangeConstraints constraints = new DateRangeConstraints();
+        DateRange wide = range(DEC_31, JAN_1_2015);
+        assertEquals(DateRangeBounds.of(wide), DateRangeBounds.of(wide, constraints, 2014));
+        constraints.setWithinYear(true);
+        DateRangeBounds b = DateRangeBounds.of(wide, constraints, 2014);
+        assertEquals(JAN_1, b.getStartDay());
+        assertEquals(JAN_1_2015, b.getEndDay());
+        assertEquals(ids(JAN_1, JAN_31, FEB_1, DEC_31_2014), select("AT", b));
+        // no year selected
+        assertEquals(DateRangeBounds.of(wide), DateRangeBounds.of(wide, constraints, null));
+        // a range outside the year is empty
+        DateRangeBounds outside = DateRangeBounds.of(range(DEC_31, DEC_31), constraints, 2014);
+        assertTrue(outside.isEmpty());
+        assertEquals(ids(), select("AT", outside));
+    }
+
+    @Test
+    public void filterOnSQLContainer() throws SQLException {
+        SimpleJDBCConnectionPool pool = new SimpleJDBCConnectionPool("org.h2.Driver", URL, "sa", "", 1, 2);
+        try {
+            SQLContainer container = new SQLContainer(new TableQuery("BOOKING", pool));
+            assertEquals(19, container.size());
+            container.addContainerFilter(DateRangeSql.filter("AT", range(JAN_1, JAN_31)));
+            assertEquals(ids(JAN_1, JAN_31), containerIds(container));
+            container.removeAllContainerFilters();
+            container.addContainerFilter(DateRangeSql.filter("DAY", range(JAN_31, null)));
+            assertEquals(ids(JAN_31, FEB_1, DEC_31_2014, JAN_1_2015), containerIds(container));
+            container.removeAllContainerFilters();
+            DateRangeConstraints constraints = new DateRangeConstraints();
+            constraints.setWithinYear(true);
+            container.addContainerFilter(DateRangeSql.filter("AT",
+                    DateRangeBounds.of(range(DEC_31, JAN_1_2015), constraints, 2014)));
+            assertEquals(ids(JAN_1, JAN_31, FEB_1, DEC_31_2014), containerIds(container));
+            assertNull(DateRangeSql.filter("AT", new DateRange(null, null)));
+        } finally {
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void criteriaPredicates() throws SQLException {
+        assertEquals("(AT >= ?) AND (AT < ?)", criteria("AT", DateRangeBounds.of(range(JAN_1, JAN_31))).getSql());
+        assertEquals(ids(JAN_1, JAN_31), select(criteria("AT", DateRangeBounds.of(range(JAN_1, JAN_31)))));
+        assertEquals(ids(JAN_31), select(criteria("DAY", DateRangeBounds.of(range(JAN_31, JAN_31)))));
+        assertEquals(ids(JAN_31, FEB_1, DEC_31_2014, JAN_1_2015), select(criteria("AT",
+                DateRangeBounds.of(range(JAN_31, null)))));
+        assertEquals(ids(DEC_31, JAN_1), select(criteria("DAY", DateRangeBounds.of(range(null, JAN_1)))));
+        DateRangeSql.Fragment open = criteria("AT", DateRangeBounds.of(new DateRange(null, null)));
+        assertEquals("1 = 1", open.getSql());
+        assertEquals(19, count(open));
+        DateRangeConstraints constraints = new DateRangeConstraints();
+        constraints.setWithinYear(true);
+        DateRangeBounds year = DateRangeBounds.of(range(DEC_31, JAN_1_2015), constraints, 2014);
+        assertEquals(ids(JAN_1, JAN_31, FEB_1, DEC_31_2014), select(criteria("AT", year)));
+        // the same conditions as the plain fragment
+        for (DateRange r : new DateRange[]{range(JAN_1, JAN_31), range(JAN_31, null), range(null, JAN_1)}) {
+            assertEquals(DateRangeSql.fragment("AT", r).getParameters(), criteria("AT", r).getParameters());
+        }
+    }
+
+    // the predicate for the column as SQL, written by a CriteriaBuilder that knows just what DateRangeCriteria uses
+    private static DateRangeSql.Fragment criteria(String column, DateRangeBounds bounds) {
+        SqlNode predicate = SqlNode.of(DateRangeCriteria.predicate(SqlNode.criteriaBuilder(),
+                SqlNode.<Date>expression(column), bounds));
+        return new DateRangeSql.Fragment(predicate.sql, predicate.parameters);
+    }
+
+    private static DateRangeSql.Fragment criteria(String column, DateRange range) {
+        SqlNode predicate = SqlNode.of(DateRangeCriteria.predicate(SqlNode.criteriaBuilder(),
+                SqlNode.<Date>expression(column), range));
+        return new DateRangeSql.Fragment(predicate.sql, predicate.parameters);
+    }
+
+    /**
+     * An expression or predicate as SQL, behind a proxy of the JPA interface.  Anything DateRangeCriteria isn't
+     * expected to call throws.
+     */
+    private static final class SqlNode implements InvocationHandler {
+        final String sql;
+        final List<Object> parameters;
+
+        SqlNode(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("toString".equals(method.getName())) {
+                return sql;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+
+        static SqlNode of(Object proxy) {
+            return (SqlNode) Proxy.getInvocationHandler(proxy);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Expression<T> expression(String column) {
+            return (Expression<T>) proxy(Expression.class, new SqlNode(column, new ArrayList<Object>()));
+        }
+
+        static Predicate predicate(String sql, List<Object> parameters) {
+            return (Predicate) proxy(Predicate.class, new SqlNode(sql, parameters));
+        }
+
+        static CriteriaBuilder criteriaBuilder() {
+            return (CriteriaBuilder) proxy(CriteriaBuilder.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    String name = method.getName();
+                    if ("greaterThanOrEqualTo".equals(name) && (args[1] instanceof Date)) {
+                        return compare(args[0], " >= ?", (Date) args[1]);
+                    }
+                    if ("lessThan".equals(name) && (args[1] instanceof Date)) {
+                        return compare(args[0], " < ?", (Date) args[1]);
+                    }
+                    if ("and".equals(name) && (2 == args.length)) {
+                        SqlNode a = of(args[0]);
+                        SqlNode b = of(args[1]);
+                        List<Object> parameters = new ArrayList<Object>(a.parameters);
+                        parameters.addAll(b.parameters);
+                        return predicate("(" + a.sql + ") AND (" + b.sql + ")", parameters);
+                    }
+                    if ("conjunction".equals(name)) {
+                        return predicate("1 = 1", new ArrayList<Object>());
+                    }
+                    throw new UnsupportedOperationException(name);
+                }
+            });
+        }
+
+        // bound as a timestamp, as a provider does for a temporal attribute
+        private static Predicate compare(Object expression, String operator, Date value) {
+            List<Object> parameters = new ArrayList<Object>(of(expression).parameters);
+            parameters.add(new Timestamp(value.getTime()));
+            return predicate(of(expression).sql + operator, parameters);
+        }
+
+        private static Object proxy(Class<?> type, InvocationHandler handler) {
+            return Proxy.newProxyInstance(DateRangeSqlTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+
+    private void insert(Integer day, Long at) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement("INSERT INTO BOOKING VALUES (?, ?, ?)");
+        ps.setInt(1, nextId++);
+        ps.setDate(2, (null == day) ? null : new java.sql.Date(DateUtil.toDate(day).getTime()));
+        ps.setTimestamp(3, (null == at) ? null : new Timestamp(at));
+        ps.executeUpdate();
+        ps.close();
+    }
+
+    // the ids inserted for the days, three per day in the order of setUp
+    private static List<Integer> ids(int... days) {
+        int[] all = {DEC_31, JAN_1, JAN_31, FEB_1, DEC_31_2014, JAN_1_2015};
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int i = 0; i < all.length; i++) {
+            for (int day : days) {
+                if (day == all[i]) {
+                    ids.add(3 * i);
+                    ids.add(3 * i + 1);
+                    ids.add(3 * i + 2);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static DateRange range(Integer from, Integer to) {
+        return new DateRange((null == from) ? null : DateUtil.toDate(from), (null == to) ? null : DateUtil.toDate(to));
+    }
+
+    private List<Integer> select(String column, DateRange range) throws SQLException {
+        return select(column, DateRangeBounds.of(range));
+    }
+
+    private List<Integer> select(String column, DateRangeBounds bounds) throws SQLException {
+        return select(DateRangeSql.fragment(column, bounds));
+    }
+
+    private List<Integer> select(DateRangeSql.Fragment f) throws SQLException {
+        PreparedStatement ps = prepare("SELECT ID FROM BOOKING WHERE " + f.getSql() + " ORDER BY ID", f);
+        List<Integer> ids = new ArrayList<Integer>();
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+            ids.add(rs.getInt(1));
+        }
+        ps.close();
+        return ids;
+    }
+
+    private int count(DateRangeSql.Fragment f) throws SQLException {
+        PreparedStatement ps = prepare("SELECT COUNT(*) FROM BOOKING WHERE " + f.getSql(), f);
+        ResultSet rs = ps.executeQuery();
+        rs.next();
+        int count = rs.getInt(1);
+        ps.close();
+        return count;
+    }
+
+    private PreparedStatement prepare(String sql, DateRangeSql.Fragment f) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql);
+        for (int i = 0; i < f.getParameters().size(); i++) {
+            ps.setObject(i + 1, f.getParameters().get(i));
+        }
+        return ps;
+    }
+
+    private static List<Integer> containerIds(Container container) {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (Object itemId : container.getItemIds()) {
+            ids.add((Integer) container.getContainerProperty(itemId, "ID").getValue());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,115 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The epoch-day arithmetic of DateUtil against Joda-Time's LocalDate, for days from the year -220 to 4160.
+ */
+public class DateUtilTest {
+
+    private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+
+    private DateTimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = DateTimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        DateTimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void civilDates() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200000; i++) {
+            int day = random.nextInt(1600000) - 800000;
+            LocalDate date = EPOCH.plusDays(day);
+            assertEquals(date.getYear(), DateUtil.yearOfEpochDay(day));
+            assertEquals(date.getMonthOfYear(), DateUtil.monthOfEpochDay(day));
+            assertEquals(date.getDayOfMonth(), DateUtil.dayOfMonthOfEpochDay(day));
+            assertEquals(day, DateUtil.epochDay(date.getYear(), date.getMonthOfYear(), date.getDayOfMonth()));
+        }
+    }
+
+    @Test
+    public void everyDayAroundTheEpochAndLeapDays() {
+        // 1600 and 2000 are leap years, 1700, 1800 and 1900 are not
+        for (int day = DateUtil.epochDay(1599, 1, 1); day <= DateUtil.epochDay(2001, 1, 1); day++) {
+            LocalDate date = EPOCH.plusDays(day);
+            assertEquals(day, DateUtil.epochDay(date.getYear(), date.getMonthOfYear(), date.getDayOfMonth()));
+            assertEquals(date.getDayOfMonth(), DateUtil.dayOfMonthOfEpochDay(day));
+        }
+        for (int year = -400; year <= 2400; year++) {
+            boolean leap = new LocalDate(year, 1, 1).year().isLeap();
+            assertEquals(String.valueOf(year), leap, DateUtil.isLeapYear(year));
+            assertEquals(leap ? 366 : 365, DateUtil.lastEpochDayOfYear(year) - DateUtil.firstEpochDayOfYear(year) + 1);
+            for (int month = 1; month <= 12; month++) {
+                assertEquals(new LocalDate(year, month, 1).dayOfMonth().getMaximumValue(),
+                        DateUtil.daysInMonth(year, month));
+            }
+        }
+        assertEquals(-1, DateUtil.epochDay(1969, 12, 31));
+        assertEquals(59, DateUtil.epochDay(1970, 3, 1));
+        assertEquals(-307, DateUtil.epochDay(1969, 2, 28));
+    }
+
+    @Test
+    public void sameDayDifferentYear() {
+        int leapDay = DateUtil.epochDay(2012, 2, 29);
+        assertEquals(DateUtil.epochDay(1600, 2, 29), DateUtil.sameDayDifferentYear(leapDay, 1600));
+        assertEquals(DateUtil.epochDay(1969, 12, 31), DateUtil.sameDayDifferentYear(DateUtil.epochDay(2014, 12, 31),
+                1969));
+        try {
+            DateUtil.sameDayDifferentYear(leapDay, 1900);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // 1900 was not a leap year
+        }
+    }
+
+    @Test
+    public void floorDiv() {
+        Random random = new Random(13);
+        long[] divisors = {1, 7, DateUtil.MILLIS_PER_DAY, 146097};
+        for (int i = 0; i < 100000; i++) {
+            long x = random.nextLong() >> random.nextInt(64);
+            long y = divisors[random.nextInt(divisors.length)];
+            long q = DateUtil.floorDiv(x, y);
+            // the largest q with q * y <= x
+            assertTrue(x + " / " + y, (q * y <= x) && (x - q * y < y));
+        }
+        assertEquals(-1, DateUtil.floorDiv(-1, DateUtil.MILLIS_PER_DAY));
+        assertEquals(-1, DateUtil.floorDiv(-DateUtil.MILLIS_PER_DAY, DateUtil.MILLIS_PER_DAY));
+        assertEquals(0, DateUtil.floorDiv(DateUtil.MILLIS_PER_DAY - 1, DateUtil.MILLIS_PER_DAY));
+    }
+
+    @Test
+    public void instantsToLocalDays() {
+        Random random = new Random(17);
+        for (String id : new String[]{"UTC", "America/Sao_Paulo", "Asia/Kathmandu", "Pacific/Apia",
+                "America/St_Johns"}) {
+            DateTimeZone zone = DateTimeZone.forID(id);
+            DateTimeZone.setDefault(zone);
+            for (int i = 0; i < 20000; i++) {
+                // 1830 to 2110, before the epoch in about half
+                long millis = (long) ((random.nextDouble() - 0.5) * 8.8e12);
+                int expected = Days.daysBetween(EPOCH, new LocalDate(millis, zone)).getDays();
+                assertEquals(id + " " + millis, expected, DateUtil.toEpochDay(millis));
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.vaadin.addon.daterangefield;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * DayBoundaries and the DateUtil methods built on it against Joda-Time's toDateTimeAtStartOfDay, in zones whose
+ * clocks jump at or near midnight: forward and back over it (Sao Paulo), back just after it (Algiers in 1939), past
+ * a whole day (Apia at the end of 2011), and at the edges of the years that are kept in tables.
+ */
+public class DayBoundariesTest {
+
+    private static final LocalDate EPOCH = new LocalDate(1970, 1, 1);
+    private static final long HOUR = 3600000L;
+
+    private static final DateTimeZone SAO_PAULO = DateTimeZone.forID("America/Sao_Paulo");
+    private static final DateTimeZone ALGIERS = DateTimeZone.forID("Africa/Algiers");
+    private static final DateTimeZone APIA = DateTimeZone.forID("Pacific/Apia");
+
+    private DateTimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        defaultZone = DateTimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        DateTimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void saoPauloSpringsForwardAtMidnight() {
+        // 2013-10-20 started at 01:00
+        int day = DateUtil.epochDay(2013, 10, 20);
+        assertEquals(new DateTime(2013, 10, 20, 1, 0, SAO_PAULO).getMillis(),
+                DayBoundaries.forZone(SAO_PAULO).startOf(day));
+        checkDays(SAO_PAULO, DateUtil.epochDay(2012, 1, 1), DateUtil.epochDay(2015, 1, 1));
+        checkDateUtil(SAO_PAULO, 2013, 10, 20);
+    }
+
+    @Test
+    public void saoPauloFallsBackOverMidnight() {
+        // 2013-02-17 00:00 was 2013-02-16 23:00 again, so the 16th ended twice
+        int day = DateUtil.epochDay(2013, 2, 17);
+        assertEquals(new DateTime(2013, 2, 17, 0, 0, SAO_PAULO).getMillis(),
+                DayBoundaries.forZone(SAO_PAULO).startOf(day));
+        checkDateUtil(SAO_PAULO, 2013, 2, 16);
+        checkDateUtil(SAO_PAULO, 2013, 2, 17);
+        DateTime beforeMidnight = new DateTime(2013, 2, 16, 23, 30, SAO_PAULO);
+        DateTime repeated = beforeMidnight.plusHours(1);
+        assertEquals(beforeMidnight.toLocalDate(), repeated.toLocalDate());
+        checkComparisons(beforeMidnight, repeated);
+        checkComparisons(repeated, repeated.plusHours(1));
+    }
+
+    @Test
+    public void algiersFellBackAfterMidnight() {
+        // 1939-11-19 01:00 was 00:00 again, so the 19th had its first hour twice
+        checkDays(ALGIERS, DateUtil.epochDay(1939, 1, 1), DateUtil.epochDay(1941, 1, 1));
+        checkDateUtil(ALGIERS, 1939, 11, 18);
+        checkDateUtil(ALGIERS, 1939, 11, 19);
+        DateTime beforeMidnight = new DateTime(1939, 11, 18, 23, 30, ALGIERS);
+        DateTime first = beforeMidnight.plusHours(1);
+        DateTime repeated = first.plusHours(1);
+        assertEquals(first.toLocalDate(), repeated.toLocalDate());
+        checkComparisons(beforeMidnight, first);
+        checkComparisons(first, repeated);
+        checkComparisons(beforeMidnight, repeated);
+    }
+
+    @Test
+    public void apiaSkippedADay() {
+        // 2011-12-29 24:00 was 2011-12-31 00:00, there was no 30th
+        int skipped = DateUtil.epochDay(2011, 12, 30);
+        DayBoundaries boundaries = DayBoundaries.forZone(APIA);
+        assertEquals(expectedStart(APIA, skipped), boundaries.startOf(skipped));
+        assertEquals(skipped + 1, boundaries.epochDay(boundaries.startOf(skipped + 1)));
+        assertEquals(skipped - 1, boundaries.epochDay(boundaries.startOf(skipped + 1) - 1));
+        checkDays(APIA, DateUtil.epochDay(2011, 1, 1), DateUtil.epochDay(2013, 1, 1));
+        checkDateUtil(APIA, 2011, 12, 29);
+        checkDateUtil(APIA, 2011, 12, 31);
+        DateTime before = new DateTime(2011, 12, 29, 23, 0, APIA);
+        checkComparisons(before, before.plusHours(2));
+    }
+
+    @Test
+    public void apiaFirstDayOf1950() {
+        // the clocks went forward at midnight, new DateTime(1950, 1, 1, 0, 0) throws there
+        DateTimeZone.setDefault(APIA);
+        Date first = DateUtil.firstDayOfYear(1950);
+        assertEquals(expectedStart(APIA, DateUtil.epochDay(1950, 1, 1)), first.getTime());
+        assertEquals(DateUtil.epochDay(1950, 1, 1), DateUtil.toEpochDay(first));
+        assertEquals(first, DateUtil.sameDayDifferentYear(DateUtil.toDate(DateUtil.epochDay(1949, 1, 1)), 1950));
+    }
+
+    @Test
+    public void edgesOfTheTables() {
+        int[] edges = {DateUtil.epochDay(1900, 1, 1), DateUtil.epochDay(2100, 1, 1)};
+        for (DateTimeZone zone : new DateTimeZone[]{DateTimeZone.UTC, SAO_PAULO, ALGIERS, APIA,
+                DateTimeZone.forID("Europe/Amsterdam"), DateTimeZone.forID("Asia/Kathmandu")}) {
+            for (int edge : edges) {
+                // a block is 256 days, so this covers the last day in a table and the first one without
+                checkDays(zone, edge - 600, edge + 600);
+            }
+            checkDateUtil(zone, 1899, 12, 31);
+            checkDateUtil(zone, 1900, 1, 1);
+            checkDateUtil(zone, 2099, 12, 31);
+            checkDateUtil(zone, 2100, 1, 1);
+            checkDateUtil(zone, 2101, 3, 1);
+        }
+    }
+
+    @Test
+    public void sameDayInALeapYearOnly() {
+        DateTimeZone.setDefault(SAO_PAULO);
+        Date leapDay = DateUtil.toDate(DateUtil.epochDay(2012, 2, 29));
+        assertEquals(DateUtil.toDate(DateUtil.epochDay(2016, 2, 29)), DateUtil.sameDayDifferentYear(leapDay, 2016));
+        try {
+            DateUtil.sameDayDifferentYear(leapDay, 2013);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // as new DateTime(2013, 2, 29, 0, 0) did
+        }
+    }
+
+    // starts of the days, and the day of instants in and around each of them
+    private static void checkDays(DateTimeZone zone, int fromDay, int toDay) {
+        DayBoundaries boundaries = DayBoundaries.forZone(zone);
+        for (int day = fromDay; day < toDay; day++) {
+            long start = boundaries.startOf(day);
+            assertEquals(zone + " " + day, expectedStart(zone, day), start);
+            for (long millis : new long[]{start - 1, start, start + HOUR, start + 12 * HOUR, start + 23 * HOUR}) {
+                assertEquals(zone + " " + millis, localDay(zone, millis), boundaries.epochDay(millis));
+            }
+        }
+    }
+
+    // the DateUtil methods with the zone as the default one
+    private static void checkDateUtil(DateTimeZone zone, int year, int month, int dayOfMonth) {
+        DateTimeZone.setDefault(zone);
+        int day = DateUtil.epochDay(year, month, dayOfMonth);
+        Date date = DateUtil.toDate(day);
+        assertEquals(expectedStart(zone, day), date.getTime());
+        assertEquals(day, DateUtil.toEpochDay(date));
+        assertEquals(expectedStart(zone, DateUtil.firstEpochDayOfYear(year)), DateUtil.firstDayOfYear(year).getTime());
+        assertEquals(expectedStart(zone, DateUtil.lastEpochDayOfYear(year)), DateUtil.lastDayOfYear(year).getTime());
+        // from any time of the day
+        Date later = new Date(date.getTime() + 13 * HOUR);
+        assertEquals(new LocalDate(year + 1, month, dayOfMonth).toDateTimeAtStartOfDay(zone).getMillis(),
+                DateUtil.sameDayDifferentYear(later, year + 1).getTime());
+    }
+
+    // DateUtil against comparing withTimeAtStartOfDay, as it used to
+    private static void checkComparisons(DateTime a, DateTime b) {
+        for (DateTime[] pair : new DateTime[][]{{a, b}, {b, a}, {a, a}}) {
+            long x = pair[0].withTimeAtStartOfDay().getMillis();
+            long y = pair[1].withTimeAtStartOfDay().getMillis();
+            assertEquals(x >= y, DateUtil.isOnOrAfter(pair[0], pair[1]));
+            assertEquals(x <= y, DateUtil.isOnOrBefore(pair[0], pair[1]));
+        }
+        assertFalse(DateUtil.isOnOrAfter(a, null));
+        assertTrue(DateUtil.isOnOrBefore(a, a));
+    }
+
+    private static long expectedStart(DateTimeZone zone, int day) {
+        return EPOCH.plusDays(day).toDateTimeAtStartOfDay(zone).getMillis();
+    }
+
+    private static int localDay(DateTimeZone zone, long millis) {
+        return Days.daysBetween(EPOCH, new LocalDate(millis, zone)).getDays();
+    }
+}
@@ -0,0 +1,111 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+import com.vaadin.data.util.ObjectProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Deferred validation without a UI: changes only mark the sub fields, the highlighting happens once when the
+ * response is written, and validate() and commit() see the current errors before that.
+ */
+public class DeferredValidationTest {
+
+    private static final int DAY = 16071;
+
+    private DateRangeField field;
+    private CountingMetrics metrics;
+    private ObjectProperty<Date> fromProperty;
+
+    @Before
+    public void setUp() {
+        fromProperty = new ObjectProperty<Date>(DateUtil.toDate(DAY), Date.class);
+        field = new DateRangeField(fromProperty, new ObjectProperty<Date>(DateUtil.toDate(DAY + 10), Date.class),
+                false, 2014, true);
+        field.setErrorStyleName("invalid");
+        field.initContent();
+        metrics = new CountingMetrics();
+        field.setMetrics(metrics);
+        field.setDeferredValidation(true);
+    }
+
+    @Test
+    public void highlightsOncePerResponse() {
+        field.getFromField().setValue(DateUtil.toDate(DAY + 20));
+        field.getToField().setValue(DateUtil.toDate(DAY + 15));
+        field.getFromField().setValue(DateUtil.toDate(DAY + 30));
+        assertEquals(0, metrics.subFieldsValidated);
+        assertFalse(isHighlighted(field.getFromField()));
+
+        field.beforeClientResponse(false);
+        assertEquals(1, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+        assertEquals(3, metrics.subFieldsValidated);
+        assertTrue(isHighlighted(field.getFromField()));
+        assertTrue(isHighlighted(field.getToField()));
+        assertFalse(isHighlighted(field.getYearField()));
+
+        // nothing changed since
+        field.beforeClientResponse(false);
+        assertEquals(1, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+
+        field.getFromField().setValue(DateUtil.toDate(DAY));
+        field.beforeClientResponse(false);
+        assertEquals(2, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+        assertFalse(isHighlighted(field.getFromField()));
+        assertFalse(isHighlighted(field.getToField()));
+    }
+
+    @Test
+    public void validateSeesPendingChanges() {
+        field.getFromField().setValue(DateUtil.toDate(DAY + 20));
+        assertFalse(field.isValid());
+        try {
+            field.validate();
+            fail();
+        } catch (Validator.InvalidValueException expected) {
+            assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE, expected.getMessage());
+        }
+        // validating highlighted everything, so the response has nothing left to do
+        assertTrue(isHighlighted(field.getFromField()));
+        int highlights = metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT);
+        field.beforeClientResponse(false);
+        assertEquals(highlights, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+    }
+
+    @Test
+    public void commitSeesPendingChanges() {
+        field.getToField().setValue(DateUtil.toDate(DAY - 1));
+        try {
+            field.commit();
+            fail();
+        } catch (Validator.InvalidValueException expected) {
+            assertEquals(DAY, DateUtil.toEpochDay(fromProperty.getValue()));
+        }
+        field.getToField().setValue(DateUtil.toDate(DAY + 5));
+        field.commit();
+        assertFalse(isHighlighted(field.getToField()));
+    }
+
+    @Test
+    public void turningItOffHighlightsWhatIsPending() {
+        field.getFromField().setValue(DateUtil.toDate(DAY + 20));
+        assertFalse(isHighlighted(field.getFromField()));
+        field.setDeferredValidation(false);
+        assertTrue(isHighlighted(field.getFromField()));
+        // and from then on right away
+        field.getFromField().setValue(DateUtil.toDate(DAY));
+        assertFalse(isHighlighted(field.getFromField()));
+    }
+
+    private static boolean isHighlighted(com.vaadin.ui.Component c) {
+        String styles = c.getStyleName();
+        return (null != styles) && styles.contains("invalid");
+    }
+}
@@ -0,0 +1,162 @@
+package org.vaadin.addon.daterangefield;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The log-linear latency buckets and percentiles against exact values, and the counters under concurrent
+ * recording.
+ */
+public class InMemoryDateRangeFieldMetricsTest {
+
+    private static final DateRangeFieldMetrics.Operation OP = DateRangeFieldMetrics.Operation.VALIDATE;
+
+    @Test
+    public void buckets() {
+        for (int v = 0; v < 16; v++) {
+            assertEquals(v, InMemoryDateRangeFieldMetrics.LatencyHistogram.bucket(v));
+            assertEquals(v, InMemoryDateRangeFieldMetrics.LatencyHistogram.highestValue(v));
+        }
+        // around every power of two, then anywhere
+        List<Long> values = new ArrayList<Long>();
+        for (int exp = 4; exp < 63; exp++) {
+            for (long d = -2; d <= 2; d++) {
+                values.add((1L << exp) + d);
+            }
+        }
+        values.add(Long.MAX_VALUE);
+        Random random = new Random(29);
+        for (int i = 0; i < 100000; i++) {
+            values.add((random.nextLong() >>> 1) >> random.nextInt(63));
+        }
+        for (long v : values) {
+            int bucket = InMemoryDateRangeFieldMetrics.LatencyHistogram.bucket(v);
+            long highest = InMemoryDateRangeFieldMetrics.LatencyHistogram.highestValue(bucket);
+            long lowest = InMemoryDateRangeFieldMetrics.LatencyHistogram.highestValue(bucket - 1) + 1;
+            assertTrue(v + " in " + bucket, (lowest <= v) && (v <= highest));
+            // a bucket is at most a sixteenth of its lowest value wide
+            assertTrue(v + " in " + bucket, highest - lowest < Math.max(1, lowest / 16));
+        }
+        assertEquals(959, InMemoryDateRangeFieldMetrics.LatencyHistogram.bucket(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, InMemoryDateRangeFieldMetrics.LatencyHistogram.highestValue(959));
+    }
+
+    @Test
+    public void percentilesOfAKnownDistribution() {
+        InMemoryDateRangeFieldMetrics metrics = new InMemoryDateRangeFieldMetrics();
+        assertEquals(0, metrics.getNanosAtPercentile(OP, 50));
+        // 1 to 100,000 once each, shuffled
+        int n = 100000;
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i + 1;
+        }
+        Random random = new Random(31);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+        for (long v : values) {
+            metrics.operation(OP, v);
+        }
+        for (double p : new double[]{0.001, 1, 10, 50, 90, 99, 99.9, 99.99}) {
+            long exact = (long) Math.ceil(p / 100 * n);
+            long reported = metrics.getNanosAtPercentile(OP, p);
+            assertTrue(p + ": " + reported + " for " + exact, (reported >= exact) && (reported <= exact * 17 / 16));
+        }
+        assertEquals(n, metrics.getNanosAtPercentile(OP, 100));
+        assertEquals(n, metrics.getMaxNanos(OP));
+        assertEquals(n, metrics.getCount(OP));
+        assertEquals((long) n * (n + 1) / 2, metrics.getTotalNanos(OP));
+    }
+
+    @Test
+    public void smallAndNegativeValues() {
+        InMemoryDateRangeFieldMetrics metrics = new InMemoryDateRangeFieldMetrics();
+        metrics.operation(OP, -5);
+        metrics.operation(OP, 3);
+        metrics.operation(OP, 3);
+        metrics.operation(OP, 15);
+        assertEquals(0, metrics.getNanosAtPercentile(OP, 25));
+        assertEquals(3, metrics.getNanosAtPercentile(OP, 50));
+        assertEquals(3, metrics.getNanosAtPercentile(OP, 75));
+        assertEquals(15, metrics.getNanosAtPercentile(OP, 99));
+        assertEquals(21, metrics.getTotalNanos(OP));
+        metrics.reset();
+        assertEquals(0, metrics.getCount(OP));
+        assertEquals(0, metrics.getMaxNanos(OP));
+    }
+
+    @Test
+    public void exactCountsFromManyThreads() throws Exception {
+        final InMemoryDateRangeFieldMetrics metrics = new InMemoryDateRangeFieldMetrics();
+        final int threads = 8;
+        final int perThread = 100000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int i = 0; i < perThread; i++) {
+                            metrics.operation(OP, thread * 1000 + (i % 1000));
+                            metrics.valueChanged();
+                            metrics.subFieldValidated(0 != (i & 1));
+                            if (0 == (i % 100)) {
+                                metrics.validationFailed("Failure " + (i % 3));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long total = (long) threads * perThread;
+        assertEquals(total, metrics.getCount(OP));
+        assertEquals(total, metrics.getValueChanges());
+        assertEquals(total, metrics.getSubFieldValidations());
+        assertEquals(total / 2, metrics.getInvalidSubFields());
+        // every thread records 0 to 999 a hundred times, offset by 1000 per thread
+        long sum = 0;
+        for (int t = 0; t < threads; t++) {
+            sum += (perThread / 1000) * (1000L * t * 1000 + 999L * 1000 / 2);
+        }
+        assertEquals(sum, metrics.getTotalNanos(OP));
+        assertEquals(threads * 1000 - 1, metrics.getMaxNanos(OP));
+        long failures = 0;
+        for (long c : metrics.getFailures().values()) {
+            failures += c;
+        }
+        assertEquals(threads * perThread / 100, failures);
+    }
+
+    @Test
+    public void distinctFailuresAreCapped() {
+        InMemoryDateRangeFieldMetrics metrics = new InMemoryDateRangeFieldMetrics(false);
+        for (int i = 0; i < 300; i++) {
+            metrics.validationFailed("Failure " + i);
+        }
+        metrics.validationFailed(null);
+        assertEquals(257, metrics.getFailures().size());
+        assertEquals(Long.valueOf(45), metrics.getFailures().get(InMemoryDateRangeFieldMetrics.OTHER));
+    }
+}
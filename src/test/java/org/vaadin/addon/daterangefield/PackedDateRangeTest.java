@@ -0,0 +1,112 @@
+package org.vaadin.addon.daterangefield;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The packed form and the range operations on it, checked against the days each range holds.
+ */
+public class PackedDateRangeTest {
+
+    @Test
+    public void packAndUnpack() {
+        int[] days = {Integer.MIN_VALUE, -719468, -1, 0, 1, 16071, Integer.MAX_VALUE};
+        for (int from : days) {
+            for (int to : days) {
+                long p = PackedDateRange.pack(from, to);
+                assertEquals(from, PackedDateRange.fromDay(p));
+                assertEquals(to, PackedDateRange.toDay(p));
+                assertEquals(from > to, PackedDateRange.isEmpty(p));
+            }
+        }
+        assertTrue(PackedDateRange.isEmpty(PackedDateRange.EMPTY));
+        assertEquals(0, PackedDateRange.length(PackedDateRange.EMPTY));
+        assertEquals(1, PackedDateRange.length(PackedDateRange.pack(-1, -1)));
+        assertEquals(3, PackedDateRange.of(-1, 1).length());
+    }
+
+    // every pair of ranges within a week, empty ones included, against their sets of days
+    @Test
+    public void pairsOfSmallRanges() {
+        for (int af = -3; af <= 3; af++) {
+            for (int at = -4; at <= 3; at++) {
+                for (int bf = -3; bf <= 3; bf++) {
+                    for (int bt = -4; bt <= 3; bt++) {
+                        long a = PackedDateRange.pack(af, at);
+                        long b = PackedDateRange.pack(bf, bt);
+                        int common = 0;
+                        boolean bInA = true;
+                        for (int day = bf; day <= bt; day++) {
+                            if ((day >= af) && (day <= at)) {
+                                common++;
+                            } else {
+                                bInA = false;
+                            }
+                        }
+                        String pair = PackedDateRange.ofPacked(a) + " " + PackedDateRange.ofPacked(b);
+                        assertEquals(pair, common > 0, PackedDateRange.overlaps(a, b));
+                        assertEquals(pair, common > 0, PackedDateRange.overlaps(b, a));
+                        assertEquals(pair, common, PackedDateRange.length(PackedDateRange.intersect(a, b)));
+                        assertEquals(pair, bInA && (bf <= bt), PackedDateRange.contains(a, b));
+                        if ((af <= at) && (bf <= bt)) {
+                            int between = Math.max(0, Math.max(af, bf) - Math.min(at, bt) - 1);
+                            assertEquals(pair, between, PackedDateRange.gap(a, b));
+                            assertEquals(pair, PackedDateRange.pack(Math.min(af, bf), Math.max(at, bt)),
+                                    PackedDateRange.span(a, b));
+                        }
+                    }
+                }
+                for (int day = -4; day <= 4; day++) {
+                    assertEquals((day >= af) && (day <= at), PackedDateRange.contains(PackedDateRange.pack(af, at),
+                            day));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyRanges() {
+        long empty = PackedDateRange.pack(5, 4);
+        long week = PackedDateRange.pack(0, 6);
+        assertFalse(PackedDateRange.overlaps(empty, week));
+        assertFalse(PackedDateRange.contains(week, empty));
+        assertEquals(week, PackedDateRange.span(empty, week));
+        assertEquals(week, PackedDateRange.span(week, empty));
+        assertNull(PackedDateRange.of(0, 2).intersect(PackedDateRange.of(3, 4)));
+    }
+
+    @Test
+    public void instances() {
+        PackedDateRange a = PackedDateRange.of(0, 10);
+        PackedDateRange b = PackedDateRange.of(2, 3);
+        assertSame(b, a.intersect(b));
+        assertSame(a, a.span(b));
+        assertEquals(PackedDateRange.of(0, 10), a);
+        assertEquals(a.hashCode(), PackedDateRange.ofPacked(a.getPacked()).hashCode());
+        // by from day, then to day, negative days first
+        assertTrue(PackedDateRange.of(-1, 20).compareTo(a) < 0);
+        assertTrue(PackedDateRange.of(0, 9).compareTo(a) < 0);
+        assertEquals(0, PackedDateRange.of(0, 10).compareTo(a));
+        assertEquals("PackedDateRange(1969-12-31..1970-1-11)", PackedDateRange.of(-1, 10).toString());
+    }
+
+    @Test
+    public void dateRanges() {
+        Date from = DateUtil.toDate(DateUtil.epochDay(2014, 1, 1));
+        Date to = new Date(DateUtil.toDate(DateUtil.epochDay(2014, 1, 31)).getTime() + 3600000L);
+        PackedDateRange p = PackedDateRange.of(new DateRange(from, to));
+        assertEquals(DateUtil.epochDay(2014, 1, 1), p.getFromDay());
+        assertEquals(DateUtil.epochDay(2014, 1, 31), p.getToDay());
+        assertEquals(new DateRange(from, DateUtil.toDate(DateUtil.epochDay(2014, 1, 31))), p.toDateRange());
+        assertNull(PackedDateRange.of(new DateRange(null, to)));
+        assertNull(PackedDateRange.of(new DateRange(from, null)));
+        assertNull(PackedDateRange.of((DateRange) null));
+    }
+}
@@ -0,0 +1,196 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+import com.vaadin.data.util.ObjectProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The compact serialized forms written for session replication: sizes stay below what they were before, and what
+ * is read back equals what was written, transient state included.  The bounds leave some room for other JDKs.
+ */
+public class SerializationTest {
+
+    private static final int DAY = 16071;
+
+    @Test
+    public void dateRangeOfWholeDays() throws Exception {
+        DateRange dr = new DateRange(DateUtil.toDate(DAY), DateUtil.toDate(DAY + 364));
+        byte[] bytes = write(dr);
+        // 157 bytes with default serialization
+        assertTrue(bytes.length + " bytes", bytes.length <= 80);
+        assertEquals(dr, read(bytes));
+    }
+
+    @Test
+    public void dateRangeWithOpenEnds() throws Exception {
+        int both = write(new DateRange(DateUtil.toDate(DAY), DateUtil.toDate(DAY))).length;
+        DateRange noFrom = new DateRange(null, DateUtil.toDate(DAY));
+        DateRange noTo = new DateRange(DateUtil.toDate(DAY), null);
+        DateRange neither = new DateRange(null, null);
+        assertEquals(noFrom, read(write(noFrom)));
+        assertEquals(noTo, read(write(noTo)));
+        assertEquals(neither, read(write(neither)));
+        // a missing date is only a flag
+        assertEquals(both - 4, write(noFrom).length);
+        assertEquals(both - 4, write(noTo).length);
+        assertEquals(both - 8, write(neither).length);
+    }
+
+    @Test
+    public void dateRangeWithTimeOfDay() throws Exception {
+        int plain = write(new DateRange(DateUtil.toDate(DAY), DateUtil.toDate(DAY + 1))).length;
+        Date from = new Date(DateUtil.toDate(DAY).getTime() + 13 * 3600000L + 45 * 60000L + 12345);
+        Date to = new Date(DateUtil.toDate(DAY + 2).getTime() - 1);
+        DateRange dr = new DateRange(from, to);
+        byte[] bytes = write(dr);
+        DateRange copy = (DateRange) read(bytes);
+        assertEquals(from.getTime(), copy.getFrom().getTime());
+        assertEquals(to.getTime(), copy.getTo().getTime());
+        assertEquals(plain + 8, bytes.length);
+        // only the date that has one
+        DateRange fromOnly = new DateRange(from, DateUtil.toDate(DAY + 1));
+        assertEquals(fromOnly, read(write(fromOnly)));
+        assertEquals(plain + 4, write(fromOnly).length);
+    }
+
+    @Test
+    public void dateRangeIndex() throws Exception {
+        DateRangeIndex index = booked();
+        byte[] bytes = write(index);
+        // 5662 bytes as a tree of nodes
+        assertTrue(bytes.length + " bytes", bytes.length <= 2600);
+        DateRangeIndex copy = (DateRangeIndex) read(bytes);
+        assertEquals(index.size(), copy.size());
+        for (int day = 16990; day < 19010; day++) {
+            assertEquals(index.findContaining(day), copy.findContaining(day));
+        }
+    }
+
+    @Test
+    public void constraintsAreCompiledAgain() throws Exception {
+        DateRangeRules rules = (DateRangeRules) read(write(new DateRangeRules(2000, 2030, true)));
+        DateRangeConstraints constraints = rules.getConstraints();
+        assertEquals(2000, constraints.getMinYear());
+        assertEquals(2030, constraints.getMaxYear());
+        assertTrue(constraints.isWithinYear());
+        // the transient day window and messages
+        assertEquals(DateUtil.firstEpochDayOfYear(2000), constraints.earliestDay);
+        assertEquals(DateUtil.lastEpochDayOfYear(2030), constraints.latestDay);
+        assertEquals("From date must be in or after 2000", constraints.fromMinYearMessage);
+        assertEquals("Year must be earlier or equal to 2030", constraints.yearMaxYearMessage);
+        int before = DateUtil.epochDay(1999, 12, 31);
+        assertEquals(DateRangeRules.FROM_BEFORE_MIN_YEAR, rules.check(before, DAY, DateRangeRules.ANY_YEAR)
+                & DateRangeRules.FROM_BEFORE_MIN_YEAR);
+    }
+
+    @Test
+    public void field() throws Exception {
+        DateRangeField drf = configuredField();
+        byte[] bytes = write(drf);
+        // 17174 bytes before the compact forms
+        assertTrue(bytes.length + " bytes", bytes.length <= 14 * 1024);
+        DateRangeField copy = (DateRangeField) read(bytes);
+        assertEquals(drf.getValue(), copy.getValue());
+        assertEquals(2000, copy.getMinYear());
+        assertEquals(2030, copy.getMaxYear());
+        assertTrue(copy.getForceRangeToBeWithinACalendarYear());
+        assertNull(copy.highlightInvalidFields());
+    }
+
+    @Test
+    public void validationCacheStartsEmpty() throws Exception {
+        DateRangeField drf = configuredField();
+        DateRangeField copy = (DateRangeField) read(write(drf));
+        // every validator runs once more, none of the results came along
+        copy.resetValidationCacheCounters();
+        copy.highlightInvalidFields();
+        assertEquals(0, copy.getValidationCacheHits());
+        long misses = copy.getValidationCacheMisses();
+        assertTrue(misses > 0);
+        // and the rebuilt cache is used from then on
+        copy.highlightInvalidFields();
+        assertEquals(misses, copy.getValidationCacheMisses());
+        assertEquals(misses, copy.getValidationCacheHits());
+        // and follows the fields
+        copy.getFromField().setValue(DateUtil.toDate(DateUtil.epochDay(2014, 3, 1)));
+        copy.getToField().setValue(DateUtil.toDate(DateUtil.epochDay(2014, 2, 1)));
+        Validator.InvalidValueException error = copy.highlightInvalidFields();
+        assertNotNull(error);
+    }
+
+    @Test
+    public void lightweightField() throws Exception {
+        DateRangeField drf = new DateRangeField(new ObjectProperty<Date>(DateUtil.toDate(DAY), Date.class),
+                new ObjectProperty<Date>(DateUtil.toDate(DAY + 364), Date.class), new DateRangeRules(2000, 2030, true),
+                new ObjectProperty<Integer>(2014, Integer.class), true);
+        byte[] bytes = write(drf);
+        assertTrue(bytes.length + " bytes", bytes.length <= 5 * 1024);
+        DateRangeField copy = (DateRangeField) read(bytes);
+        assertTrue(copy.isLightweight());
+        assertEquals(drf.getValue(), copy.getValue());
+        assertEquals(2000, copy.getRules().getConstraints().getMinYear());
+        // still builds its sub fields when first asked
+        assertEquals(drf.getValue().getFrom(), copy.getFromField().getValue());
+        assertFalse(copy.getYearField().getValue() == null);
+    }
+
+    @Test
+    public void constantValidators() throws Exception {
+        AfterValidator after = new AfterValidator("Too early", DateUtil.toDate(DAY), true);
+        AfterValidator copy = (AfterValidator) read(write(after));
+        assertTrue(copy.isValid(DateUtil.toDate(DAY)));
+        assertFalse(copy.isValid(DateUtil.toDate(DAY - 1)));
+        BeforeValidator before = new BeforeValidator("Too late", DateUtil.toDate(DAY), false);
+        BeforeValidator beforeCopy = (BeforeValidator) read(write(before));
+        assertTrue(beforeCopy.isValid(DateUtil.toDate(DAY - 1)));
+        assertFalse(beforeCopy.isValid(DateUtil.toDate(DAY)));
+    }
+
+    // the field from DateRangeFieldUI, with a constant validator and an index of bookings, after a validation pass
+    private static DateRangeField configuredField() {
+        DateRangeField drf = new DateRangeField(new ObjectProperty<Date>(DateUtil.toDate(DAY), Date.class),
+                new ObjectProperty<Date>(DateUtil.toDate(DAY + 364), Date.class), true, 2014, true);
+        drf.setErrorStyleName("errorstyle");
+        drf.setMinYear(2000);
+        drf.setMaxYear(2030);
+        drf.initContent();
+        drf.addValidator(drf.getFromField(), AfterValidator.of("Too early", DateUtil.toDate(14000), true));
+        drf.addValidator(new NoOverlapValidator("Already booked", booked()));
+        drf.highlightInvalidFields();
+        return drf;
+    }
+
+    private static DateRangeIndex booked() {
+        DateRangeIndex booked = new DateRangeIndex();
+        for (int i = 0; i < 200; i++) {
+            booked.add(PackedDateRange.pack(17000 + 10 * i, 17003 + 10 * i));
+        }
+        return booked;
+    }
+
+    private static byte[] write(Serializable o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(o);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object read(byte[] bytes) throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    }
+}
@@ -0,0 +1,87 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Property;
+import com.vaadin.data.util.ObjectProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * setRange and a change of year update both dates as one change: one value change event and one validation pass,
+ * however many sub field listeners there are.
+ */
+public class SetRangeTest {
+
+    private static final int DAY = 16071;
+
+    private DateRangeField field;
+    private CountingMetrics metrics;
+    private final List<DateRange> events = new ArrayList<DateRange>();
+
+    @Before
+    public void setUp() {
+        field = new DateRangeField(new ObjectProperty<Date>(DateUtil.toDate(DAY), Date.class),
+                new ObjectProperty<Date>(DateUtil.toDate(DAY + 10), Date.class), true, 2014, true);
+        field.setErrorStyleName("invalid");
+        field.initContent();
+        field.addValueChangeListener(new Property.ValueChangeListener() {
+            @Override
+            public void valueChange(Property.ValueChangeEvent event) {
+                events.add((DateRange) event.getProperty().getValue());
+            }
+        });
+        metrics = new CountingMetrics();
+        field.setMetrics(metrics);
+    }
+
+    @Test
+    public void bothDatesAtOnce() {
+        field.setRange(DateUtil.toDate(DAY + 40), DateUtil.toDate(DAY + 50));
+        assertEquals(1, events.size());
+        assertEquals(new DateRange(DateUtil.toDate(DAY + 40), DateUtil.toDate(DAY + 50)), events.get(0));
+        assertEquals(1, metrics.valueChanges);
+        assertEquals(1, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+        assertEquals(3, metrics.subFieldsValidated);
+
+        // an order only valid once both are in is never highlighted in between
+        field.setRange(DateUtil.toDate(DAY + 60), DateUtil.toDate(DAY + 70));
+        assertEquals(2, events.size());
+        assertEquals(6, metrics.subFieldsValidated);
+        assertFalse(field.getFromField().getStyleName().contains("invalid"));
+    }
+
+    @Test
+    public void theSameRange() {
+        field.setRange(DateUtil.toDate(DAY), DateUtil.toDate(DAY + 10));
+        // nothing changed, but it is validated still
+        assertEquals(0, events.size());
+        assertEquals(1, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+    }
+
+    @Test
+    public void oneDateAtATime() {
+        // for comparison, each sub field change is an event and a pass of its own
+        field.getFromField().setValue(DateUtil.toDate(DAY + 5));
+        field.getToField().setValue(DateUtil.toDate(DAY + 15));
+        assertEquals(2, events.size());
+        assertEquals(2, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+    }
+
+    @Test
+    public void aNewYear() {
+        field.getYearField().setValue(2015);
+        assertEquals(1, metrics.operations(DateRangeFieldMetrics.Operation.YEAR_CHANGE));
+        assertEquals(1, events.size());
+        assertEquals(new DateRange(DateUtil.toDate(DateUtil.epochDay(2015, 1, 1)),
+                DateUtil.toDate(DateUtil.epochDay(2015, 1, 11))), events.get(0));
+        assertEquals(1, metrics.operations(DateRangeFieldMetrics.Operation.HIGHLIGHT));
+        assertEquals(3, metrics.subFieldsValidated);
+        assertEquals(DateUtil.toDate(DateUtil.epochDay(2015, 12, 31)), field.getToField().getMaxValue());
+    }
+}
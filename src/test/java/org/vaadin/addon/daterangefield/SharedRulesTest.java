@@ -0,0 +1,172 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.util.ObjectProperty;
+import com.vaadin.server.Constants;
+import com.vaadin.server.DefaultDeploymentConfiguration;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lightweight fields sharing one DateRangeRules: a change made through any of them reaches the others that are
+ * attached at once and the rest when they are attached, and a field builds its sub fields only when first used.
+ * The fields are attached to a UI in a session that is not connected to anything.
+ */
+public class SharedRulesTest {
+
+    private static final int DAY = 16071;
+
+    static class HeadlessSession extends VaadinSession {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        HeadlessSession() throws Exception {
+            super(new VaadinServletService(new VaadinServlet(), new DefaultDeploymentConfiguration(UI.class,
+                    productionMode())));
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+
+        private static Properties productionMode() {
+            Properties properties = new Properties();
+            properties.setProperty(Constants.SERVLET_PARAMETER_PRODUCTION_MODE, "true");
+            return properties;
+        }
+    }
+
+    private VaadinSession session;
+    private VerticalLayout layout;
+    private DateRangeRules rules;
+
+    @Before
+    public void setUp() throws Exception {
+        session = new HeadlessSession();
+        session.lock();
+        UI ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        ui.setSession(session);
+        layout = new VerticalLayout();
+        ui.setContent(layout);
+        rules = new DateRangeRules(2010, 2020, true);
+    }
+
+    @After
+    public void tearDown() {
+        session.unlock();
+    }
+
+    @Test
+    public void attachedFieldsFollowAChange() {
+        DateRangeField a = field(2014);
+        DateRangeField b = field(2014);
+        layout.addComponent(a);
+        layout.addComponent(b);
+        b.setErrorStyleName("invalid");
+
+        a.setMinYear(2015);
+        assertEquals(2015, b.getMinYear());
+        assertEquals(Integer.valueOf(2015), b.getYearField().getMinValue());
+        // 2014 is out of bounds now, for both
+        assertTrue(b.getYearField().getStyleName().contains("invalid"));
+        assertEquals(rules.getConstraints().fromMinYearMessage, b.highlightInvalidFields().getMessage());
+
+        b.setMaxYear(2012);
+        // a max below the min moves the min down with it
+        assertEquals(2012, a.getMinYear());
+        assertEquals(Integer.valueOf(2012), a.getYearField().getMaxValue());
+        assertEquals(Integer.valueOf(2012), a.getYearField().getMinValue());
+
+        a.setForceRangeToBeWithinACalendarYear(false);
+        assertFalse(b.getForceRangeToBeWithinACalendarYear());
+        assertFalse(b.getYearField().isVisible());
+
+        // removing a bound removes the stepper's too
+        rules.getConstraints().setMinYear(-1);
+        assertNull(b.getYearField().getMinValue());
+    }
+
+    @Test
+    public void aDetachedFieldCatchesUpWhenAttached() {
+        DateRangeField a = field(2014);
+        DateRangeField b = field(2014);
+        layout.addComponent(a);
+        layout.addComponent(b);
+        layout.removeComponent(b);
+
+        a.setMaxYear(2016);
+        // not listening, so the shared rules don't keep it
+        assertEquals(Integer.valueOf(2020), b.getYearField().getMaxValue());
+        assertEquals(2016, b.getMaxYear());
+        layout.addComponent(b);
+        assertEquals(Integer.valueOf(2016), b.getYearField().getMaxValue());
+
+        // one that was never attached takes the current settings when it is built
+        DateRangeField c = field(2014);
+        a.setMaxYear(2017);
+        assertEquals(Integer.valueOf(2017), c.getYearField().getMaxValue());
+    }
+
+    @Test
+    public void builtOnFirstUse() {
+        DateRangeField field = field(2014);
+        CountingMetrics metrics = new CountingMetrics();
+        field.setMetrics(metrics);
+        field.setFromDateCaption("Start");
+        field.setLocale(Locale.GERMANY);
+        DateParser parser = new DateParser(Locale.GERMANY, "dd.MM.yyyy");
+        field.setDateParser(parser);
+        assertTrue(field.isLightweight());
+        // the rules are checked without the sub fields, and nothing is highlighted
+        assertNull(field.highlightInvalidFields());
+        field.setRange(DateUtil.toDate(DAY + 1), DateUtil.toDate(DAY));
+        assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE, field.highlightInvalidFields().getMessage());
+        assertEquals(0, metrics.subFieldsValidated);
+
+        // what was set before is applied when they are built, and the pending highlight done
+        assertEquals("Start", field.getFromField().getCaption());
+        assertEquals(3, metrics.subFieldsValidated);
+        assertEquals(DAY + 1, DateUtil.toEpochDay(field.getFromField().getValue()));
+        assertEquals(Locale.GERMANY, field.getYearField().getLocale());
+        assertSame(parser, ((ParsingDateStepper) field.getToField()).getDateParser());
+        assertTrue(field.getYearField().isVisible());
+    }
+
+    @Test
+    public void renderedWhenAttached() {
+        DateRangeField field = field(2014);
+        CountingMetrics metrics = new CountingMetrics();
+        field.setMetrics(metrics);
+        layout.addComponent(field);
+        assertEquals(3, metrics.subFieldsValidated);
+        assertEquals(Integer.valueOf(2014), field.getYearField().getValue());
+    }
+
+    private DateRangeField field(int year) {
+        return new DateRangeField(new ObjectProperty<Date>(DateUtil.toDate(DAY), Date.class),
+                new ObjectProperty<Date>(DateUtil.toDate(DAY + 10), Date.class), rules,
+                new ObjectProperty<Integer>(year, Integer.class), true);
+    }
+}
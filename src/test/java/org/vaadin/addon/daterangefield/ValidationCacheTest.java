@@ -0,0 +1,112 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+import com.vaadin.data.util.ObjectProperty;
+import com.vaadin.data.validator.AbstractValidator;
+import com.vaadin.data.validator.DateRangeValidator;
+import com.vaadin.shared.ui.datefield.Resolution;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The sub field validator results DateRangeField reuses: a validator runs again only when the value of a field it
+ * depends on, or the year constraints, changed since it last ran.  The field is not rendered, so nothing validates
+ * unless the test asks for it.
+ */
+public class ValidationCacheTest {
+
+    private static final int DAY = 16071;
+
+    private DateRangeField field;
+
+    @Before
+    public void setUp() {
+        field = new DateRangeField(new ObjectProperty<Date>(DateUtil.toDate(DAY), Date.class),
+                new ObjectProperty<Date>(DateUtil.toDate(DAY + 10), Date.class), true, 2014, true);
+        field.resetValidationCacheCounters();
+    }
+
+    @Test
+    public void unchangedFieldsAreHits() {
+        assertNull(field.highlightInvalidFields());
+        assertCounts(3, 0);
+        assertNull(field.highlightInvalidFields());
+        assertCounts(6, 0);
+    }
+
+    @Test
+    public void theOtherDateInvalidatesBoth() {
+        field.getToField().setValue(DateUtil.toDate(DAY + 20));
+        field.highlightInvalidFields();
+        // the year validator doesn't depend on the dates
+        assertCounts(1, 2);
+        field.getFromField().setValue(DateUtil.toDate(DAY + 30));
+        assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE, field.highlightInvalidFields().getMessage());
+        assertCounts(2, 4);
+        // the error is reused too
+        assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE, field.highlightInvalidFields().getMessage());
+        assertCounts(5, 4);
+    }
+
+    @Test
+    public void theYearInvalidatesAll() {
+        field.getYearField().setValue(2015);
+        Validator.InvalidValueException error = field.highlightInvalidFields();
+        assertEquals(DateWindowValidator.FROM_NOT_IN_YEAR_MESSAGE, error.getMessage());
+        assertCounts(0, 3);
+        field.highlightInvalidFields();
+        assertCounts(3, 3);
+    }
+
+    @Test
+    public void minAndMaxYearInvalidateAll() {
+        // the field highlights right away when the constraints change
+        field.setMinYear(2015);
+        assertCounts(0, 3);
+        assertEquals(field.getRules().getConstraints().yearMinYearMessage,
+                field.highlightInvalidField(field.getYearField()).getMessage());
+        assertCounts(1, 3);
+        field.setMaxYear(2020);
+        assertCounts(1, 6);
+        field.setMinYear(-1);
+        field.resetValidationCacheCounters();
+        assertNull(field.highlightInvalidFields());
+        assertCounts(3, 0);
+    }
+
+    @Test
+    public void validatorsWithoutDependencies() {
+        // a RangeValidator only looks at its own field
+        field.addValidator(field.getFromField(), new DateRangeValidator("Not in 2014", DateUtil.firstDayOfYear(2014),
+                DateUtil.lastDayOfYear(2014), Resolution.DAY));
+        // anything else could look at anything
+        field.addValidator(field.getToField(), new AbstractValidator<Date>("Never") {
+            @Override
+            protected boolean isValidValue(Date value) {
+                return true;
+            }
+
+            @Override
+            public Class<Date> getType() {
+                return Date.class;
+            }
+        });
+        field.resetValidationCacheCounters();
+        field.highlightInvalidFields();
+        assertCounts(4, 1);
+        field.getToField().setValue(DateUtil.toDate(DAY + 20));
+        field.highlightInvalidFields();
+        // the range validator and the year's are hits
+        assertCounts(6, 4);
+    }
+
+    private void assertCounts(long hits, long misses) {
+        assertEquals("hits", hits, field.getValidationCacheHits());
+        assertEquals("misses", misses, field.getValidationCacheMisses());
+    }
+}
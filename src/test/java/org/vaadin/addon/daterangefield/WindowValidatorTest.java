@@ -0,0 +1,145 @@
+package org.vaadin.addon.daterangefield;
+
+import com.vaadin.data.Validator;
+import com.vaadin.ui.DateField;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vaadin.risto.stepper.IntStepper;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * DateWindowValidator and YearWindowValidator: where the year bounds fall, and which messages a broken rule gives,
+ * in the order AbstractField would have combined the separate validators.
+ */
+public class WindowValidatorTest {
+
+    private DateRangeRules rules;
+    private DateField otherField;
+    private IntStepper yearField;
+    private DateWindowValidator from;
+    private DateWindowValidator to;
+
+    @Before
+    public void setUp() {
+        DateUtil.setClock(DateClock.fixed(day(2011, 6, 1)));
+        rules = new DateRangeRules(2010, 2012, false);
+        otherField = new DateField();
+        yearField = new IntStepper();
+        from = new DateWindowValidator(rules, true, otherField, yearField);
+        to = new DateWindowValidator(rules, false, otherField, yearField);
+    }
+
+    @After
+    public void tearDown() {
+        DateUtil.setClock(null);
+    }
+
+    @Test
+    public void theMaxYearEndsOnDecember31() {
+        otherField.setValue(day(2011, 1, 1));
+        assertNull(message(to, day(2012, 12, 31)));
+        assertEquals("To date must be in or before 2012", message(to, day(2013, 1, 1)));
+        otherField.setValue(day(2012, 12, 31));
+        assertNull(message(from, day(2012, 12, 31)));
+        assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE + ", From date must be in or before 2012",
+                message(from, day(2013, 1, 1)));
+    }
+
+    @Test
+    public void theMinYearStartsOnJanuary1() {
+        otherField.setValue(day(2011, 1, 1));
+        assertNull(message(from, day(2010, 1, 1)));
+        assertEquals("From date must be in or after 2010", message(from, day(2009, 12, 31)));
+        otherField.setValue(day(2010, 1, 1));
+        assertNull(message(to, day(2010, 1, 1)));
+        assertEquals(DateWindowValidator.TO_BEFORE_FROM_MESSAGE + ", To date must be in or after 2010",
+                message(to, day(2009, 12, 31)));
+    }
+
+    @Test
+    public void withinAYear() {
+        rules.getConstraints().setWithinYear(true);
+        otherField.setValue(day(2011, 12, 31));
+        yearField.setValue(2011);
+        assertNull(message(from, day(2011, 1, 1)));
+        assertEquals(DateWindowValidator.FROM_NOT_IN_YEAR_MESSAGE, message(from, day(2010, 12, 31)));
+        // all rules broken, in the order of the validators they replace
+        yearField.setValue(2013);
+        otherField.setValue(day(2009, 1, 1));
+        assertEquals(DateWindowValidator.TO_BEFORE_FROM_MESSAGE + ", " + DateWindowValidator.TO_NOT_IN_YEAR_MESSAGE
+                + ", To date must be in or after 2010", message(to, day(2008, 12, 31)));
+        assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE + ", " + DateWindowValidator.FROM_NOT_IN_YEAR_MESSAGE
+                + ", From date must be in or before 2012", message(from, day(2014, 1, 1)));
+        // without a year the range only has to be in order
+        yearField.setValue(null);
+        otherField.setValue(day(2011, 12, 31));
+        assertNull(message(from, day(2010, 12, 31)));
+    }
+
+    @Test
+    public void aMissingDateIsToday() {
+        otherField.setValue(day(2011, 5, 31));
+        assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE, message(from, null));
+        otherField.setValue(null);
+        assertNull(message(from, day(2011, 6, 1)));
+        assertEquals(DateWindowValidator.TO_BEFORE_FROM_MESSAGE, message(to, day(2011, 5, 31)));
+    }
+
+    @Test
+    public void theYearBoundsApplyWithOrWithoutWithinAYear() {
+        YearWindowValidator year = new YearWindowValidator(rules);
+        for (boolean withinYear : new boolean[]{false, true}) {
+            rules.getConstraints().setWithinYear(withinYear);
+            assertNull(message(year, 2010));
+            assertNull(message(year, 2012));
+            assertNull(message(year, null));
+            assertEquals("Year must be later or equal to 2010", message(year, 2009));
+            assertEquals("Year must be earlier or equal to 2012", message(year, 2013));
+        }
+        rules.getConstraints().setMaxYear(-1);
+        assertNull(message(year, 9999));
+    }
+
+    @Test
+    public void theRightType() {
+        try {
+            from.validate("2011-01-01");
+            fail();
+        } catch (Validator.InvalidValueException expected) {
+            assertEquals(DateWindowValidator.FROM_AFTER_TO_MESSAGE, expected.getMessage());
+        }
+        try {
+            new YearWindowValidator(rules).validate("2011");
+            fail();
+        } catch (Validator.InvalidValueException expected) {
+            assertNull(expected.getMessage());
+        }
+    }
+
+    // the message, or the messages of the causes joined as AbstractField shows them, null if valid
+    private static String message(Validator validator, Object value) {
+        try {
+            validator.validate(value);
+            return null;
+        } catch (Validator.InvalidValueException e) {
+            if (null != e.getMessage()) {
+                return e.getMessage();
+            }
+            StringBuilder messages = new StringBuilder();
+            for (Validator.InvalidValueException cause : e.getCauses()) {
+                messages.append((messages.length() == 0) ? "" : ", ").append(cause.getMessage());
+            }
+            return messages.toString();
+        }
+    }
+
+    private static Date day(int year, int month, int dayOfMonth) {
+        return DateUtil.toDate(DateUtil.epochDay(year, month, dayOfMonth));
+    }
+}